@@ -8,6 +8,7 @@ import './Clients.css';
 const Clients = () => {
   const { language } = useLanguage();
   const [clients, setClients] = useState([]);
+  const [summaries, setSummaries] = useState({});
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
   const [showModal, setShowModal] = useState(false);
@@ -49,6 +50,14 @@ const Clients = () => {
         setError(language === 'fr' ? 'Erreur de chargement des clients' : 'Failed to load clients');
         setLoading(false);
       });
+
+    ApiService.getClientSummaries()
+      .then(response => {
+        const byClient = {};
+        response.data.forEach(summary => { byClient[summary.clientId] = summary; });
+        setSummaries(byClient);
+      })
+      .catch(error => console.error('Error loading client balances:', error));
   };
 
   const handleAddClient = () => {
@@ -189,6 +198,8 @@ const Clients = () => {
                   <th>{language === 'fr' ? 'Téléphone' : 'Phone'}</th>
                   <th>{language === 'fr' ? 'Ville' : 'City'}</th>
                   <th>{language === 'fr' ? 'Pays' : 'Country'}</th>
+                  <th>{language === 'fr' ? 'Factures' : 'Invoices'}</th>
+                  <th>{language === 'fr' ? 'Solde dû' : 'Outstanding'}</th>
                   <th>{language === 'fr' ? 'Actions' : 'Actions'}</th>
                 </tr>
               </thead>
@@ -202,6 +213,8 @@ const Clients = () => {
                     <td>{client.phone || '-'}</td>
                     <td>{client.city || '-'}</td>
                     <td>{client.country || '-'}</td>
+                    <td>{summaries[client.id] ? summaries[client.id].invoiceCount : 0}</td>
+                    <td>{summaries[client.id] ? Number(summaries[client.id].outstandingBalance).toFixed(2) : '0.00'}</td>
                     <td>
                       <div className="action-buttons">
                         <button
@@ -17,6 +17,7 @@ const Products = () => {
     description: '',
     price: '',
     stockQuantity: '',
+    reorderThreshold: '',
     category: ''
   });
   const [showConfirmModal, setShowConfirmModal] = useState(false);
@@ -53,6 +54,7 @@ const Products = () => {
       description: '',
       price: '',
       stockQuantity: '',
+      reorderThreshold: '',
       category: ''
     });
     setShowModal(true);
@@ -65,6 +67,7 @@ const Products = () => {
       description: product.description || '',
       price: product.price || '',
       stockQuantity: product.stockQuantity || '',
+      reorderThreshold: product.reorderThreshold ?? '',
       category: product.category || ''
     });
     setShowModal(true);
@@ -107,7 +110,8 @@ const Products = () => {
     const productData = {
       ...formData,
       price: parseFloat(formData.price),
-      stockQuantity: parseInt(formData.stockQuantity)
+      stockQuantity: parseInt(formData.stockQuantity),
+      reorderThreshold: formData.reorderThreshold === '' ? null : parseInt(formData.reorderThreshold)
     };
 
     if (editingProduct) {
@@ -189,7 +193,7 @@ const Products = () => {
                     <td>{product.category || '-'}</td>
                     <td className="product-price">${parseFloat(product.price).toFixed(2)}</td>
                     <td>
-                      <span className={`stock-badge ${product.stockQuantity < 10 ? 'low' : 'normal'}`}>
+                      <span className={`stock-badge ${product.stockQuantity < (product.reorderThreshold ?? 10) ? 'low' : 'normal'}`}>
                         {product.stockQuantity}
                       </span>
                     </td>
@@ -307,6 +311,21 @@ const Products = () => {
                 />
               </div>
 
+              <div className="form-group">
+                <label>
+                  <i className="pi pi-exclamation-triangle"></i>
+                  {language === 'fr' ? 'Seuil de Réapprovisionnement' : 'Reorder Threshold'}
+                </label>
+                <input
+                  type="number"
+                  name="reorderThreshold"
+                  value={formData.reorderThreshold}
+                  onChange={handleChange}
+                  min="0"
+                  placeholder="10"
+                />
+              </div>
+
               <div className="form-group">
                 <label>
                   <i className="pi pi-align-left"></i>
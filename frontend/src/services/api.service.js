@@ -70,15 +70,35 @@ class ApiService {
     return axiosInstance.delete('products/' + id);
   }
 
+  bulkAdjustPrices(request) {
+    return axiosInstance.post('products/bulk-price', request);
+  }
+
+  getLowStockProducts() {
+    return axiosInstance.get('products/low-stock');
+  }
+
+  getLowStockAlerts(since) {
+    return axiosInstance.get('products/low-stock/alerts' + (since ? '?since=' + since : ''));
+  }
+
   // Invoice Management
-  getAllInvoices() {
-    return axiosInstance.get('invoices');
+  getAllInvoices(from, to) {
+    const params = new URLSearchParams();
+    if (from) params.append('from', from);
+    if (to) params.append('to', to);
+    const query = params.toString();
+    return axiosInstance.get('invoices' + (query ? '?' + query : ''));
   }
 
   createInvoice(invoice) {
     return axiosInstance.post('invoices', invoice);
   }
 
+  previewInvoice(invoice) {
+    return axiosInstance.post('invoices/preview', invoice);
+  }
+
   getInvoice(id) {
     return axiosInstance.get('invoices/' + id);
   }
@@ -91,10 +111,38 @@ class ApiService {
     return axiosInstance.put('invoices/' + id + '/status?status=' + status, {});
   }
 
+  updateInvoiceStatuses(request) {
+    return axiosInstance.post('invoices/status', request);
+  }
+
   deleteInvoice(id) {
     return axiosInstance.delete('invoices/' + id);
   }
 
+  // Payments
+  getInvoicePayments(invoiceId) {
+    return axiosInstance.get('payments/invoice/' + invoiceId);
+  }
+
+  recordPayment(invoiceId, payment) {
+    return axiosInstance.post('payments/invoice/' + invoiceId, payment);
+  }
+
+  importStatement(file, format) {
+    const data = new FormData();
+    data.append('file', file);
+    if (format) data.append('format', format);
+    return axiosInstance.post('payments/import', data);
+  }
+
+  getPaymentImports() {
+    return axiosInstance.get('payments/imports');
+  }
+
+  getUnmatchedStatementLines(importId) {
+    return axiosInstance.get('payments/imports/' + importId + '/unmatched');
+  }
+
   // Client Management
   getAllClients() {
     return axiosInstance.get('clients');
@@ -104,6 +152,14 @@ class ApiService {
     return axiosInstance.get('clients/' + id);
   }
 
+  getClientSummaries() {
+    return axiosInstance.get('clients/summaries');
+  }
+
+  getClientSummary(id) {
+    return axiosInstance.get('clients/' + id + '/summary');
+  }
+
   createClient(client) {
     return axiosInstance.post('clients', client);
   }
@@ -169,6 +225,36 @@ class ApiService {
   getActivityLogsFilterOptions() {
     return axiosInstance.get('activity-logs/filters-options');
   }
+
+  // Pricing rules
+  getPricingRules() {
+    return axiosInstance.get('pricing-rules');
+  }
+
+  createPricingRule(rule) {
+    return axiosInstance.post('pricing-rules', rule);
+  }
+
+  updatePricingRule(id, rule) {
+    return axiosInstance.put('pricing-rules/' + id, rule);
+  }
+
+  deletePricingRule(id) {
+    return axiosInstance.delete('pricing-rules/' + id);
+  }
+
+  // Reports
+  getRevenueReport(from, to, granularity = 'MONTH', groupBy = 'NONE') {
+    return axiosInstance.get(`reports/revenue?from=${from}&to=${to}&granularity=${granularity}&groupBy=${groupBy}`);
+  }
+
+  getTopProducts(window = 'TODAY', metric = 'UNITS', limit = 10) {
+    return axiosInstance.get(`reports/top-products?window=${window}&metric=${metric}&limit=${limit}`);
+  }
+
+  getAgingReport(clientId) {
+    return axiosInstance.get('reports/aging' + (clientId ? '?clientId=' + clientId : ''));
+  }
 }
 
 export default new ApiService();
@@ -0,0 +1,52 @@
+package com.example.demo.controller;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Activity log details as the controllers build them, with plain concatenation as a baseline
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class AuditMessageBenchmark {
+
+    private final String invoiceNumber = "FACT-0042";
+    private final String customerName = "Acme Industries";
+    private final BigDecimal total = new BigDecimal("1234.56");
+    private final String productName = "Widget";
+    private final int stock = 177;
+
+    @Benchmark
+    public String invoiceCreatedFormat() {
+        return String.format("Created invoice %s for customer %s, total: %s", invoiceNumber, customerName, total);
+    }
+
+    @Benchmark
+    public String invoiceCreatedConcat() {
+        return "Created invoice " + invoiceNumber + " for customer " + customerName + ", total: " + total;
+    }
+
+    @Benchmark
+    public String productUpdatedFormat() {
+        return String.format("Updated product: %s, new price: %s, stock: %d", productName, total, stock);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Batch {
+        @Param({"1", "500"})
+        public int size;
+    }
+
+    // Bulk status changes build one detail per invoice before a single batch insert
+    @Benchmark
+    public List<String> bulkStatusDetailsFormat(Batch batch) {
+        List<String> details = new ArrayList<>(batch.size);
+        for (int i = 0; i < batch.size; i++) {
+            details.add(String.format("Changed invoice %s status from %s to %s", invoiceNumber, "PENDING", "PAID"));
+        }
+        return details;
+    }
+}
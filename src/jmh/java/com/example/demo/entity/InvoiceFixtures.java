@@ -0,0 +1,88 @@
+package com.example.demo.entity;
+
+import com.example.demo.model.Client;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Detached invoice graphs shaped like the ones the API builds and returns
+public final class InvoiceFixtures {
+
+    private static final String[] CATEGORIES = {"Hardware", "Software", "Services", "Supplies"};
+
+    private InvoiceFixtures() {
+    }
+
+    public static List<Product> products(int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setId((long) i + 1);
+            product.setName("Product " + (i + 1));
+            product.setDescription("Description of product " + (i + 1));
+            product.setPrice(BigDecimal.valueOf(199 + i * 37L, 2));
+            product.setStockQuantity(1000);
+            product.setCategory(CATEGORIES[i % CATEGORIES.length]);
+            product.setStockStripes(0);
+            product.setReorderThreshold(Product.DEFAULT_REORDER_THRESHOLD);
+            product.setCreatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+            product.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+            products.add(product);
+        }
+        return products;
+    }
+
+    public static Client client() {
+        Client client = new Client();
+        client.setId(1L);
+        client.setName("Acme");
+        client.setCompanyName("Acme Industries");
+        client.setEmail("billing@acme.example");
+        client.setCity("Paris");
+        client.setCountry("France");
+        client.setCreatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+        return client;
+    }
+
+    // Lines are priced at the 20% default rate without discounts
+    public static Invoice invoice(int lines, List<Product> products) {
+        Invoice invoice = new Invoice();
+        invoice.setId(1L);
+        invoice.setInvoiceNumber("FACT-0001");
+        invoice.setClient(client());
+        invoice.setCustomerName("Acme");
+        invoice.setInvoiceDate(LocalDate.of(2024, 3, 1));
+        invoice.setDueDate(LocalDate.of(2024, 3, 31));
+        invoice.setTaxRate(BigDecimal.valueOf(20.0));
+        invoice.setAmountPaid(BigDecimal.ZERO);
+        invoice.setStatus(Invoice.InvoiceStatus.PENDING);
+        invoice.setCreatedAt(LocalDateTime.of(2024, 3, 1, 10, 0));
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal tax = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            Product product = products.get(i % products.size());
+            InvoiceItem item = new InvoiceItem();
+            item.setId((long) i + 1);
+            item.setProduct(product);
+            item.setQuantity(1 + i % 7);
+            item.setUnitPrice(product.getPrice());
+            item.setSubtotal(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            item.setDiscount(BigDecimal.ZERO);
+            item.setTaxRate(invoice.getTaxRate());
+            item.setTaxAmount(item.getSubtotal().multiply(invoice.getTaxRate()).movePointLeft(2).setScale(2, RoundingMode.HALF_UP));
+            item.setInvoiceDate(invoice.getInvoiceDate());
+            invoice.addItem(item);
+            subtotal = subtotal.add(item.getSubtotal());
+            tax = tax.add(item.getTaxAmount());
+        }
+        invoice.setSubtotal(subtotal);
+        invoice.setDiscount(BigDecimal.ZERO);
+        invoice.setTaxAmount(tax);
+        invoice.setTotalAmount(subtotal.add(tax));
+        return invoice;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.entity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Invoice graphs (client, items, products) written the way the REST controllers return them
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class InvoiceSerializationBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int items;
+
+    // Invoices per response, as in the invoice list
+    @Param({"1", "50"})
+    public int invoices;
+
+    private ObjectMapper objectMapper;
+    private List<Invoice> graph;
+
+    @Setup
+    public void setUp() {
+        // Same defaults Spring Boot applies to the MVC message converter
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<Product> products = InvoiceFixtures.products(200);
+        graph = new ArrayList<>(invoices);
+        for (int i = 0; i < invoices; i++) {
+            graph.add(InvoiceFixtures.invoice(items, products));
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(invoices == 1 ? graph.get(0) : graph);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.security;
+
+import com.example.demo.entity.Role;
+import com.example.demo.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// What AuthTokenFilter and UserDetailsServiceImpl do on every authenticated request
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    @Param({"1", "3"})
+    public int roles;
+
+    private JwtUtils jwtUtils;
+    private String token;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret",
+                "MySecretKeyForJWTTokenGenerationBusinessManagementSystem2024SecureKey12345");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpiration", 86400000L);
+
+        Set<Role> roleSet = new HashSet<>();
+        Role.RoleName[] names = Role.RoleName.values();
+        for (int i = 0; i < roles; i++) {
+            roleSet.add(new Role((long) i + 1, names[i % names.length]));
+        }
+        user = new User();
+        user.setId(1L);
+        user.setUsername("admin");
+        user.setEmail("admin@example.com");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z2LtzZ5DbQf8CU3e6b1FQ5xK");
+        user.setRoles(roleSet);
+
+        UserDetailsImpl principal = UserDetailsImpl.build(user);
+        token = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @Benchmark
+    public String validateAndGetUsername() {
+        if (!jwtUtils.validateJwtToken(token)) {
+            throw new IllegalStateException("token rejected");
+        }
+        return jwtUtils.getUsernameFromJwtToken(token);
+    }
+
+    @Benchmark
+    public UserDetailsImpl buildUserDetails() {
+        return UserDetailsImpl.build(user);
+    }
+}
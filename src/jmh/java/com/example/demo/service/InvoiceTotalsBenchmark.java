@@ -0,0 +1,67 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Invoice;
+import com.example.demo.entity.InvoiceFixtures;
+import com.example.demo.entity.InvoiceItem;
+import com.example.demo.entity.PricingRule;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Line pricing and invoice totals as computed when an invoice is created or previewed
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class InvoiceTotalsBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int lines;
+
+    @Param({"0", "50"})
+    public int rules;
+
+    private Invoice invoice;
+    private PricingRules pricingRules;
+    private final BigDecimal defaultTaxRate = BigDecimal.valueOf(20.0);
+
+    @Setup
+    public void setUp() {
+        invoice = InvoiceFixtures.invoice(lines, InvoiceFixtures.products(200));
+
+        List<PricingRule> ruleList = new ArrayList<>();
+        for (int i = 0; i < rules; i++) {
+            PricingRule rule = new PricingRule();
+            rule.setId((long) i + 1);
+            rule.setName("Rule " + i);
+            rule.setKind(i % 3 == 0 ? PricingRule.Kind.TAX : PricingRule.Kind.DISCOUNT);
+            rule.setProductId(i % 2 == 0 ? (long) (i % 200) + 1 : null);
+            rule.setCategory(i % 2 == 1 ? "Hardware" : null);
+            rule.setMinQuantity(1 + i % 4);
+            rule.setRate(BigDecimal.valueOf(5 + i % 10));
+            rule.setPriority(i % 5);
+            rule.setActive(true);
+            ruleList.add(rule);
+        }
+        pricingRules = PricingRules.compile(ruleList);
+    }
+
+    @Benchmark
+    public BigDecimal priceAndTotal() {
+        LinePricing pricing = new LinePricing();
+        Long clientId = invoice.getClient().getId();
+        for (InvoiceItem item : invoice.getItems()) {
+            InvoiceService.priceLine(item, pricingRules, pricing, clientId, defaultTaxRate);
+        }
+        InvoiceService.applyTotals(invoice);
+        return invoice.getTotalAmount();
+    }
+
+    @Benchmark
+    public BigDecimal totalsOnly() {
+        InvoiceService.applyTotals(invoice);
+        return invoice.getTotalAmount();
+    }
+}
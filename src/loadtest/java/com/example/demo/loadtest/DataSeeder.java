@@ -0,0 +1,342 @@
+package com.example.demo.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Bulk loads a synthetic dataset with COPY into the schema the application created. Ids are
+// assigned here, above whatever already exists, so related rows can refer to each other without
+// reading ids back; the identity sequences are moved past them afterwards.
+class DataSeeder {
+
+    private static final String[] ADJECTIVES = {
+            "Classic", "Compact", "Deluxe", "Eco", "Heavy", "Industrial", "Light", "Mini", "Premium",
+            "Pro", "Rugged", "Smart", "Standard", "Steel", "Ultra", "Wireless"};
+    private static final String[] NOUNS = {
+            "Adapter", "Bracket", "Cable", "Drill", "Filter", "Hinge", "Lamp", "Monitor", "Panel",
+            "Pump", "Router", "Sensor", "Switch", "Valve", "Widget", "Wrench"};
+    private static final String[] CATEGORIES = {
+            "Electronics", "Hardware", "Lighting", "Networking", "Plumbing", "Tools"};
+    private static final String[] CITIES = {"Paris", "Lyon", "Brussels", "Geneva", "Montreal", "Casablanca"};
+    private static final String[] ACTIONS = {"LOGIN", "CREATE", "UPDATE", "DELETE", "STATUS_CHANGE"};
+    private static final String[] ENTITY_TYPES = {"AUTH", "INVOICE", "PRODUCT", "CLIENT"};
+
+    private static final BigDecimal TAX_RATE = new BigDecimal("20.00");
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    // Rows are sent to the server in chunks of about this many bytes
+    private static final int COPY_CHUNK = 1 << 20;
+
+    private final Connection connection;
+    private final CopyManager copyManager;
+    private final LoadTestOptions options;
+    private final Random random;
+    private final LocalDate today = LocalDate.now();
+    private final LocalDateTime now = LocalDateTime.now();
+
+    DataSeeder(Connection connection, LoadTestOptions options) throws SQLException {
+        this.connection = connection;
+        this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        this.options = options;
+        this.random = new Random(options.seed);
+    }
+
+    Dataset seed() throws Exception {
+        connection.setAutoCommit(false);
+
+        List<String> usernames = seedUsers();
+        long firstClientId = maxId("clients") + 1;
+        seedClients(firstClientId);
+        long firstProductId = maxId("products") + 1;
+        BigDecimal[] prices = seedProducts(firstProductId);
+        seedInvoices(firstClientId, firstProductId, prices);
+        seedActivityLogs(usernames);
+        seedCompanySettings();
+
+        for (String table : new String[]{"users", "clients", "products", "stock_movements",
+                "invoices", "invoice_items", "activity_logs"}) {
+            execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), " +
+                    "GREATEST((SELECT MAX(id) FROM " + table + "), 1))");
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        execute("ANALYZE");
+
+        List<String> terms = new ArrayList<>(Arrays.asList(NOUNS));
+        terms.addAll(Arrays.asList(ADJECTIVES));
+        return new Dataset(usernames, firstClientId, options.clients, firstProductId, options.products, terms);
+    }
+
+    private List<String> seedUsers() throws SQLException {
+        long firstId = maxId("users") + 1;
+        long roleId = queryLong("SELECT id FROM roles WHERE name = 'ROLE_USER'");
+        // One hash for everyone: logging in still pays the full BCrypt check
+        String hash = new BCryptPasswordEncoder().encode(Dataset.PASSWORD);
+
+        List<String> usernames = new ArrayList<>();
+        Copy users = copy("users (id, username, email, password, enabled, created_at)");
+        for (int i = 0; i < options.users; i++) {
+            String username = "loadtest" + (firstId + i);
+            usernames.add(username);
+            users.row(firstId + i, username, username + "@loadtest.example.com", hash, true, now);
+        }
+        users.end();
+        Copy roles = copy("user_roles (user_id, role_id)");
+        for (int i = 0; i < options.users; i++) {
+            roles.row(firstId + i, roleId);
+        }
+        roles.end();
+        return usernames;
+    }
+
+    private void seedClients(long firstId) throws SQLException {
+        Copy clients = copy("clients (id, name, company_name, email, phone, address, city, postal_code, " +
+                "country, tax_number, created_at, updated_at)");
+        for (int i = 0; i < options.clients; i++) {
+            long id = firstId + i;
+            String city = CITIES[random.nextInt(CITIES.length)];
+            clients.row(id, "Client " + id, "Company " + id + " SARL", "client" + id + "@loadtest.example.com",
+                    "+33 1 " + (10_000_000 + id), id + " rue du Test", city, String.valueOf(10_000 + random.nextInt(89_999)),
+                    "France", "FR" + (100_000_000L + id), now, now);
+        }
+        clients.end();
+    }
+
+    private BigDecimal[] seedProducts(long firstId) throws SQLException {
+        BigDecimal[] prices = new BigDecimal[options.products];
+        // Stock large enough that the invoices created during the run never run out
+        int stock = 1_000_000;
+        Copy products = copy("products (id, name, description, price, stock_quantity, category, stock_stripes, " +
+                "reorder_threshold, created_at, updated_at)");
+        for (int i = 0; i < options.products; i++) {
+            long id = firstId + i;
+            prices[i] = BigDecimal.valueOf(100 + random.nextInt(50_000), 2);
+            String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)] + " " + id;
+            products.row(id, name, "Synthetic product " + id, prices[i], stock,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], 0, 10, now, now);
+        }
+        products.end();
+        // Opening movements keep the ledger summing to the stock on hand
+        Copy opening = copy("stock_movements (product_id, quantity, stock_after, reason, invoice_id, created_at)");
+        for (int i = 0; i < options.products; i++) {
+            opening.row(firstId + i, stock, stock, "OPENING", null, now);
+        }
+        opening.end();
+        return prices;
+    }
+
+    // A connection runs one COPY at a time and the items reference their invoice, so the tables
+    // are loaded one after the other, regenerating each invoice from its own seed every pass
+    private void seedInvoices(long firstClientId, long firstProductId, BigDecimal[] prices) throws SQLException {
+        long firstId = maxId("invoices") + 1;
+        long firstItemId = maxId("invoice_items") + 1;
+
+        Copy invoices = copy("invoices (id, invoice_number, client_id, customer_name, invoice_date, due_date, " +
+                "subtotal, tax_rate, tax_amount, discount, total_amount, amount_paid, status, created_at)");
+        for (int i = 0; i < options.invoices; i++) {
+            SeedInvoice invoice = invoice(firstId + i, firstClientId, prices);
+            BigDecimal total = invoice.subtotal.add(invoice.tax);
+            invoices.row(invoice.id, invoice.number(), invoice.clientId, "Client " + invoice.clientId, invoice.date,
+                    invoice.date.plusDays(30), invoice.subtotal, TAX_RATE, invoice.tax, BigDecimal.ZERO, total,
+                    invoice.status.equals("PAID") ? total : BigDecimal.ZERO, invoice.status, invoice.createdAt);
+        }
+        invoices.end();
+
+        Copy items = copy("invoice_items (id, invoice_id, product_id, quantity, unit_price, subtotal, discount, " +
+                "tax_rate, tax_amount, invoice_date)");
+        long itemId = firstItemId;
+        for (int i = 0; i < options.invoices; i++) {
+            SeedInvoice invoice = invoice(firstId + i, firstClientId, prices);
+            for (int line = 0; line < invoice.products.length; line++) {
+                int product = invoice.products[line];
+                items.row(itemId++, invoice.id, firstProductId + product, invoice.quantities[line], prices[product],
+                        invoice.lineSubtotals[line], BigDecimal.ZERO, TAX_RATE, invoice.lineTaxes[line], invoice.date);
+            }
+        }
+        items.end();
+
+        Copy numbers = copy("invoice_numbers (invoice_number, invoice_id, invoice_date)");
+        for (int i = 0; i < options.invoices; i++) {
+            SeedInvoice invoice = invoice(firstId + i, firstClientId, prices);
+            numbers.row(invoice.number(), invoice.id, invoice.date);
+        }
+        numbers.end();
+    }
+
+    private SeedInvoice invoice(long id, long firstClientId, BigDecimal[] prices) {
+        Random random = new Random(options.seed * 1_000_003 + id);
+        SeedInvoice invoice = new SeedInvoice();
+        invoice.id = id;
+        invoice.clientId = firstClientId + random.nextInt(options.clients);
+        invoice.date = today.minusDays(random.nextInt(Math.max(options.historyYears * 365, 1)));
+        invoice.createdAt = invoice.date.atTime(9, 0).plusMinutes(random.nextInt(600));
+        invoice.status = status(random, invoice.date.plusDays(30));
+
+        int lines = 1 + random.nextInt(options.maxItemsPerInvoice);
+        invoice.products = new int[lines];
+        invoice.quantities = new int[lines];
+        invoice.lineSubtotals = new BigDecimal[lines];
+        invoice.lineTaxes = new BigDecimal[lines];
+        invoice.subtotal = BigDecimal.ZERO;
+        invoice.tax = BigDecimal.ZERO;
+        for (int line = 0; line < lines; line++) {
+            int product = random.nextInt(options.products);
+            int quantity = 1 + random.nextInt(10);
+            BigDecimal subtotal = prices[product].multiply(BigDecimal.valueOf(quantity));
+            BigDecimal tax = subtotal.multiply(TAX_RATE).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+            invoice.products[line] = product;
+            invoice.quantities[line] = quantity;
+            invoice.lineSubtotals[line] = subtotal;
+            invoice.lineTaxes[line] = tax;
+            invoice.subtotal = invoice.subtotal.add(subtotal);
+            invoice.tax = invoice.tax.add(tax);
+        }
+        return invoice;
+    }
+
+    // Mostly settled history, mostly open recent invoices
+    private String status(Random random, LocalDate due) {
+        int roll = random.nextInt(100);
+        if (due.isBefore(today)) {
+            return roll < 70 ? "PAID" : roll < 90 ? "OVERDUE" : roll < 95 ? "CANCELLED" : "SENT";
+        }
+        return roll < 60 ? "PENDING" : roll < 90 ? "SENT" : "DRAFT";
+    }
+
+    private void seedActivityLogs(List<String> usernames) throws SQLException {
+        int historySeconds = Math.max(options.historyYears * 365, 1) * 86_400;
+        Copy logs = copy("activity_logs (username, user_role, action, entity_type, entity_id, details, " +
+                "ip_address, created_at)");
+        for (int i = 0; i < options.activityLogs; i++) {
+            String username = usernames.get(random.nextInt(usernames.size()));
+            String action = ACTIONS[random.nextInt(ACTIONS.length)];
+            String entityType = ENTITY_TYPES[random.nextInt(ENTITY_TYPES.length)];
+            long entityId = 1 + random.nextInt(10_000);
+            logs.row(username, "ROLE_USER", action, entityType, entityId,
+                    String.format("%s %s %d by %s", action, entityType, entityId, username),
+                    "10.0." + random.nextInt(256) + "." + random.nextInt(256),
+                    now.minusSeconds(random.nextInt(historySeconds)));
+        }
+        logs.end();
+    }
+
+    // Invoice numbers come from the settings row; seeded invoices use their own prefix
+    private void seedCompanySettings() throws SQLException {
+        if (queryLong("SELECT COUNT(*) FROM company_settings") == 0) {
+            execute("INSERT INTO company_settings (company_name, invoice_prefix, next_invoice_number, " +
+                    "default_tax_rate, currency, created_at, updated_at) " +
+                    "VALUES ('Load Test SARL', 'LT', 1, 20, 'EUR', now(), now())");
+        }
+    }
+
+    private long maxId(String table) throws SQLException {
+        return queryLong("SELECT COALESCE(MAX(id), 0) FROM " + table);
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            if (!rs.next()) {
+                throw new IllegalStateException("No result for: " + sql);
+            }
+            return rs.getLong(1);
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private Copy copy(String target) throws SQLException {
+        return new Copy(copyManager.copyIn("COPY " + target + " FROM STDIN"));
+    }
+
+    private static class SeedInvoice {
+        long id;
+        long clientId;
+        LocalDate date;
+        LocalDateTime createdAt;
+        String status;
+        int[] products;
+        int[] quantities;
+        BigDecimal[] lineSubtotals;
+        BigDecimal[] lineTaxes;
+        BigDecimal subtotal;
+        BigDecimal tax;
+
+        String number() {
+            return String.format("SEED-%07d", id);
+        }
+    }
+
+    // Rows in COPY text format, buffered and written in chunks
+    private static class Copy {
+        private final CopyIn copyIn;
+        private final StringBuilder buffer = new StringBuilder(COPY_CHUNK + 4096);
+        private long rows;
+
+        Copy(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        void row(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append('\t');
+                }
+                append(values[i]);
+            }
+            buffer.append('\n');
+            rows++;
+            if (buffer.length() >= COPY_CHUNK) {
+                flush();
+            }
+        }
+
+        private void append(Object value) {
+            if (value == null) {
+                buffer.append("\\N");
+                return;
+            }
+            String text = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '\\': buffer.append("\\\\"); break;
+                    case '\t': buffer.append("\\t"); break;
+                    case '\n': buffer.append("\\n"); break;
+                    case '\r': buffer.append("\\r"); break;
+                    default: buffer.append(c);
+                }
+            }
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+
+        long end() throws SQLException {
+            flush();
+            copyIn.endCopy();
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.loadtest;
+
+import java.util.List;
+import java.util.Random;
+
+// What the seeder created, so the driver can pick existing users, clients and products
+class Dataset {
+
+    static final String PASSWORD = "loadtest";
+
+    final List<String> usernames;
+    final long firstClientId;
+    final int clients;
+    final long firstProductId;
+    final int products;
+    final List<String> searchTerms;
+
+    Dataset(List<String> usernames, long firstClientId, int clients, long firstProductId, int products,
+            List<String> searchTerms) {
+        this.usernames = usernames;
+        this.firstClientId = firstClientId;
+        this.clients = clients;
+        this.firstProductId = firstProductId;
+        this.products = products;
+        this.searchTerms = searchTerms;
+    }
+
+    String randomUsername(Random random) {
+        return usernames.get(random.nextInt(usernames.size()));
+    }
+
+    long randomClientId(Random random) {
+        return firstClientId + random.nextInt(clients);
+    }
+
+    long randomProductId(Random random) {
+        return firstProductId + random.nextInt(products);
+    }
+
+    String randomSearchTerm(Random random) {
+        return searchTerms.get(random.nextInt(searchTerms.size()));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Response times per endpoint. Each worker keeps its own recorder, so recording never contends;
+// they are merged once the run is over.
+class LatencyRecorder {
+
+    private final Map<String, Samples> byEndpoint = new TreeMap<>();
+
+    void record(String endpoint, long nanos, boolean ok) {
+        Samples samples = byEndpoint.computeIfAbsent(endpoint, k -> new Samples());
+        samples.add(nanos);
+        if (!ok) {
+            samples.errors++;
+        }
+    }
+
+    static LatencyRecorder merge(List<LatencyRecorder> recorders) {
+        LatencyRecorder merged = new LatencyRecorder();
+        for (LatencyRecorder recorder : recorders) {
+            recorder.byEndpoint.forEach((endpoint, samples) ->
+                    merged.byEndpoint.computeIfAbsent(endpoint, k -> new Samples()).addAll(samples));
+        }
+        return merged;
+    }
+
+    // One row per endpoint plus a total, with latencies in milliseconds
+    Map<String, Summary> summarize(double seconds) {
+        Map<String, Summary> summaries = new LinkedHashMap<>();
+        Samples all = new Samples();
+        byEndpoint.forEach((endpoint, samples) -> {
+            summaries.put(endpoint, samples.summarize(seconds));
+            all.addAll(samples);
+        });
+        summaries.put("TOTAL", all.summarize(seconds));
+        return summaries;
+    }
+
+    static class Summary {
+        public long requests;
+        public long errors;
+        public double throughput;
+        public double mean;
+        public double p50;
+        public double p95;
+        public double p99;
+        public double max;
+    }
+
+    private static class Samples {
+        long[] nanos = new long[1024];
+        int count;
+        long errors;
+
+        void add(long value) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = value;
+        }
+
+        void addAll(Samples other) {
+            if (count + other.count > nanos.length) {
+                nanos = Arrays.copyOf(nanos, Math.max(nanos.length * 2, count + other.count));
+            }
+            System.arraycopy(other.nanos, 0, nanos, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        Summary summarize(double seconds) {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            Summary summary = new Summary();
+            summary.requests = count;
+            summary.errors = errors;
+            summary.throughput = seconds > 0 ? count / seconds : 0;
+            if (count > 0) {
+                summary.mean = millis(Arrays.stream(sorted).sum() / (double) count);
+                summary.p50 = millis(percentile(sorted, 50));
+                summary.p95 = millis(percentile(sorted, 95));
+                summary.p99 = millis(percentile(sorted, 99));
+                summary.max = millis(sorted[count - 1]);
+            }
+            return summary;
+        }
+
+        // Nearest-rank percentile
+        private static long percentile(long[] sorted, double p) {
+            int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+
+        private static double millis(double nanos) {
+            return Math.round(nanos / 10_000.0) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Closed-loop load: a fixed number of simulated users, each picking the next operation from the
+// weighted mix as soon as the previous one finished. Requests completed during the warm-up are
+// not recorded.
+class LoadDriver {
+
+    // Failed responses printed, enough to diagnose without flooding the output
+    private static final int MAX_ERRORS_SHOWN = 10;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger errorsShown = new AtomicInteger();
+
+    private final String baseUrl;
+    private final Dataset dataset;
+    private final LoadTestOptions options;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    LoadDriver(String baseUrl, Dataset dataset, LoadTestOptions options) {
+        this.baseUrl = baseUrl;
+        this.dataset = dataset;
+        this.options = options;
+        this.operations = options.mix.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += options.mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    Result run() throws Exception {
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < options.concurrency; i++) {
+            Worker worker = new Worker(new Random(options.seed + i));
+            worker.login(false);
+            workers.add(worker);
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup.toNanos();
+        long end = measureFrom + options.duration.toNanos();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < workers.size(); i++) {
+            Worker worker = workers.get(i);
+            Thread thread = new Thread(() -> worker.loop(measureFrom, end), "loadtest-user-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        double seconds = (System.nanoTime() - measureFrom) / 1e9;
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        Map<Operation, Long> operationCounts = new LinkedHashMap<>();
+        for (Worker worker : workers) {
+            recorders.add(worker.recorder);
+            worker.operations.forEach((operation, count) -> operationCounts.merge(operation, count, Long::sum));
+        }
+        return new Result(LatencyRecorder.merge(recorders).summarize(seconds), operationCounts, seconds);
+    }
+
+    static class Result {
+        final Map<String, LatencyRecorder.Summary> endpoints;
+        final Map<Operation, Long> operations;
+        final double seconds;
+
+        Result(Map<String, LatencyRecorder.Summary> endpoints, Map<Operation, Long> operations, double seconds) {
+            this.endpoints = endpoints;
+            this.operations = operations;
+            this.seconds = seconds;
+        }
+    }
+
+    private Operation pick(Random random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private class Worker {
+        final Random random;
+        final LatencyRecorder recorder = new LatencyRecorder();
+        final Map<Operation, Long> operations = new HashMap<>();
+        String token;
+        boolean recording;
+
+        Worker(Random random) {
+            this.random = random;
+        }
+
+        void loop(long measureFrom, long end) {
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                recording = now >= measureFrom;
+                Operation operation = pick(random);
+                try {
+                    perform(operation);
+                } catch (Exception e) {
+                    showError(operation.key(), e.toString());
+                }
+                if (recording) {
+                    operations.merge(operation, 1L, Long::sum);
+                }
+            }
+        }
+
+        void perform(Operation operation) throws Exception {
+            switch (operation) {
+                case LOGIN:
+                    login(true);
+                    break;
+                case CREATE_INVOICE:
+                    createInvoice();
+                    break;
+                case PRODUCT_SEARCH:
+                    String term = URLEncoder.encode(dataset.randomSearchTerm(random), StandardCharsets.UTF_8);
+                    send("GET /api/products/search/{name}", get("/api/products/search/" + term));
+                    break;
+                case DASHBOARD:
+                    // What the dashboard page loads, with the invoice list bounded to the last month
+                    send("GET /api/clients", get("/api/clients"));
+                    send("GET /api/products", get("/api/products"));
+                    send("GET /api/invoices?from", get("/api/invoices?from=" + LocalDate.now().minusDays(30)));
+                    break;
+                case REPORTS:
+                    LocalDate today = LocalDate.now();
+                    send("GET /api/reports/aging", get("/api/reports/aging"));
+                    send("GET /api/reports/top-products", get("/api/reports/top-products?window=TODAY"));
+                    send("GET /api/reports/revenue", get("/api/reports/revenue?from=" + today.minusYears(1)
+                            + "&to=" + today + "&granularity=MONTH"));
+                    break;
+                default:
+                    throw new IllegalStateException("Unhandled operation: " + operation);
+            }
+        }
+
+        void login(boolean record) throws Exception {
+            Map<String, String> credentials = new HashMap<>();
+            credentials.put("username", dataset.randomUsername(random));
+            credentials.put("password", Dataset.PASSWORD);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(credentials)))
+                    .build();
+            boolean wasRecording = recording;
+            recording = recording && record;
+            HttpResponse<String> response = send("POST /api/auth/login", request);
+            recording = wasRecording;
+            if (response != null && response.statusCode() == 200) {
+                token = objectMapper.readTree(response.body()).get("token").asText();
+            } else if (token == null) {
+                throw new IllegalStateException("Login failed for the load test user");
+            }
+        }
+
+        void createInvoice() throws Exception {
+            List<Map<String, Object>> items = new ArrayList<>();
+            int lines = 1 + random.nextInt(options.maxItemsPerInvoice);
+            for (int i = 0; i < lines; i++) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("productId", dataset.randomProductId(random));
+                item.put("quantity", 1 + random.nextInt(3));
+                items.add(item);
+            }
+            Map<String, Object> invoice = new HashMap<>();
+            invoice.put("clientId", dataset.randomClientId(random));
+            invoice.put("items", items);
+            send("POST /api/invoices", authorized("/api/invoices")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(invoice)))
+                    .build());
+        }
+
+        HttpRequest get(String path) {
+            return authorized(path).GET().build();
+        }
+
+        HttpRequest.Builder authorized(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Authorization", "Bearer " + token);
+        }
+
+        // The whole body is read before the clock stops; transport failures count as errors
+        HttpResponse<String> send(String endpoint, HttpRequest request) {
+            long start = System.nanoTime();
+            HttpResponse<String> response = null;
+            try {
+                response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                showError(endpoint, e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long elapsed = System.nanoTime() - start;
+            boolean ok = response != null && response.statusCode() / 100 == 2;
+            if (response != null && !ok) {
+                showError(endpoint, response.statusCode() + " " + response.body());
+            }
+            if (recording) {
+                recorder.record(endpoint, elapsed, ok);
+            }
+            return response;
+        }
+    }
+
+    private void showError(String endpoint, String message) {
+        if (errorsShown.getAndIncrement() < MAX_ERRORS_SHOWN) {
+            String shown = message.length() > 300 ? message.substring(0, 300) + "..." : message;
+            System.err.println("[loadtest] " + endpoint + " failed: " + shown);
+        }
+    }
+}
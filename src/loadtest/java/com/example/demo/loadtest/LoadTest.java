@@ -0,0 +1,151 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.service.ClientSummaryService;
+import com.example.demo.service.RevenueRollupService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// End-to-end load test: starts PostgreSQL, lets the application create its schema, bulk loads a
+// synthetic dataset, starts the application on a random port and drives the configured mix of
+// requests against it, then reports latency percentiles and throughput per endpoint.
+// Run with mvn -Ploadtest verify; options are listed in LoadTestOptions.
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        int exitCode = 0;
+
+        try (TestDatabase database = TestDatabase.start(options)) {
+            String[] properties = database.properties();
+
+            long seedStart = System.nanoTime();
+            Dataset dataset = database.prepare();
+            double seedSeconds = (System.nanoTime() - seedStart) / 1e9;
+            log(String.format("Seeded in %.1fs", seedSeconds));
+
+            LoadDriver.Result result;
+            Map<String, SqlUsage> sql;
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+                    .run(properties)) {
+                // Rollups and summaries are maintained incrementally, so bulk-loaded rows need a rebuild
+                context.getBean(RevenueRollupService.class).rebuild();
+                context.getBean(ClientSummaryService.class).rebuild();
+
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                log(String.format("Driving %d users for %ds after %ds of warm-up, mix %s",
+                        options.concurrency, options.duration.getSeconds(), options.warmup.getSeconds(), options.mix));
+                result = new LoadDriver("http://localhost:" + port, dataset, options).run();
+                sql = sqlUsage(context.getBean(MeterRegistry.class));
+            }
+
+            print(result);
+            print(sql);
+            if (options.result != null) {
+                write(new File(options.result), options, seedSeconds, result, sql);
+                log("Results written to " + options.result);
+            }
+            if (options.failOnBudget && sql.values().stream().anyMatch(usage -> usage.budgetExceeded > 0)) {
+                log("Requests went over their SQL statement budget");
+                exitCode = 1;
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    // Statements per request as counted by the application's SQL budget filter, warm-up included
+    private static Map<String, SqlUsage> sqlUsage(MeterRegistry registry) {
+        Map<String, SqlUsage> usage = new TreeMap<>();
+        for (DistributionSummary summary : registry.find("sql.request.statements").summaries()) {
+            SqlUsage endpoint = usage.computeIfAbsent(endpoint(summary.getId()), key -> new SqlUsage());
+            endpoint.requests = summary.count();
+            endpoint.meanStatements = summary.mean();
+            endpoint.maxStatements = summary.max();
+        }
+        for (Counter counter : registry.find("sql.budget.exceeded").counters()) {
+            usage.computeIfAbsent(endpoint(counter.getId()), key -> new SqlUsage()).budgetExceeded = (long) counter.count();
+        }
+        for (Counter counter : registry.find("sql.repeated.statements").counters()) {
+            usage.computeIfAbsent(endpoint(counter.getId()), key -> new SqlUsage()).repeated = (long) counter.count();
+        }
+        return usage;
+    }
+
+    private static String endpoint(Meter.Id id) {
+        return id.getTag("method") + " " + id.getTag("uri");
+    }
+
+    static class SqlUsage {
+        public long requests;
+        public double meanStatements;
+        public double maxStatements;
+        public long budgetExceeded;
+        public long repeated;
+    }
+
+    private static void print(LoadDriver.Result result) {
+        System.out.println();
+        System.out.printf("%-36s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "Endpoint", "Requests", "Errors", "Req/s", "Mean ms", "p50 ms", "p95 ms", "p99 ms", "Max ms");
+        result.endpoints.forEach((endpoint, s) -> System.out.printf(
+                "%-36s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint, s.requests, s.errors, s.throughput, s.mean, s.p50, s.p95, s.p99, s.max));
+        System.out.println();
+        result.operations.forEach((operation, count) -> System.out.printf("%-12s %9d operations, %.1f/s%n",
+                operation.key(), count, count / result.seconds));
+        System.out.println();
+    }
+
+    private static void print(Map<String, SqlUsage> sql) {
+        System.out.printf("%-36s %9s %9s %9s %9s %9s%n",
+                "SQL per request", "Requests", "Mean", "Max", "Over", "Repeats");
+        sql.forEach((endpoint, s) -> System.out.printf("%-36s %9d %9.1f %9.0f %9d %9d%n",
+                endpoint, s.requests, s.meanStatements, s.maxStatements, s.budgetExceeded, s.repeated));
+        System.out.println();
+    }
+
+    private static void write(File file, LoadTestOptions options, double seedSeconds, LoadDriver.Result result,
+                              Map<String, SqlUsage> sql) throws Exception {
+        Map<String, Object> dataset = new LinkedHashMap<>();
+        dataset.put("users", options.users);
+        dataset.put("clients", options.clients);
+        dataset.put("products", options.products);
+        dataset.put("invoices", options.invoices);
+        dataset.put("maxItemsPerInvoice", options.maxItemsPerInvoice);
+        dataset.put("activityLogs", options.activityLogs);
+        dataset.put("partitioned", options.partitioned);
+        dataset.put("seedSeconds", seedSeconds);
+
+        Map<String, Object> load = new LinkedHashMap<>();
+        load.put("concurrency", options.concurrency);
+        load.put("warmupSeconds", options.warmup.getSeconds());
+        load.put("durationSeconds", result.seconds);
+        load.put("mix", options.mix);
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("dataset", dataset);
+        json.put("load", load);
+        json.put("endpoints", result.endpoints);
+        json.put("operations", result.operations);
+        json.put("sql", sql);
+
+        file.getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, json);
+    }
+
+    static void log(String message) {
+        System.out.println("[loadtest] " + message);
+    }
+}
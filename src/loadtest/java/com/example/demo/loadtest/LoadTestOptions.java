@@ -0,0 +1,127 @@
+package com.example.demo.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Command line options as --name=value; anything not given keeps its default
+class LoadTestOptions {
+
+    // Dataset
+    int users = 20;
+    int clients = 2_000;
+    int products = 5_000;
+    int invoices = 50_000;
+    int maxItemsPerInvoice = 5;
+    int activityLogs = 100_000;
+    int historyYears = 3;
+    boolean partitioned = false;
+    // Start from the baseline tables alone, without migration history, like a database created
+    // before migrations; the first start then baselines it and runs every later migration
+    boolean legacySchema = false;
+
+    // Load
+    int concurrency = 32;
+    Duration warmup = Duration.ofSeconds(15);
+    Duration duration = Duration.ofSeconds(60);
+    Map<Operation, Integer> mix = parseMix("login:5,invoice:15,search:50,dashboard:10,reports:20");
+    long seed = 42;
+
+    // Where to run: an embedded PostgreSQL unless a database URL is given, e.g. a scratch
+    // database on the same server the application normally uses
+    String databaseUrl;
+    String databaseUsername = "postgres";
+    String databasePassword = "postgres";
+
+    String result;
+    // Exit with status 1 when any request went over its SQL statement budget
+    boolean failOnBudget = false;
+
+    // Plan checks: a sequential scan of a bigger table fails a check that expects an index
+    long maxSeqScanRows = 10_000;
+
+    // Stress test: invoice writes spread over a few hot products with little stock, some of
+    // them striped, so requests contend and some run out
+    int operations = 5_000;
+    int hotProducts = 20;
+    int hotStock = 2_000;
+    int stripedProducts = 5;
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "users": options.users = Integer.parseInt(value); break;
+                case "clients": options.clients = Integer.parseInt(value); break;
+                case "products": options.products = Integer.parseInt(value); break;
+                case "invoices": options.invoices = Integer.parseInt(value); break;
+                case "max-items": options.maxItemsPerInvoice = Integer.parseInt(value); break;
+                case "activity-logs": options.activityLogs = Integer.parseInt(value); break;
+                case "history-years": options.historyYears = Integer.parseInt(value); break;
+                case "partitioned": options.partitioned = Boolean.parseBoolean(value); break;
+                case "legacy-schema": options.legacySchema = Boolean.parseBoolean(value); break;
+                case "concurrency": options.concurrency = Integer.parseInt(value); break;
+                case "warmup": options.warmup = parseDuration(value); break;
+                case "duration": options.duration = parseDuration(value); break;
+                case "mix": options.mix = parseMix(value); break;
+                case "seed": options.seed = Long.parseLong(value); break;
+                case "database-url": options.databaseUrl = value.isBlank() ? null : value; break;
+                case "database-username": options.databaseUsername = value; break;
+                case "database-password": options.databasePassword = value; break;
+                case "result": options.result = value; break;
+                case "fail-on-budget": options.failOnBudget = Boolean.parseBoolean(value); break;
+                case "max-seq-scan-rows": options.maxSeqScanRows = Long.parseLong(value); break;
+                case "operations": options.operations = Integer.parseInt(value); break;
+                case "hot-products": options.hotProducts = Integer.parseInt(value); break;
+                case "hot-stock": options.hotStock = Integer.parseInt(value); break;
+                case "striped-products": options.stripedProducts = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+        if (options.users < 1 || options.clients < 1 || options.products < 1 || options.maxItemsPerInvoice < 1) {
+            throw new IllegalArgumentException("users, clients, products and max-items must be at least 1");
+        }
+        return options;
+    }
+
+    // 90s, 2m or an ISO-8601 duration
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.parse(value);
+    }
+
+    // Relative weights, e.g. search:70,invoice:30; operations left out are not run
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight in mix, got: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(Operation.fromName(pair[0].trim()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Mix must give at least one operation a positive weight");
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.loadtest;
+
+// What a simulated user does in one step of the mix; each may issue several requests
+enum Operation {
+    LOGIN("login"),
+    CREATE_INVOICE("invoice"),
+    PRODUCT_SEARCH("search"),
+    DASHBOARD("dashboard"),
+    REPORTS("reports");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    static Operation fromName(String name) {
+        for (Operation operation : values()) {
+            if (operation.key.equalsIgnoreCase(name) || operation.name().equalsIgnoreCase(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + name);
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.config.SlowQuerySampler;
+import com.example.demo.dto.SlowQuery;
+import com.example.demo.entity.Invoice.InvoiceStatus;
+import com.example.demo.repository.ActivityLogRepository;
+import com.example.demo.repository.InvoiceRepository;
+import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.UserRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.example.demo.loadtest.LoadTest.log;
+
+// Query plan checks for the repository methods: loads a scaled dataset like the load test, runs
+// every method declared on the checked repositories with representative arguments and has each
+// statement explained (EXPLAIN ANALYZE, through the slow query sampler with a zero threshold).
+// A check expecting an index fails when any of its statements scans a table of more than
+// --max-seq-scan-rows rows sequentially; a method without a check fails too, so new ones get
+// one. Exits with status 1 on any failure.
+// Run with mvn -Pplancheck verify; options are those of LoadTestOptions.
+public class PlanCheck {
+
+    // Larger than the load test defaults, so the planner has a reason to prefer an index
+    private static final String[] DEFAULTS = {
+            "--users=20000", "--clients=20000", "--products=50000", "--invoices=100000", "--activity-logs=300000"};
+
+    private static final List<Class<?>> REPOSITORIES = List.of(
+            InvoiceRepository.class, ProductRepository.class, ActivityLogRepository.class, UserRepository.class);
+
+    private static final Pattern SCAN = Pattern.compile(
+            "((?:Parallel )?(?:Seq Scan|Index Only Scan|Index Scan|Bitmap Heap Scan|Bitmap Index Scan)(?: Backward)?(?: using \\S+)? on (\\S+))");
+
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\S+)");
+
+    enum Expect { INDEX, FULL_READ }
+
+    public static void main(String[] args) throws Exception {
+        String[] withDefaults = Arrays.copyOf(DEFAULTS, DEFAULTS.length + args.length);
+        System.arraycopy(args, 0, withDefaults, DEFAULTS.length, args.length);
+        LoadTestOptions options = LoadTestOptions.parse(withDefaults);
+
+        int failures;
+        try (TestDatabase database = TestDatabase.start(options)) {
+            Dataset dataset = database.prepare();
+
+            // Every statement is sampled and explained
+            String[] properties = database.properties(
+                    "--app.sql.slow.threshold=PT0.000000001S",
+                    "--app.sql.slow.explain-rate=1",
+                    "--app.sql.slow.capacity=100000");
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .run(properties);
+                 Connection connection = database.connect()) {
+                List<Check> checks = checks(context, dataset);
+                failures = missingChecks(checks);
+                SlowQuerySampler sampler = context.getBean(SlowQuerySampler.class);
+                Map<String, Long> tableRows = new HashMap<>();
+                System.out.println();
+                for (Check check : checks) {
+                    if (!run(check, sampler, connection, tableRows, options.maxSeqScanRows)) {
+                        failures++;
+                    }
+                }
+                System.out.println();
+            }
+        }
+        log(failures == 0 ? "All plan checks passed" : failures + " plan check(s) failed");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static List<Check> checks(ConfigurableApplicationContext context, Dataset dataset) {
+        InvoiceRepository invoices = context.getBean(InvoiceRepository.class);
+        ProductRepository products = context.getBean(ProductRepository.class);
+        ActivityLogRepository activityLogs = context.getBean(ActivityLogRepository.class);
+        UserRepository users = context.getBean(UserRepository.class);
+        // Locking reads need a transaction
+        TransactionTemplate transaction = context.getBean(TransactionTemplate.class);
+
+        String username = dataset.usernames.get(dataset.usernames.size() / 2);
+        LocalDate weekStart = LocalDate.now().minusDays(90);
+        LocalDate weekEnd = weekStart.plusDays(6);
+        LocalDateTime dayStart = LocalDateTime.now().minusDays(30);
+
+        List<Check> checks = new ArrayList<>();
+        checks.add(index(InvoiceRepository.class, "findByInvoiceNumber(String)",
+                () -> invoices.findByInvoiceNumber("SEED-0000042")));
+        checks.add(index(InvoiceRepository.class, "findByIdForUpdate(Long)",
+                () -> transaction.executeWithoutResult(status -> invoices.findByIdForUpdate(42L))));
+        // Drafts are the recent few; the common statuses are read through date ranges
+        checks.add(index(InvoiceRepository.class, "findByStatus(InvoiceStatus)",
+                () -> invoices.findByStatus(InvoiceStatus.DRAFT)));
+        checks.add(fullRead(InvoiceRepository.class, "findByCustomerNameContainingIgnoreCase(String)",
+                "contains search, a leading wildcard cannot use a b-tree index",
+                () -> invoices.findByCustomerNameContainingIgnoreCase("Client 42")));
+        checks.add(index(InvoiceRepository.class, "findByInvoiceDateBetween(LocalDate,LocalDate)",
+                () -> invoices.findByInvoiceDateBetween(weekStart, weekEnd)));
+        checks.add(index(InvoiceRepository.class, "findByStatusAndInvoiceDateBetween(InvoiceStatus,LocalDate,LocalDate)",
+                () -> invoices.findByStatusAndInvoiceDateBetween(InvoiceStatus.PAID, weekStart, weekEnd)));
+        checks.add(index(InvoiceRepository.class,
+                "findByCustomerNameContainingIgnoreCaseAndInvoiceDateBetween(String,LocalDate,LocalDate)",
+                () -> invoices.findByCustomerNameContainingIgnoreCaseAndInvoiceDateBetween("Client", weekStart, weekEnd)));
+
+        checks.add(index(ProductRepository.class, "findByCategory(String)",
+                () -> products.findByCategory("Garden")));
+        checks.add(fullRead(ProductRepository.class, "findByNameContainingIgnoreCase(String)",
+                "contains search, a leading wildcard cannot use a b-tree index",
+                () -> products.findByNameContainingIgnoreCase("Drill")));
+        checks.add(index(ProductRepository.class, "findByStockQuantityLessThan(Integer)",
+                () -> products.findByStockQuantityLessThan(10)));
+        checks.add(index(ProductRepository.class, "findWithLowStockAlert()",
+                products::findWithLowStockAlert));
+
+        checks.add(fullRead(ActivityLogRepository.class, "findAllByOrderByCreatedAtDesc()",
+                "the whole log, unpaged",
+                activityLogs::findAllByOrderByCreatedAtDesc));
+        checks.add(index(ActivityLogRepository.class, "findAllByOrderByCreatedAtDesc(Pageable)",
+                () -> activityLogs.findAllByOrderByCreatedAtDesc(PageRequest.of(0, 50))).exceptCount());
+        checks.add(index(ActivityLogRepository.class, "findByUsernameOrderByCreatedAtDesc(String)",
+                () -> activityLogs.findByUsernameOrderByCreatedAtDesc(username)));
+        checks.add(fullRead(ActivityLogRepository.class, "findByEntityTypeOrderByCreatedAtDesc(String)",
+                "a handful of entity types, each a large share of the log",
+                () -> activityLogs.findByEntityTypeOrderByCreatedAtDesc("AUTH")));
+        checks.add(fullRead(ActivityLogRepository.class, "findByActionOrderByCreatedAtDesc(String)",
+                "a handful of actions, each a large share of the log",
+                () -> activityLogs.findByActionOrderByCreatedAtDesc("LOGIN")));
+        checks.add(index(ActivityLogRepository.class, "findByDateRange(LocalDateTime,LocalDateTime)",
+                () -> activityLogs.findByDateRange(dayStart, dayStart.plusDays(1))));
+        checks.add(index(ActivityLogRepository.class, "findByFilters(String,String,String)",
+                () -> activityLogs.findByFilters(username, null, null)));
+        checks.add(fullRead(ActivityLogRepository.class, "findDistinctUsernames()",
+                "distinct values of the whole log", activityLogs::findDistinctUsernames));
+        checks.add(fullRead(ActivityLogRepository.class, "findDistinctEntityTypes()",
+                "distinct values of the whole log", activityLogs::findDistinctEntityTypes));
+        checks.add(fullRead(ActivityLogRepository.class, "findDistinctActions()",
+                "distinct values of the whole log", activityLogs::findDistinctActions));
+
+        checks.add(index(UserRepository.class, "findByUsername(String)",
+                () -> users.findByUsername(username)));
+        checks.add(index(UserRepository.class, "findByEmail(String)",
+                () -> users.findByEmail(username + "@loadtest.example.com")));
+        checks.add(index(UserRepository.class, "existsByUsername(String)",
+                () -> users.existsByUsername(username)));
+        checks.add(index(UserRepository.class, "existsByEmail(String)",
+                () -> users.existsByEmail(username + "@loadtest.example.com")));
+        return checks;
+    }
+
+    // Every method declared on a checked repository needs a check
+    private static int missingChecks(List<Check> checks) {
+        Set<String> checked = checks.stream().map(Check::name).collect(Collectors.toSet());
+        int missing = 0;
+        for (Class<?> repository : REPOSITORIES) {
+            for (Method method : repository.getDeclaredMethods()) {
+                String name = repository.getSimpleName() + "." + method.getName() + "(" + Arrays.stream(method.getParameterTypes())
+                        .map(Class::getSimpleName).collect(Collectors.joining(",")) + ")";
+                if (!checked.contains(name)) {
+                    System.out.printf("FAIL  %-9s %s%n      no plan check%n", "", name);
+                    missing++;
+                }
+            }
+        }
+        return missing;
+    }
+
+    private static boolean run(Check check, SlowQuerySampler sampler, Connection connection,
+                               Map<String, Long> tableRows, long maxSeqScanRows) throws Exception {
+        sampler.clear();
+        check.call.run();
+        List<SlowQuery> statements = explained(sampler, check.origin());
+
+        Set<String> scans = new LinkedHashSet<>();
+        List<String> problems = new ArrayList<>();
+        // Eager associations repeat the same statement once per row; the explain queue only
+        // takes the first of them, so each distinct statement needs one plan
+        Map<String, List<SlowQuery>> bySql = statements.stream()
+                .collect(Collectors.groupingBy(SlowQuery::getSql, LinkedHashMap::new, Collectors.toList()));
+        for (List<SlowQuery> same : bySql.values()) {
+            List<SlowQuery> planned = same.stream().filter(s -> s.getPlan() != null).collect(Collectors.toList());
+            if (planned.isEmpty()) {
+                problems.add("not explained: " + same.get(0).getPlanError());
+            }
+            for (SlowQuery statement : planned) {
+                Matcher scan = SCAN.matcher(statement.getPlan());
+                while (scan.find()) {
+                    scans.add(scan.group(1));
+                }
+                // The total behind a page counts the whole table however it is indexed
+                if (check.exceptCount && statement.getSql().toLowerCase().startsWith("select count(")) {
+                    continue;
+                }
+                Matcher seqScan = SEQ_SCAN.matcher(statement.getPlan());
+                while (check.expect == Expect.INDEX && seqScan.find()) {
+                    long rows = tableRows.computeIfAbsent(seqScan.group(1), table -> estimatedRows(connection, table));
+                    String problem = "sequential scan of " + seqScan.group(1) + " (" + rows + " rows)";
+                    if (rows > maxSeqScanRows && !problems.contains(problem)) {
+                        problems.add(problem);
+                    }
+                }
+            }
+        }
+        if (statements.isEmpty()) {
+            problems.add("no statement was run");
+        }
+
+        boolean passed = check.expect == Expect.FULL_READ || problems.isEmpty();
+        System.out.printf("%-5s %-9s %s%n", passed ? "ok" : "FAIL", check.expect, check.name());
+        if (check.reason != null) {
+            System.out.println("      " + check.reason);
+        }
+        for (String scan : scans) {
+            System.out.println("      " + scan);
+        }
+        for (String problem : problems) {
+            System.out.println("      ! " + problem);
+        }
+        return passed;
+    }
+
+    // Statements the check ran, once the sampler's explain thread has caught up with them
+    private static List<SlowQuery> explained(SlowQuerySampler sampler, String origin) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 300_000;
+        while (true) {
+            List<SlowQuery> statements = sampler.recent().stream()
+                    .filter(statement -> origin.equals(statement.getOrigin()))
+                    .collect(Collectors.toList());
+            boolean done = statements.stream().allMatch(s -> s.getPlan() != null || s.getPlanError() != null);
+            if (done || System.currentTimeMillis() > deadline) {
+                return statements;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static long estimatedRows(Connection connection, String table) {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT GREATEST(reltuples, 0)::bigint FROM pg_class WHERE relname = ?")) {
+            statement.setString(1, table);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot read the size of " + table, e);
+        }
+    }
+
+    private static Check index(Class<?> repository, String method, Runnable call) {
+        return new Check(repository, method, Expect.INDEX, null, call);
+    }
+
+    private static Check fullRead(Class<?> repository, String method, String reason, Runnable call) {
+        return new Check(repository, method, Expect.FULL_READ, reason, call);
+    }
+
+    private static class Check {
+        final Class<?> repository;
+        final String method;
+        final Expect expect;
+        final String reason;
+        final Runnable call;
+        boolean exceptCount;
+
+        Check(Class<?> repository, String method, Expect expect, String reason, Runnable call) {
+            this.repository = repository;
+            this.method = method;
+            this.expect = expect;
+            this.reason = reason;
+            this.call = call;
+        }
+
+        // Paged: the count query for the total is allowed to read the whole table
+        Check exceptCount() {
+            exceptCount = true;
+            return this;
+        }
+
+        String name() {
+            return repository.getSimpleName() + "." + method;
+        }
+
+        // As the sampler reports it: RepositoryMethodTracker names methods without parameters
+        String origin() {
+            return repository.getSimpleName() + "." + method.substring(0, method.indexOf('('));
+        }
+    }
+}
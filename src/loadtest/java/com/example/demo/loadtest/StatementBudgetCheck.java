@@ -0,0 +1,152 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.config.StatementCounter;
+import com.example.demo.controller.InvoiceController;
+import com.example.demo.controller.UserController;
+import com.example.demo.dto.InvoiceRequest;
+import com.example.demo.entity.Invoice;
+import com.example.demo.service.InvoiceService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.example.demo.loadtest.LoadTest.log;
+
+// SQL statement budgets for the code paths whose statement count used to grow with the data:
+// the invoice list and the user list as they are serialized, and an invoice update touching
+// every line. Each check runs inside a StatementCounter scope and asserts on the statements it
+// saw, over a dataset large enough that loading row by row blows the budget. Exits with status 1
+// on any failure.
+// Run with mvn -Psqlbudget verify; options are those of LoadTestOptions.
+public class StatementBudgetCheck {
+
+    // Enough rows that an N+1 shows up as hundreds of statements, small enough to seed quickly
+    private static final String[] DEFAULTS = {
+            "--users=200", "--clients=100", "--products=200", "--invoices=500", "--activity-logs=100"};
+
+    // Lines on the invoice the update check creates and then rewrites
+    private static final int UPDATED_LINES = 20;
+
+    public static void main(String[] args) throws Exception {
+        String[] withDefaults = Arrays.copyOf(DEFAULTS, DEFAULTS.length + args.length);
+        System.arraycopy(args, 0, withDefaults, DEFAULTS.length, args.length);
+        LoadTestOptions options = LoadTestOptions.parse(withDefaults);
+
+        int failures = 0;
+        try (TestDatabase database = TestDatabase.start(options)) {
+            Dataset dataset = database.prepare();
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .run(database.properties())) {
+                System.out.println();
+                for (Check check : checks(context, dataset)) {
+                    if (!run(check)) {
+                        failures++;
+                    }
+                }
+                System.out.println();
+            }
+        }
+        log(failures == 0 ? "All statement budgets held" : failures + " statement budget(s) exceeded");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static List<Check> checks(ConfigurableApplicationContext context, Dataset dataset) {
+        InvoiceController invoiceController = context.getBean(InvoiceController.class);
+        UserController userController = context.getBean(UserController.class);
+        InvoiceService invoiceService = context.getBean(InvoiceService.class);
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        // Serialized in a transaction, as open-in-view keeps the session open for a request
+        TransactionTemplate transaction = context.getBean(TransactionTemplate.class);
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+
+        Invoice invoice = invoiceService.createInvoice(invoiceRequest(dataset, 0, 1));
+        InvoiceRequest update = invoiceRequest(dataset, UPDATED_LINES / 2, 2);
+
+        // Lazy loads come in batches of up to 100 owners (hibernate.default_batch_fetch_size), so
+        // the lists repeat a statement about once per 100 rows; row by row it is once per row
+        List<Check> checks = new ArrayList<>();
+        checks.add(new Check("GET /api/invoices", 20, 6, () -> transaction.executeWithoutResult(status ->
+                serialize(objectMapper, invoiceController.getAllInvoices(null, null, null)))));
+        checks.add(new Check("GET /api/users", 5, 3, () -> transaction.executeWithoutResult(status ->
+                serialize(objectMapper, userController.getAllUsers()))));
+        // New lines are inserted one by one, their ids come from an identity column; changed and
+        // dropped lines go out as one batch each
+        checks.add(new Check("PUT /api/invoices/{id}", 30, UPDATED_LINES / 2, () ->
+                invoiceService.updateInvoice(invoice.getId(), update)));
+        return checks;
+    }
+
+    // UPDATED_LINES lines from the given product offset, so an update keeps half the lines with
+    // a new quantity, drops the other half and adds as many new ones
+    private static InvoiceRequest invoiceRequest(Dataset dataset, int offset, int quantity) {
+        List<InvoiceRequest.InvoiceItemRequest> items = new ArrayList<>();
+        for (int i = 0; i < UPDATED_LINES; i++) {
+            InvoiceRequest.InvoiceItemRequest item = new InvoiceRequest.InvoiceItemRequest();
+            item.setProductId(dataset.firstProductId + offset + i);
+            item.setQuantity(quantity);
+            items.add(item);
+        }
+        InvoiceRequest request = new InvoiceRequest();
+        request.setClientId(dataset.firstClientId);
+        request.setItems(items);
+        return request;
+    }
+
+    private static void serialize(ObjectMapper objectMapper, Object body) {
+        try {
+            objectMapper.writeValueAsString(body);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot serialize the response", e);
+        }
+    }
+
+    private static boolean run(Check check) {
+        String problem = null;
+        int count;
+        try (StatementCounter.Scope sql = StatementCounter.open()) {
+            check.call.run();
+            count = sql.count();
+            try {
+                sql.assertAtMost(check.maxStatements);
+                sql.assertNoRepeats(check.maxRepeats);
+            } catch (AssertionError e) {
+                problem = e.getMessage();
+            }
+        }
+        System.out.printf("%-5s %-24s %d statement(s), budget %d, each at most %d time(s)%n",
+                problem == null ? "ok" : "FAIL", check.name, count, check.maxStatements, check.maxRepeats);
+        if (problem != null) {
+            for (String line : problem.split("\n")) {
+                System.out.println("      ! " + line);
+            }
+        }
+        return problem == null;
+    }
+
+    private static class Check {
+        final String name;
+        final int maxStatements;
+        final int maxRepeats;
+        final Runnable call;
+
+        Check(String name, int maxStatements, int maxRepeats, Runnable call) {
+            this.name = name;
+            this.maxStatements = maxStatements;
+            this.maxRepeats = maxRepeats;
+            this.call = call;
+        }
+    }
+}
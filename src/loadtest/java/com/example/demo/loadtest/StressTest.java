@@ -0,0 +1,500 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.DemoApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.demo.loadtest.LoadTest.log;
+
+// Concurrency stress test for the invoice write path: many threads create, update and delete
+// invoices as fast as they can, all on a few hot products with little stock, some of them
+// striped. Once they are done the database is checked for what must hold however the requests
+// interleaved: unique invoice numbers, no negative stock, stock conserved between products and
+// invoice lines, a ledger that sums to the stock, invoice totals that match their lines and one
+// audit row per successful write. Exits with status 1 if any of them fails or a request failed
+// unexpectedly.
+// Run with mvn -Pstresstest verify; options are those of LoadTestOptions.
+public class StressTest {
+
+    // A small dataset: the contention is on the hot products, not on table size
+    private static final String[] DEFAULTS = {
+            "--users=5", "--clients=200", "--products=500", "--invoices=2000", "--activity-logs=1000"};
+
+    // Out of 100; updates and deletes fall back to a create while there is nothing to change
+    private static final int CREATE_WEIGHT = 50;
+    private static final int UPDATE_WEIGHT = 30;
+
+    // Updates and deletes pick among the most recently created invoices, so they collide
+    private static final int RECENT_INVOICES = 50;
+
+    private static final int STRIPES = 8;
+
+    private static final int MAX_ERRORS_SHOWN = 10;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger errorsShown = new AtomicInteger();
+
+    private final String baseUrl;
+    private final Dataset dataset;
+    private final LoadTestOptions options;
+    private final long[] hotProducts;
+    private final List<Long> invoices = new ArrayList<>();
+    private final Set<String> invoiceNumbers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger duplicateNumbers = new AtomicInteger();
+    private String token;
+
+    private StressTest(String baseUrl, Dataset dataset, LoadTestOptions options) {
+        this.baseUrl = baseUrl;
+        this.dataset = dataset;
+        this.options = options;
+        this.hotProducts = new long[Math.min(options.hotProducts, dataset.products)];
+        for (int i = 0; i < hotProducts.length; i++) {
+            hotProducts[i] = dataset.firstProductId + i;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] withDefaults = Arrays.copyOf(DEFAULTS, DEFAULTS.length + args.length);
+        System.arraycopy(args, 0, withDefaults, DEFAULTS.length, args.length);
+        LoadTestOptions options = LoadTestOptions.parse(withDefaults);
+
+        List<String> failures;
+        try (TestDatabase database = TestDatabase.start(options)) {
+            Dataset dataset = database.prepare();
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+                    .run(database.properties());
+                 Connection connection = database.connect()) {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                StressTest test = new StressTest("http://localhost:" + port, dataset, options);
+                test.setUp(connection);
+                Snapshot before = test.snapshot(connection);
+
+                log(String.format("Running %d invoice writes from %d threads on %d hot products (%d striped)",
+                        options.operations, options.concurrency, test.hotProducts.length,
+                        Math.min(options.stripedProducts, test.hotProducts.length)));
+                Result result = test.run();
+                print(result);
+
+                failures = test.verify(connection, before, result);
+            }
+        }
+        log(failures.isEmpty() ? "All invariants hold" : failures.size() + " invariant(s) violated");
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+
+    // Brings the hot products down to --hot-stock, through the ledger, and stripes the first of them
+    private void setUp(Connection connection) throws Exception {
+        try (PreparedStatement adjust = connection.prepareStatement(
+                "WITH old AS (SELECT id, stock_quantity FROM products WHERE id = ANY(?) FOR UPDATE), " +
+                "updated AS (UPDATE products p SET stock_quantity = ?, updated_at = now() FROM old " +
+                "WHERE p.id = old.id RETURNING p.id, p.stock_quantity - old.stock_quantity AS delta) " +
+                "INSERT INTO stock_movements (product_id, quantity, stock_after, reason, created_at) " +
+                "SELECT id, delta, ?, 'ADJUSTMENT', now() FROM updated")) {
+            adjust.setArray(1, connection.createArrayOf("bigint", Arrays.stream(hotProducts).boxed().toArray()));
+            adjust.setInt(2, options.hotStock);
+            adjust.setInt(3, options.hotStock);
+            adjust.executeUpdate();
+        }
+
+        login();
+        for (int i = 0; i < Math.min(options.stripedProducts, hotProducts.length); i++) {
+            HttpResponse<String> response = http.send(authorized("/api/products/" + hotProducts[i]
+                    + "/stock-stripes?count=" + STRIPES).PUT(HttpRequest.BodyPublishers.noBody()).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Could not stripe product " + hotProducts[i] + ": " + response.body());
+            }
+        }
+    }
+
+    private void login() throws Exception {
+        Map<String, String> credentials = new HashMap<>();
+        credentials.put("username", "admin");
+        credentials.put("password", "admin123");
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(credentials)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Admin login failed: " + response.body());
+        }
+        token = objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    private Result run() throws Exception {
+        AtomicInteger remaining = new AtomicInteger(options.operations);
+        List<Worker> workers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < options.concurrency; i++) {
+            Worker worker = new Worker(new Random(options.seed + i), remaining);
+            Thread thread = new Thread(worker::loop, "stresstest-" + i);
+            thread.start();
+            workers.add(worker);
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        Map<String, Map<Outcome, Long>> outcomes = new TreeMap<>();
+        for (Worker worker : workers) {
+            recorders.add(worker.recorder);
+            worker.outcomes.forEach((operation, counts) -> counts.forEach((outcome, count) ->
+                    outcomes.computeIfAbsent(operation, key -> new TreeMap<>()).merge(outcome, count, Long::sum)));
+        }
+        return new Result(LatencyRecorder.merge(recorders).summarize(seconds), outcomes, seconds);
+    }
+
+    // How a request ended: rejections the application is expected to make under contention are
+    // told apart from failures
+    enum Outcome { OK, OUT_OF_STOCK, NUMBER_TAKEN, NOT_FOUND, FAILED }
+
+    static class Result {
+        final Map<String, LatencyRecorder.Summary> endpoints;
+        final Map<String, Map<Outcome, Long>> outcomes;
+        final double seconds;
+
+        Result(Map<String, LatencyRecorder.Summary> endpoints, Map<String, Map<Outcome, Long>> outcomes, double seconds) {
+            this.endpoints = endpoints;
+            this.outcomes = outcomes;
+            this.seconds = seconds;
+        }
+
+        long count(String operation, Outcome outcome) {
+            return outcomes.getOrDefault(operation, Map.of()).getOrDefault(outcome, 0L);
+        }
+    }
+
+    private class Worker {
+        final Random random;
+        final AtomicInteger remaining;
+        final LatencyRecorder recorder = new LatencyRecorder();
+        final Map<String, Map<Outcome, Long>> outcomes = new HashMap<>();
+
+        Worker(Random random, AtomicInteger remaining) {
+            this.random = random;
+            this.remaining = remaining;
+        }
+
+        void loop() {
+            while (remaining.getAndDecrement() > 0) {
+                int roll = random.nextInt(100);
+                Long invoiceId = roll < CREATE_WEIGHT ? null : recentInvoice();
+                try {
+                    if (invoiceId == null) {
+                        create();
+                    } else if (roll < CREATE_WEIGHT + UPDATE_WEIGHT) {
+                        update(invoiceId);
+                    } else {
+                        delete(invoiceId);
+                    }
+                } catch (Exception e) {
+                    showError("invoice write", e.toString());
+                }
+            }
+        }
+
+        void create() throws Exception {
+            HttpResponse<String> response = send("create", "POST /api/invoices", authorized("/api/invoices")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(invoiceBody()))
+                    .build());
+            if (response != null && response.statusCode() / 100 == 2) {
+                JsonNode invoice = objectMapper.readTree(response.body());
+                if (!invoiceNumbers.add(invoice.get("invoiceNumber").asText())) {
+                    duplicateNumbers.incrementAndGet();
+                }
+                synchronized (invoices) {
+                    invoices.add(invoice.get("id").asLong());
+                }
+            }
+        }
+
+        void update(Long invoiceId) throws Exception {
+            send("update", "PUT /api/invoices/{id}", authorized("/api/invoices/" + invoiceId)
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(invoiceBody()))
+                    .build());
+        }
+
+        void delete(Long invoiceId) {
+            HttpResponse<String> response = send("delete", "DELETE /api/invoices/{id}",
+                    authorized("/api/invoices/" + invoiceId).DELETE().build());
+            if (response != null && response.statusCode() / 100 == 2) {
+                synchronized (invoices) {
+                    invoices.remove(invoiceId);
+                }
+            }
+        }
+
+        Long recentInvoice() {
+            synchronized (invoices) {
+                if (invoices.isEmpty()) {
+                    return null;
+                }
+                int recent = Math.min(invoices.size(), RECENT_INVOICES);
+                return invoices.get(invoices.size() - 1 - random.nextInt(recent));
+            }
+        }
+
+        // A few lines on the hot products, sometimes the same product twice
+        String invoiceBody() throws Exception {
+            List<Map<String, Object>> items = new ArrayList<>();
+            int lines = 1 + random.nextInt(options.maxItemsPerInvoice);
+            for (int i = 0; i < lines; i++) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("productId", hotProducts[random.nextInt(hotProducts.length)]);
+                item.put("quantity", 1 + random.nextInt(5));
+                items.add(item);
+            }
+            Map<String, Object> invoice = new HashMap<>();
+            invoice.put("clientId", dataset.randomClientId(random));
+            invoice.put("items", items);
+            return objectMapper.writeValueAsString(invoice);
+        }
+
+        HttpResponse<String> send(String operation, String endpoint, HttpRequest request) {
+            long start = System.nanoTime();
+            HttpResponse<String> response = null;
+            try {
+                response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                showError(endpoint, e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Outcome outcome = outcome(response);
+            if (outcome == Outcome.FAILED) {
+                showError(endpoint, response != null ? response.statusCode() + " " + response.body() : "no response");
+            }
+            recorder.record(endpoint, System.nanoTime() - start, outcome == Outcome.OK);
+            outcomes.computeIfAbsent(operation, key -> new HashMap<>()).merge(outcome, 1L, Long::sum);
+            return response;
+        }
+    }
+
+    private static Outcome outcome(HttpResponse<String> response) {
+        if (response == null) {
+            return Outcome.FAILED;
+        }
+        if (response.statusCode() / 100 == 2) {
+            return Outcome.OK;
+        }
+        if (response.statusCode() == 404) {
+            return Outcome.NOT_FOUND;
+        }
+        if (response.statusCode() == 400 && response.body().contains("Insufficient stock")) {
+            return Outcome.OUT_OF_STOCK;
+        }
+        if (response.statusCode() == 400 && response.body().contains("is already taken")) {
+            return Outcome.NUMBER_TAKEN;
+        }
+        return Outcome.FAILED;
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private void showError(String endpoint, String message) {
+        if (errorsShown.getAndIncrement() < MAX_ERRORS_SHOWN) {
+            String shown = message.length() > 300 ? message.substring(0, 300) + "..." : message;
+            System.err.println("[loadtest] " + endpoint + " failed: " + shown);
+        }
+    }
+
+    // What the invariants are measured against: the database just before the run
+    static class Snapshot {
+        Map<Long, Long> stock;
+        Map<Long, Long> invoiced;
+        long invoices;
+        long lastInvoiceId;
+        long lastActivityLogId;
+    }
+
+    private Snapshot snapshot(Connection connection) throws SQLException {
+        Snapshot snapshot = new Snapshot();
+        snapshot.stock = liveStock(connection);
+        snapshot.invoiced = invoicedQuantities(connection);
+        snapshot.invoices = queryLong(connection, "SELECT COUNT(*) FROM invoices");
+        snapshot.lastInvoiceId = queryLong(connection, "SELECT COALESCE(MAX(id), 0) FROM invoices");
+        snapshot.lastActivityLogId = queryLong(connection, "SELECT COALESCE(MAX(id), 0) FROM activity_logs");
+        return snapshot;
+    }
+
+    private List<String> verify(Connection connection, Snapshot before, Result result) throws SQLException {
+        List<String> failures = new ArrayList<>();
+        System.out.println();
+
+        long duplicates = queryLong(connection, "SELECT COUNT(*) FROM (SELECT invoice_number FROM invoices " +
+                "GROUP BY invoice_number HAVING COUNT(*) > 1) d") + duplicateNumbers.get();
+        check(failures, "Invoice numbers are unique", duplicates == 0, duplicates + " duplicated numbers");
+
+        long negative = queryLong(connection, "SELECT COUNT(*) FROM products WHERE stock_quantity < 0")
+                + queryLong(connection, "SELECT COUNT(*) FROM product_stock_stripes WHERE quantity < 0");
+        check(failures, "No negative stock", negative == 0, negative + " products or stripes below zero");
+
+        // What left a product's stock is on some invoice line, and what came back is off it
+        Map<Long, Long> stock = liveStock(connection);
+        Map<Long, Long> invoiced = invoicedQuantities(connection);
+        List<String> unbalanced = new ArrayList<>();
+        for (long productId : hotProducts) {
+            long held = before.stock.get(productId) + before.invoiced.getOrDefault(productId, 0L);
+            long now = stock.get(productId) + invoiced.getOrDefault(productId, 0L);
+            if (held != now) {
+                unbalanced.add(productId + " (" + held + " before, " + now + " after)");
+            }
+        }
+        check(failures, "Stock plus invoiced quantities is conserved", unbalanced.isEmpty(),
+                "stock + invoiced differs for " + unbalanced);
+
+        Map<Long, Long> ledger = ledgerTotals(connection);
+        List<String> offLedger = new ArrayList<>();
+        for (long productId : hotProducts) {
+            if (!stock.get(productId).equals(ledger.get(productId))) {
+                offLedger.add(productId + " (stock " + stock.get(productId) + ", ledger " + ledger.get(productId) + ")");
+            }
+        }
+        check(failures, "Stock ledger sums to the stock", offLedger.isEmpty(), "ledger differs for " + offLedger);
+
+        long mismatched = queryLong(connection, "SELECT COUNT(*) FROM invoices i LEFT JOIN (" +
+                "SELECT invoice_id, SUM(subtotal) AS subtotal, SUM(COALESCE(discount, 0)) AS discount, " +
+                "SUM(tax_amount) AS tax FROM invoice_items GROUP BY invoice_id) t ON t.invoice_id = i.id " +
+                "WHERE i.id > " + before.lastInvoiceId + " AND (t.invoice_id IS NULL OR i.subtotal <> t.subtotal " +
+                "OR i.discount <> t.discount OR i.tax_amount <> t.tax " +
+                "OR i.total_amount <> i.subtotal - i.discount + i.tax_amount)");
+        check(failures, "Invoice totals match their lines", mismatched == 0, mismatched + " invoices off");
+
+        long created = result.count("create", Outcome.OK);
+        long deleted = result.count("delete", Outcome.OK);
+        long invoices = queryLong(connection, "SELECT COUNT(*) FROM invoices");
+        check(failures, "Invoices created less deleted", invoices - before.invoices == created - deleted,
+                (invoices - before.invoices) + " more invoices, expected " + (created - deleted));
+
+        Map<String, Long> audited = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT action, COUNT(*) FROM activity_logs " +
+                "WHERE id > ? AND entity_type = 'INVOICE' GROUP BY action")) {
+            statement.setLong(1, before.lastActivityLogId);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    audited.put(rs.getString(1), rs.getLong(2));
+                }
+            }
+        }
+        String[][] actions = {{"create", "CREATE"}, {"update", "UPDATE"}, {"delete", "DELETE"}};
+        for (String[] action : actions) {
+            long succeeded = result.count(action[0], Outcome.OK);
+            long logged = audited.getOrDefault(action[1], 0L);
+            check(failures, "One " + action[1] + " audit row per successful " + action[0], logged == succeeded,
+                    logged + " rows for " + succeeded + " successes");
+        }
+
+        long failed = result.outcomes.values().stream().mapToLong(counts -> counts.getOrDefault(Outcome.FAILED, 0L)).sum();
+        check(failures, "No request failed unexpectedly", failed == 0, failed + " failed requests");
+        System.out.println();
+        return failures;
+    }
+
+    private static void check(List<String> failures, String invariant, boolean holds, String detail) {
+        System.out.printf("%-5s %s%n", holds ? "ok" : "FAIL", invariant);
+        if (!holds) {
+            System.out.println("      ! " + detail);
+            failures.add(invariant);
+        }
+    }
+
+    // Striped products hold their stock in the stripes
+    private Map<Long, Long> liveStock(Connection connection) throws SQLException {
+        return totals(connection, "SELECT p.id, CASE WHEN p.stock_stripes > 0 THEN " +
+                "(SELECT COALESCE(SUM(s.quantity), 0) FROM product_stock_stripes s WHERE s.product_id = p.id) " +
+                "ELSE p.stock_quantity END FROM products p WHERE p.id = ANY(?)");
+    }
+
+    private Map<Long, Long> invoicedQuantities(Connection connection) throws SQLException {
+        return totals(connection, "SELECT product_id, SUM(quantity) FROM invoice_items " +
+                "WHERE product_id = ANY(?) GROUP BY product_id");
+    }
+
+    private Map<Long, Long> ledgerTotals(Connection connection) throws SQLException {
+        return totals(connection, "SELECT product_id, SUM(quantity) FROM stock_movements " +
+                "WHERE product_id = ANY(?) GROUP BY product_id");
+    }
+
+    private Map<Long, Long> totals(Connection connection, String sql) throws SQLException {
+        Map<Long, Long> totals = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setArray(1, connection.createArrayOf("bigint", Arrays.stream(hotProducts).boxed().toArray()));
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(rs.getLong(1), rs.getLong(2));
+                }
+            }
+        }
+        return totals;
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql); ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void print(Result result) {
+        System.out.println();
+        System.out.printf("%-28s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "Endpoint", "Requests", "Not ok", "Req/s", "Mean ms", "p50 ms", "p95 ms", "p99 ms", "Max ms");
+        result.endpoints.forEach((endpoint, s) -> System.out.printf(
+                "%-28s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint, s.requests, s.errors, s.throughput, s.mean, s.p50, s.p95, s.p99, s.max));
+        System.out.println();
+        System.out.printf("%-10s", "Outcome");
+        for (Outcome outcome : Outcome.values()) {
+            System.out.printf(" %13s", outcome);
+        }
+        System.out.println();
+        result.outcomes.forEach((operation, counts) -> {
+            System.out.printf("%-10s", operation);
+            for (Outcome outcome : Outcome.values()) {
+                System.out.printf(" %13d", counts.getOrDefault(outcome, 0L));
+            }
+            System.out.println();
+        });
+        long succeeded = result.outcomes.values().stream().mapToLong(counts -> counts.getOrDefault(Outcome.OK, 0L)).sum();
+        System.out.printf("%nSuccessful writes: %d in %.1fs, %.1f/s%n", succeeded, result.seconds, succeeded / result.seconds);
+    }
+}
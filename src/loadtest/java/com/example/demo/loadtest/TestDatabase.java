@@ -0,0 +1,104 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.DemoApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static com.example.demo.loadtest.LoadTest.log;
+
+// The database the harnesses run against: an embedded PostgreSQL unless a database URL is given,
+// with the application's schema and the synthetic dataset loaded by prepare()
+class TestDatabase implements AutoCloseable {
+
+    private final EmbeddedPostgres postgres;
+    private final LoadTestOptions options;
+    private final String url;
+
+    private TestDatabase(EmbeddedPostgres postgres, LoadTestOptions options, String url) {
+        this.postgres = postgres;
+        this.options = options;
+        this.url = url;
+    }
+
+    static TestDatabase start(LoadTestOptions options) throws IOException {
+        if (options.databaseUrl != null) {
+            return new TestDatabase(null, options, options.databaseUrl);
+        }
+        log("Starting embedded PostgreSQL");
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setServerConfig("max_connections", "200")
+                .start();
+        return new TestDatabase(postgres, options, postgres.getJdbcUrl("postgres", "postgres"));
+    }
+
+    // Application arguments pointing at this database; passed as arguments so they take
+    // precedence over application.properties
+    String[] properties(String... extra) {
+        String[] properties = {
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + options.databaseUsername,
+                "--spring.datasource.password=" + options.databasePassword,
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--management.server.port=0",
+                "--logging.level.root=WARN"};
+        String[] all = Arrays.copyOf(properties, properties.length + extra.length);
+        System.arraycopy(extra, 0, all, properties.length, extra.length);
+        return all;
+    }
+
+    Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, options.databaseUsername, options.databasePassword);
+    }
+
+    // First start creates the schema, roles and admin user; the data goes in while it is down
+    Dataset prepare() throws Exception {
+        if (options.legacySchema) {
+            log("Creating the baseline schema without migration history");
+            try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+                statement.execute(script("db/migration/V1__baseline.sql"));
+            }
+        }
+
+        log("Creating schema");
+        new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(properties())
+                .close();
+
+        try (Connection connection = connect()) {
+            log(String.format("Seeding %d users, %d clients, %d products, %d invoices, %d activity logs",
+                    options.users, options.clients, options.products, options.invoices, options.activityLogs));
+            Dataset dataset = new DataSeeder(connection, options).seed();
+            if (options.partitioned) {
+                log("Partitioning invoices");
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(script("db/partition-invoices.sql"));
+                }
+            }
+            return dataset;
+        }
+    }
+
+    private static String script(String path) throws IOException {
+        return StreamUtils.copyToString(new ClassPathResource(path).getInputStream(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// Hibernate work done by each request: JDBC statements, entity loads and flushes are counted on
+// the request thread and recorded as distributions when the request completes, tagged with the
+// matched URI pattern. Statements issued through JdbcTemplate are not Hibernate's and not counted.
+public class HibernateRequestMetrics extends OncePerRequestFilter {
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    public HibernateRequestMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            CURRENT.remove();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            summary("hibernate.request.statements", uri).record(counts.statements);
+            summary("hibernate.request.entity.loads", uri).record(counts.entityLoads);
+            summary("hibernate.request.flushes", uri).record(counts.flushes);
+        }
+    }
+
+    private DistributionSummary summary(String name, String uri) {
+        return DistributionSummary.builder(name).tag("uri", uri).register(meterRegistry);
+    }
+
+    private static class Counts {
+        long statements;
+        long entityLoads;
+        long flushes;
+    }
+
+    // Created by Hibernate for every session (hibernate.session.events.auto)
+    public static class SessionListener extends BaseSessionEventListener {
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            Counts counts = CURRENT.get();
+            if (counts != null) {
+                counts.statements++;
+            }
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            Counts counts = CURRENT.get();
+            if (counts != null) {
+                counts.statements++;
+            }
+        }
+
+        @Override
+        public void flushEnd(int numberOfEntities, int numberOfCollections) {
+            Counts counts = CURRENT.get();
+            if (counts != null) {
+                counts.flushes++;
+            }
+        }
+    }
+
+    // Adds the entity load listener (hibernate.integrator_provider)
+    static class LoadCounter implements Integrator, PostLoadEventListener {
+
+        @Override
+        public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                              SessionFactoryServiceRegistry serviceRegistry) {
+            serviceRegistry.getService(EventListenerRegistry.class).appendListeners(EventType.POST_LOAD, this);
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+
+        @Override
+        public void onPostLoad(PostLoadEvent event) {
+            Counts counts = CURRENT.get();
+            if (counts != null) {
+                counts.entityLoads++;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateRequestMetricsCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, HibernateRequestMetrics.SessionListener.class.getName());
+            properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> Collections.singletonList(new HibernateRequestMetrics.LoadCounter()));
+        };
+    }
+
+    // Ahead of the security filters, so loading the authenticated user is counted as well
+    @Bean
+    public FilterRegistrationBean<HibernateRequestMetrics> hibernateRequestMetrics(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<HibernateRequestMetrics> registration =
+                new FilterRegistrationBean<>(new HibernateRequestMetrics(meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    // Every statement, Hibernate's and JdbcTemplate's alike, goes through the counting wrapper
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Every repository call is tagged with its repository method, for the slow query sampler
+    @Bean
+    public static BeanPostProcessor repositoryMethodTrackerPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repository) ->
+                                    proxyFactory.addAdvice(new RepositoryMethodTracker(repository.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Outermost, so the budget covers everything the request does, authentication included
+    @Bean
+    public FilterRegistrationBean<SqlStatementBudgetFilter> sqlStatementBudgetFilter(
+            MeterRegistry meterRegistry,
+            @Value("${app.sql.budget.default:30}") int defaultBudget,
+            @Value("${app.sql.budget.endpoints:}") String endpointBudgets,
+            @Value("${app.sql.repeat-threshold:10}") int repeatThreshold) {
+        FilterRegistrationBean<SqlStatementBudgetFilter> registration = new FilterRegistrationBean<>(
+                new SqlStatementBudgetFilter(meterRegistry, defaultBudget, endpointBudgets, repeatThreshold));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+
+    // Inside the budget filter, so both see the same statements
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+            @Value("${app.server-timing.enabled:false}") boolean enabled,
+            @Value("${app.server-timing.log-sample-rate:0}") double logSampleRate) {
+        FilterRegistrationBean<ServerTimingFilter> registration =
+                new FilterRegistrationBean<>(new ServerTimingFilter(logSampleRate));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 6);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    // Replaces Boot's Jackson converter, with the same ObjectMapper, only while Server-Timing is on;
+    // otherwise Boot's own converter streams bodies without buffering them
+    @Bean
+    @ConditionalOnProperty(name = "app.server-timing.enabled", havingValue = "true")
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new TimedJackson2HttpMessageConverter(objectMapper);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.config;
+
+import java.util.Locale;
+
+// Where the time of the current request went, for the Server-Timing header and the sampled
+// timing log: auth (JWT check and user lookup, its query included), db (every other statement,
+// lazy loads during serialization included), ser (writing the JSON body) and app (the rest).
+// The parts add up to total. Without a timing started by ServerTimingFilter every call is a no-op.
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private static final Span NOT_TIMED = new Span(null, false);
+
+    private final long start = System.nanoTime();
+    private final StatementCounter.Scope statements = StatementCounter.open();
+    private long authNanos;
+    private long authDbNanos;
+    private long serializationNanos;
+    private long serializationDbNanos;
+
+    private RequestTiming() {
+    }
+
+    static RequestTiming start() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    public static Span auth() {
+        RequestTiming timing = CURRENT.get();
+        return timing != null ? new Span(timing, true) : NOT_TIMED;
+    }
+
+    public static Span serialization() {
+        RequestTiming timing = CURRENT.get();
+        return timing != null ? new Span(timing, false) : NOT_TIMED;
+    }
+
+    void end() {
+        statements.close();
+        CURRENT.remove();
+    }
+
+    public long totalNanos() {
+        return System.nanoTime() - start;
+    }
+
+    public long authNanos() {
+        return authNanos;
+    }
+
+    public long dbNanos() {
+        return statements.elapsedNanos() - authDbNanos;
+    }
+
+    public int statements() {
+        return statements.count();
+    }
+
+    public long serializationNanos() {
+        return serializationNanos - serializationDbNanos;
+    }
+
+    public long appNanos() {
+        return Math.max(0, totalNanos() - authNanos - dbNanos() - serializationNanos());
+    }
+
+    // e.g. auth;dur=1.2, db;dur=8.4;desc="6 statements", ser;dur=0.7, app;dur=3.1, total;dur=13.4
+    public String header() {
+        long total = totalNanos();
+        long db = dbNanos();
+        long serialization = serializationNanos();
+        return "auth;dur=" + millis(authNanos)
+                + ", db;dur=" + millis(db) + ";desc=\"" + statements() + " statements\""
+                + ", ser;dur=" + millis(serialization)
+                + ", app;dur=" + millis(Math.max(0, total - authNanos - db - serialization))
+                + ", total;dur=" + millis(total);
+    }
+
+    static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+    }
+
+    // Adds the time between opening and closing to its part, less the statements run meanwhile
+    public static final class Span implements AutoCloseable {
+
+        private final RequestTiming timing;
+        private final boolean auth;
+        private final long start;
+        private final long dbStart;
+
+        private Span(RequestTiming timing, boolean auth) {
+            this.timing = timing;
+            this.auth = auth;
+            this.start = timing != null ? System.nanoTime() : 0;
+            this.dbStart = timing != null ? timing.statements.elapsedNanos() : 0;
+        }
+
+        @Override
+        public void close() {
+            if (timing == null) {
+                return;
+            }
+            long elapsed = System.nanoTime() - start;
+            long db = timing.statements.elapsedNanos() - dbStart;
+            if (auth) {
+                // The user lookup is part of authentication, so its query is reported there
+                timing.authNanos += elapsed;
+                timing.authDbNanos += db;
+            } else {
+                timing.serializationNanos += elapsed;
+                timing.serializationDbNanos += db;
+            }
+        }
+    }
+}
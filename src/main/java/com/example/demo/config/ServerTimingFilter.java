@@ -0,0 +1,78 @@
+package com.example.demo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Times every request with RequestTiming and sends the breakdown as a Server-Timing header, set
+// just before the response is committed. A sample of requests is also logged as one key=value line.
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Server-Timing";
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    private final double logSampleRate;
+
+    public ServerTimingFilter(double logSampleRate) {
+        this.logSampleRate = logSampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.start();
+        TimingResponse timed = new TimingResponse(response, timing);
+        try {
+            filterChain.doFilter(request, timed);
+        } finally {
+            timed.writeHeader();
+            if (logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+                log(request, response, timing);
+            }
+            timing.end();
+        }
+    }
+
+    private void log(HttpServletRequest request, HttpServletResponse response, RequestTiming timing) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        logger.info("request method={} uri={} status={} total_ms={} auth_ms={} db_ms={} statements={} ser_ms={} app_ms={}",
+                request.getMethod(), pattern != null ? pattern : "UNKNOWN", response.getStatus(),
+                RequestTiming.millis(timing.totalNanos()), RequestTiming.millis(timing.authNanos()),
+                RequestTiming.millis(timing.dbNanos()), timing.statements(),
+                RequestTiming.millis(timing.serializationNanos()), RequestTiming.millis(timing.appNanos()));
+    }
+
+    private static class TimingResponse extends OnCommittedResponseWrapper {
+
+        private final RequestTiming timing;
+        private boolean written;
+
+        TimingResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            writeHeader();
+        }
+
+        // Responses without a body never commit on their own, so the filter writes it at the end
+        void writeHeader() {
+            if (!written && !isCommitted()) {
+                setHeader(HEADER, timing.header());
+            }
+            written = true;
+        }
+    }
+}
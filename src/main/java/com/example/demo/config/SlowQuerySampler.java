@@ -0,0 +1,295 @@
+package com.example.demo.config;
+
+import com.example.demo.dto.SlowQuery;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.SortedMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Keeps the most recent statements slower than app.sql.slow.threshold, with their bind
+// parameters, the repository method (or other application code) that ran them and the HTTP
+// endpoint. A share of them is explained on a background thread and connection: EXPLAIN
+// (ANALYZE, BUFFERS) for queries, plain EXPLAIN otherwise, always in a read-only transaction
+// that is rolled back, so explaining never changes data.
+@Component
+public class SlowQuerySampler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQuerySampler.class);
+
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.sql.slow.threshold:PT0.5S}")
+    private Duration threshold;
+
+    @Value("${app.sql.slow.explain-rate:0.1}")
+    private double explainRate;
+
+    @Value("${app.sql.slow.explain-timeout:PT30S}")
+    private Duration explainTimeout;
+
+    @Value("${app.sql.slow.capacity:100}")
+    private int capacity;
+
+    private final Deque<SlowQuery> recent = new ArrayDeque<>();
+
+    private DataSource explainDataSource;
+    private ThreadPoolExecutor explainer;
+    private long thresholdNanos;
+
+    @PostConstruct
+    void start() {
+        if (threshold.isZero() || threshold.isNegative() || !(dataSource instanceof StatementCountingDataSource)) {
+            return;
+        }
+        thresholdNanos = threshold.toNanos();
+        // Explained straight on the pool, so the explains are neither counted nor sampled themselves
+        explainDataSource = ((StatementCountingDataSource) dataSource).getTargetDataSource();
+        // One explain at a time; while a backlog is waiting, further samples are not explained
+        explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16), runnable -> {
+            Thread thread = new Thread(runnable, "slow-query-explain");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ((StatementCountingDataSource) dataSource).setSlowQuerySampler(this);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (explainer != null) {
+            explainer.shutdownNow();
+        }
+    }
+
+    // Most recent first
+    public List<SlowQuery> recent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    public void clear() {
+        synchronized (recent) {
+            recent.clear();
+        }
+    }
+
+    void executed(String sql, SortedMap<Integer, Parameter> parameters, boolean batch, long nanos) {
+        if (nanos < thresholdNanos || sql == null) {
+            return;
+        }
+        meterRegistry.counter("sql.slow.statements").increment();
+
+        SlowQuery query = new SlowQuery();
+        query.setExecutedAt(LocalDateTime.now());
+        query.setDurationMs(nanos / 1e6);
+        query.setSql(sql.trim());
+        query.setBatch(batch);
+        // Values bound next to a password column are never shown
+        boolean secret = sql.toLowerCase(Locale.ROOT).contains("password");
+        List<String> values = new ArrayList<>();
+        if (parameters != null) {
+            for (Parameter parameter : parameters.values()) {
+                values.add(secret ? "?" : parameter.display());
+            }
+        }
+        query.setParameters(values);
+        query.setOrigin(origin());
+        query.setEndpoint(endpoint());
+        query.setThread(Thread.currentThread().getName());
+
+        synchronized (recent) {
+            recent.addFirst(query);
+            while (recent.size() > capacity) {
+                recent.removeLast();
+            }
+        }
+
+        if (!batch && ThreadLocalRandom.current().nextDouble() < explainRate) {
+            if (parameters != null && !parameters.values().stream().allMatch(Parameter::replayable)) {
+                query.setPlanError("Parameters cannot be replayed");
+            } else {
+                List<Parameter> replay = parameters != null ? new ArrayList<>(parameters.values()) : List.of();
+                try {
+                    explainer.execute(() -> explain(query, replay));
+                } catch (RejectedExecutionException e) {
+                    query.setPlanError("Not explained, too many explains waiting");
+                }
+            }
+        }
+    }
+
+    // The repository method when there is one, otherwise a lazy load or the first application
+    // frame on the stack, e.g. a service running JdbcTemplate. Filters and security code are
+    // skipped, as lazy loads while writing the response would otherwise all show up there.
+    private static String origin() {
+        String repositoryMethod = RepositoryMethodTracker.current();
+        if (repositoryMethod != null) {
+            return repositoryMethod;
+        }
+        return StackWalker.getInstance().walk(frames -> frames
+                .map(SlowQuerySampler::origin)
+                .filter(origin -> origin != null)
+                .findFirst()
+                .orElse(null));
+    }
+
+    private static String origin(StackWalker.StackFrame frame) {
+        String className = frame.getClassName();
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        if (className.startsWith("org.hibernate.collection.")) {
+            return "Lazy collection load";
+        }
+        if (className.contains("$HibernateProxy$")) {
+            return "Lazy load of " + simpleName.substring(0, simpleName.indexOf('$'));
+        }
+        if (className.startsWith("com.example.demo.") && !className.startsWith("com.example.demo.config.")
+                && !className.startsWith("com.example.demo.security.") && !className.contains("$$")) {
+            return simpleName + "." + frame.getMethodName();
+        }
+        return null;
+    }
+
+    private static String endpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+
+    private void explain(SlowQuery query, List<Parameter> parameters) {
+        String sql = query.getSql();
+        String lower = sql.toLowerCase(Locale.ROOT);
+        boolean isQuery = lower.startsWith("select") || lower.startsWith("with");
+        try {
+            // Analyzing runs the statement; a locking or data-modifying one fails in the read-only
+            // transaction and is explained without running it instead
+            if (isQuery) {
+                try {
+                    query.setPlan(explain("EXPLAIN (ANALYZE, BUFFERS) " + sql, parameters));
+                    return;
+                } catch (SQLException e) {
+                    logger.debug("Could not analyze slow query, explaining it instead: {}", e.getMessage());
+                }
+            }
+            query.setPlan(explain("EXPLAIN " + sql, parameters));
+        } catch (Exception e) {
+            query.setPlanError(e.getMessage());
+        }
+    }
+
+    private String explain(String explainSql, List<Parameter> parameters) throws SQLException {
+        try (Connection connection = explainDataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET TRANSACTION READ ONLY");
+                    statement.execute("SET LOCAL statement_timeout = " + explainTimeout.toMillis());
+                }
+                try (PreparedStatement statement = connection.prepareStatement(explainSql)) {
+                    for (Parameter parameter : parameters) {
+                        parameter.applyTo(statement);
+                    }
+                    StringBuilder plan = new StringBuilder();
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            plan.append(rs.getString(1)).append('\n');
+                        }
+                    }
+                    return plan.toString();
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    // A setXxx(index, value, ...) call on a prepared statement, replayed onto the explain
+    static final class Parameter {
+        private final Method setter;
+        private final Object[] args;
+
+        Parameter(Method setter, Object[] args) {
+            this.setter = setter;
+            this.args = args;
+        }
+
+        // Streams are consumed by the original statement
+        boolean replayable() {
+            Object value = args[1];
+            return !(value instanceof InputStream || value instanceof Reader
+                    || value instanceof java.sql.Blob || value instanceof java.sql.Clob);
+        }
+
+        void applyTo(PreparedStatement statement) throws SQLException {
+            try {
+                setter.invoke(statement, args);
+            } catch (IllegalAccessException e) {
+                throw new SQLException(e);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException() instanceof SQLException
+                        ? (SQLException) e.getTargetException() : new SQLException(e.getTargetException());
+            }
+        }
+
+        String display() {
+            if (setter.getName().equals("setNull") || args[1] == null) {
+                return "NULL";
+            }
+            Object value = args[1];
+            if (value instanceof byte[]) {
+                return "<" + ((byte[]) value).length + " bytes>";
+            }
+            if (!replayable()) {
+                return "<stream>";
+            }
+            String text = value.toString();
+            if (text.length() > MAX_PARAMETER_LENGTH) {
+                text = text.substring(0, MAX_PARAMETER_LENGTH) + "...";
+            }
+            return value instanceof String ? "'" + text + "'" : text;
+        }
+    }
+}
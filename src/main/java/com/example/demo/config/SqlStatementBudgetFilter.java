@@ -0,0 +1,107 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Counts the SQL statements of every request and flags requests over their endpoint's budget
+// and statements repeated often enough to suggest N+1 loading. Flagged requests are counted
+// (sql.budget.exceeded, sql.repeated.statements) and logged at most once a minute per endpoint.
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementBudgetFilter.class);
+
+    private static final long LOG_INTERVAL_MS = 60_000;
+
+    private final MeterRegistry meterRegistry;
+    private final int defaultBudget;
+    private final Map<String, Integer> endpointBudgets;
+    private final int repeatThreshold;
+    private final Map<String, Long> lastLogged = new ConcurrentHashMap<>();
+
+    public SqlStatementBudgetFilter(MeterRegistry meterRegistry, int defaultBudget, String endpointBudgets, int repeatThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.defaultBudget = defaultBudget;
+        this.endpointBudgets = parseBudgets(endpointBudgets);
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    // "METHOD /pattern=budget" pairs separated by commas; a negative budget means unlimited
+    static Map<String, Integer> parseBudgets(String value) {
+        Map<String, Integer> budgets = new HashMap<>();
+        if (value == null || value.isBlank()) {
+            return budgets;
+        }
+        for (String entry : value.split(",")) {
+            int separator = entry.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected METHOD /pattern=budget, got: " + entry);
+            }
+            budgets.put(entry.substring(0, separator).trim(), Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+        return budgets;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (StatementCounter.Scope scope = StatementCounter.open()) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                check(request, scope);
+            }
+        }
+    }
+
+    private void check(HttpServletRequest request, StatementCounter.Scope scope) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+        String endpoint = method + " " + uri;
+
+        DistributionSummary.builder("sql.request.statements")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(scope.count());
+
+        int budget = endpointBudgets.getOrDefault(endpoint, defaultBudget);
+        if (budget >= 0 && scope.count() > budget) {
+            meterRegistry.counter("sql.budget.exceeded", "method", method, "uri", uri).increment();
+            if (shouldLog(endpoint + " budget")) {
+                logger.warn("{} ran {} SQL statements, over its budget of {}. Most repeated:\n{}",
+                        endpoint, scope.count(), budget, scope.describe(2));
+            }
+        }
+
+        Map<String, Integer> repeated = scope.repeated(repeatThreshold);
+        if (!repeated.isEmpty()) {
+            meterRegistry.counter("sql.repeated.statements", "method", method, "uri", uri).increment();
+            if (shouldLog(endpoint + " repeats")) {
+                logger.warn("Possible N+1 in {}: statements run {} times or more:\n{}",
+                        endpoint, repeatThreshold, scope.describe(repeatThreshold));
+            }
+        }
+    }
+
+    private boolean shouldLog(String key) {
+        long now = System.currentTimeMillis();
+        Long previous = lastLogged.get(key);
+        if (previous != null && now - previous < LOG_INTERVAL_MS) {
+            return false;
+        }
+        return previous == null ? lastLogged.putIfAbsent(key, now) == null : lastLogged.replace(key, previous, now);
+    }
+}
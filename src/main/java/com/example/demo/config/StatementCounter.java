@@ -0,0 +1,137 @@
+package com.example.demo.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Counts the JDBC statements run on the current thread while a scope is open, as seen by
+// StatementCountingDataSource. Every HTTP request gets a scope from SqlStatementBudgetFilter;
+// checks open their own around the code they exercise and assert on it, as
+// src/loadtest StatementBudgetCheck does:
+//
+//   try (StatementCounter.Scope sql = StatementCounter.open()) {
+//       invoiceService.createInvoice(request);
+//       sql.assertAtMost(12);
+//       sql.assertNoRepeats(1);
+//   }
+//
+// Scopes nest: a statement counts in the innermost scope and every scope around it. Work handed
+// to other threads (e.g. the report pool) is not counted.
+public final class StatementCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private StatementCounter() {
+    }
+
+    public static Scope open() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    // The innermost open scope on this thread, or null
+    public static Scope current() {
+        return CURRENT.get();
+    }
+
+    static void record(String sql, long nanos) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+        String key = normalize(sql);
+        for (; scope != null; scope = scope.parent) {
+            scope.add(key, nanos);
+        }
+    }
+
+    // Same statement shape, whatever the line breaks and indentation
+    private static String normalize(String sql) {
+        return sql == null ? "<batch>" : sql.trim().replaceAll("\\s+", " ");
+    }
+
+    public static class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final Map<String, Integer> executions = new HashMap<>();
+        private int count;
+        private long nanos;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        private void add(String sql, long elapsed) {
+            executions.merge(sql, 1, Integer::sum);
+            count++;
+            nanos += elapsed;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        // Time spent executing the statements, as measured around each execute call
+        public long elapsedNanos() {
+            return nanos;
+        }
+
+        // Statements run at least threshold times, most frequent first
+        public Map<String, Integer> repeated(int threshold) {
+            List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : executions.entrySet()) {
+                if (entry.getValue() >= threshold) {
+                    entries.add(entry);
+                }
+            }
+            entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> entry : entries) {
+                repeated.put(entry.getKey(), entry.getValue());
+            }
+            return repeated;
+        }
+
+        public void assertAtMost(int max) {
+            if (count > max) {
+                throw new AssertionError("Expected at most " + max + " SQL statements but " + count + " ran:\n" + describe(1));
+            }
+        }
+
+        public void assertExactly(int expected) {
+            if (count != expected) {
+                throw new AssertionError("Expected " + expected + " SQL statements but " + count + " ran:\n" + describe(1));
+            }
+        }
+
+        // Fails when any one statement ran more than maxExecutions times, the usual sign of N+1
+        public void assertNoRepeats(int maxExecutions) {
+            Map<String, Integer> repeated = repeated(maxExecutions + 1);
+            if (!repeated.isEmpty()) {
+                throw new AssertionError("Statements run more than " + maxExecutions + " times:\n" + describe(maxExecutions + 1));
+            }
+        }
+
+        // One line per statement run at least threshold times, most frequent first
+        public String describe(int threshold) {
+            StringBuilder description = new StringBuilder();
+            repeated(threshold).forEach((sql, times) ->
+                    description.append("  ").append(times).append(" x ").append(sql).append('\n'));
+            return description.toString();
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) {
+                if (parent != null) {
+                    CURRENT.set(parent);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Wraps the pool so every statement executed through Hibernate or JdbcTemplate is reported to
+// StatementCounter with its SQL and execution time, and to the SlowQuerySampler if there is one.
+// Only the execute calls (and, for the sampler, the parameter setters) are intercepted; everything
+// else, unwrap included, goes straight to the pooled objects.
+public class StatementCountingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private volatile SlowQuerySampler slowQuerySampler;
+
+    public StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    public void setSlowQuerySampler(SlowQuerySampler slowQuerySampler) {
+        this.slowQuerySampler = slowQuerySampler;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    // Spring infers the destroy method from the wrapper now, so the pool is closed through it
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable) {
+            ((AutoCloseable) getTargetDataSource()).close();
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, new ConnectionHandler(connection, slowQuerySampler));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    // equals and hashCode stay on the proxy, so a proxy is always equal to itself
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("equals") && args != null && args.length == 1) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && (args == null || args.length == 0)) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+        private final SlowQuerySampler sampler;
+
+        ConnectionHandler(Connection connection, SlowQuerySampler sampler) {
+            this.connection = connection;
+            this.sampler = sampler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = StatementCountingDataSource.invoke(proxy, connection, method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler(result, null, sampler));
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, new StatementHandler(result, (String) args[0], sampler));
+                case "prepareCall":
+                    return proxy(CallableStatement.class, new StatementHandler(result, (String) args[0], sampler));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+        private final Object statement;
+        private final String preparedSql;
+        private final SlowQuerySampler sampler;
+        // Bind parameters by index, only kept while a sampler is listening
+        private SortedMap<Integer, SlowQuerySampler.Parameter> parameters;
+
+        StatementHandler(Object statement, String preparedSql, SlowQuerySampler sampler) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+            this.sampler = sampler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if (sampler != null) {
+                    track(name, method, args);
+                }
+                return StatementCountingDataSource.invoke(proxy, statement, method, args);
+            }
+            // Plain statements carry their SQL in the call; a batch of them has none to report
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            long start = System.nanoTime();
+            try {
+                return StatementCountingDataSource.invoke(proxy, statement, method, args);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                StatementCounter.record(sql, nanos);
+                if (sampler != null) {
+                    sampler.executed(sql, parameters, name.equals("executeBatch"), nanos);
+                }
+            }
+        }
+
+        // Parameter setters are set<Type>(index, value, ...)
+        private void track(String name, Method method, Object[] args) {
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                if (parameters == null) {
+                    parameters = new TreeMap<>();
+                }
+                parameters.put((Integer) args[0], new SlowQuerySampler.Parameter(method, args.clone()));
+            } else if (name.equals("clearParameters")) {
+                parameters = null;
+            }
+        }
+    }
+}
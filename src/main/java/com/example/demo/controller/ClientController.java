@@ -1,10 +1,13 @@
 package com.example.demo.controller;
 
+import com.example.demo.entity.ClientSummary;
 import com.example.demo.model.Client;
 import com.example.demo.repository.ClientRepository;
 import com.example.demo.service.ActivityLogService;
+import com.example.demo.service.ClientSummaryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
@@ -19,6 +22,9 @@ public class ClientController {
     @Autowired
     private ClientRepository clientRepository;
 
+    @Autowired
+    private ClientSummaryService clientSummaryService;
+
     @Autowired
     private ActivityLogService activityLogService;
 
@@ -27,6 +33,30 @@ public class ClientController {
         return ResponseEntity.ok(clientRepository.findAll());
     }
 
+    @GetMapping("/summaries")
+    public ResponseEntity<List<ClientSummary>> getClientSummaries() {
+        return ResponseEntity.ok(clientSummaryService.getAllSummaries());
+    }
+
+    @PostMapping("/summaries/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildClientSummaries(HttpServletRequest request) {
+        clientSummaryService.rebuild();
+
+        // Log activity
+        activityLogService.log("REBUILD", "CLIENT", "Rebuilt client balance summaries from invoices", request);
+
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<ClientSummary> getClientSummary(@PathVariable Long id) {
+        if (!clientRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(clientSummaryService.getSummary(id));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Client> getClientById(@PathVariable Long id) {
         return clientRepository.findById(id)
@@ -91,6 +121,7 @@ public class ClientController {
                     String clientName = client.getName();
                     String companyName = client.getCompanyName();
                     clientRepository.delete(client);
+                    clientSummaryService.delete(id);
 
                     // Log activity
                     activityLogService.log("DELETE", "CLIENT", id,
@@ -0,0 +1,65 @@
+package com.example.demo.controller;
+
+import com.example.demo.config.SlowQuerySampler;
+import com.example.demo.dto.SlowQuery;
+import com.example.demo.service.ActivityLogService;
+import com.example.demo.service.FlightRecordingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/diagnostics")
+public class DiagnosticsController {
+
+    @Autowired
+    private FlightRecordingService flightRecordingService;
+
+    @Autowired
+    private SlowQuerySampler slowQuerySampler;
+
+    @Autowired
+    private ActivityLogService activityLogService;
+
+    // Writes the flight recording to a file on the server, for jfr print or JDK Mission Control
+    @PostMapping("/jfr/dump")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> dumpFlightRecording(HttpServletRequest request) {
+        try {
+            Path file = flightRecordingService.dump();
+
+            // Log activity
+            activityLogService.log("DUMP", "JFR", "Dumped flight recording to " + file, request);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("file", file.toString());
+            result.put("size", Files.size(file));
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error dumping flight recording: " + e.getMessage());
+        }
+    }
+
+    // Most recent slow statements with their parameters, origin, endpoint and plan if explained
+    @GetMapping("/slow-queries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<SlowQuery>> getSlowQueries() {
+        return ResponseEntity.ok(slowQuerySampler.recent());
+    }
+
+    @DeleteMapping("/slow-queries")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> clearSlowQueries() {
+        slowQuerySampler.clear();
+        return ResponseEntity.ok().build();
+    }
+}
@@ -1,24 +1,22 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.BulkStatusRequest;
+import com.example.demo.dto.BulkStatusResult;
 import com.example.demo.dto.InvoiceRequest;
 import com.example.demo.entity.Invoice;
-import com.example.demo.entity.InvoiceItem;
-import com.example.demo.entity.Product;
-import com.example.demo.model.Client;
-import com.example.demo.model.CompanySettings;
 import com.example.demo.repository.InvoiceRepository;
-import com.example.demo.repository.ProductRepository;
-import com.example.demo.repository.ClientRepository;
-import com.example.demo.repository.CompanySettingsRepository;
 import com.example.demo.service.ActivityLogService;
+import com.example.demo.service.BulkInvoiceStatusService;
+import com.example.demo.service.InvoiceService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,24 +25,36 @@ import java.util.List;
 @RequestMapping("/api/invoices")
 public class InvoiceController {
 
-    @Autowired
-    private InvoiceRepository invoiceRepository;
+    // Stand-ins for an open end of a date range
+    private static final LocalDate EARLIEST = LocalDate.of(1900, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
 
     @Autowired
-    private ProductRepository productRepository;
+    private InvoiceRepository invoiceRepository;
 
     @Autowired
-    private ClientRepository clientRepository;
+    private ActivityLogService activityLogService;
 
     @Autowired
-    private CompanySettingsRepository companySettingsRepository;
+    private InvoiceService invoiceService;
 
     @Autowired
-    private ActivityLogService activityLogService;
+    private BulkInvoiceStatusService bulkInvoiceStatusService;
 
+    // from/to bound the invoice date, so only the partitions of those years are read
     @GetMapping
-    public List<Invoice> getAllInvoices() {
-        return invoiceRepository.findAll();
+    public List<Invoice> getAllInvoices(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Invoice.InvoiceStatus status) {
+        if (from == null && to == null && status == null) {
+            return invoiceRepository.findAll();
+        }
+        LocalDate start = from != null ? from : EARLIEST;
+        LocalDate end = to != null ? to : LATEST;
+        return status != null
+                ? invoiceRepository.findByStatusAndInvoiceDateBetween(status, start, end)
+                : invoiceRepository.findByInvoiceDateBetween(start, end);
     }
 
     @GetMapping("/{id}")
@@ -54,83 +64,19 @@ public class InvoiceController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @PostMapping("/preview")
+    public ResponseEntity<?> previewInvoice(@RequestBody InvoiceRequest request) {
+        try {
+            return ResponseEntity.ok(invoiceService.preview(request));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error previewing invoice: " + e.getMessage());
+        }
+    }
+
     @PostMapping
     public ResponseEntity<?> createInvoice(@RequestBody InvoiceRequest request, HttpServletRequest httpRequest) {
         try {
-            // Create new invoice
-            Invoice invoice = new Invoice();
-            invoice.setCustomerName(request.getCustomerName());
-
-            // Get company settings for invoice number and tax rate
-            List<CompanySettings> settingsList = companySettingsRepository.findAll();
-            CompanySettings settings = settingsList.isEmpty() ? null : settingsList.get(0);
-
-            // Generate invoice number
-            if (settings != null) {
-                String invoiceNumber = String.format("%s-%04d",
-                    settings.getInvoicePrefix(),
-                    settings.getNextInvoiceNumber());
-                invoice.setInvoiceNumber(invoiceNumber);
-                settings.setNextInvoiceNumber(settings.getNextInvoiceNumber() + 1);
-                companySettingsRepository.save(settings);
-            } else {
-                invoice.setInvoiceNumber("FACT-0001");
-            }
-
-            // Set tax rate from settings
-            if (settings != null) {
-                invoice.setTaxRate(BigDecimal.valueOf(settings.getDefaultTaxRate()));
-            } else {
-                invoice.setTaxRate(BigDecimal.valueOf(20.0));
-            }
-
-            // Create invoice items and calculate subtotal
-            BigDecimal subtotal = BigDecimal.ZERO;
-            List<InvoiceItem> invoiceItems = new ArrayList<>();
-
-            for (InvoiceRequest.InvoiceItemRequest itemRequest : request.getItems()) {
-                Product product = productRepository.findById(itemRequest.getProductId())
-                        .orElseThrow(() -> new RuntimeException("Product not found with ID: " + itemRequest.getProductId()));
-
-                // Check stock
-                if (product.getStockQuantity() < itemRequest.getQuantity()) {
-                    return ResponseEntity.badRequest()
-                            .body("Insufficient stock for product: " + product.getName());
-                }
-
-                // Create invoice item
-                InvoiceItem item = new InvoiceItem();
-                item.setProduct(product);
-                item.setQuantity(itemRequest.getQuantity());
-                item.setUnitPrice(product.getPrice());
-                item.setSubtotal(product.getPrice()
-                    .multiply(BigDecimal.valueOf(itemRequest.getQuantity()))
-                    .setScale(2, RoundingMode.HALF_UP));
-                item.setInvoice(invoice);
-
-                invoiceItems.add(item);
-                subtotal = subtotal.add(item.getSubtotal());
-
-                // Update stock
-                product.setStockQuantity(product.getStockQuantity() - itemRequest.getQuantity());
-                productRepository.save(product);
-            }
-
-            invoice.setItems(invoiceItems);
-            invoice.setSubtotal(subtotal.setScale(2, RoundingMode.HALF_UP));
-            invoice.setDiscount(BigDecimal.ZERO);
-
-            // Calculate tax
-            BigDecimal taxAmount = subtotal
-                .multiply(invoice.getTaxRate())
-                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-            invoice.setTaxAmount(taxAmount);
-
-            // Calculate total
-            BigDecimal totalAmount = subtotal.add(taxAmount).setScale(2, RoundingMode.HALF_UP);
-            invoice.setTotalAmount(totalAmount);
-
-            Invoice savedInvoice = invoiceRepository.save(invoice);
+            Invoice savedInvoice = invoiceService.createInvoice(request);
 
             // Log activity
             activityLogService.log("CREATE", "INVOICE", savedInvoice.getId(),
@@ -148,67 +94,8 @@ public class InvoiceController {
     @PutMapping("/{id}")
     public ResponseEntity<?> updateInvoice(@PathVariable Long id, @RequestBody InvoiceRequest request, HttpServletRequest httpRequest) {
         try {
-            return invoiceRepository.findById(id)
-                    .map(invoice -> {
-                        String oldCustomerName = invoice.getCustomerName();
-
-                        // Update customer name
-                        invoice.setCustomerName(request.getCustomerName());
-
-                        // Clear existing items and restore stock
-                        for (InvoiceItem oldItem : invoice.getItems()) {
-                            Product product = oldItem.getProduct();
-                            product.setStockQuantity(product.getStockQuantity() + oldItem.getQuantity());
-                            productRepository.save(product);
-                        }
-                        invoice.getItems().clear();
-
-                        // Create new invoice items and calculate subtotal
-                        BigDecimal subtotal = BigDecimal.ZERO;
-                        List<InvoiceItem> invoiceItems = new ArrayList<>();
-
-                        for (InvoiceRequest.InvoiceItemRequest itemRequest : request.getItems()) {
-                            Product product = productRepository.findById(itemRequest.getProductId())
-                                    .orElseThrow(() -> new RuntimeException("Product not found with ID: " + itemRequest.getProductId()));
-
-                            // Check stock
-                            if (product.getStockQuantity() < itemRequest.getQuantity()) {
-                                throw new RuntimeException("Insufficient stock for product: " + product.getName());
-                            }
-
-                            // Create invoice item
-                            InvoiceItem item = new InvoiceItem();
-                            item.setProduct(product);
-                            item.setQuantity(itemRequest.getQuantity());
-                            item.setUnitPrice(product.getPrice());
-                            item.setSubtotal(product.getPrice()
-                                .multiply(BigDecimal.valueOf(itemRequest.getQuantity()))
-                                .setScale(2, RoundingMode.HALF_UP));
-                            item.setInvoice(invoice);
-
-                            invoiceItems.add(item);
-                            subtotal = subtotal.add(item.getSubtotal());
-
-                            // Update stock
-                            product.setStockQuantity(product.getStockQuantity() - itemRequest.getQuantity());
-                            productRepository.save(product);
-                        }
-
-                        invoice.setItems(invoiceItems);
-                        invoice.setSubtotal(subtotal.setScale(2, RoundingMode.HALF_UP));
-
-                        // Calculate tax
-                        BigDecimal taxAmount = subtotal
-                            .multiply(invoice.getTaxRate())
-                            .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-                        invoice.setTaxAmount(taxAmount);
-
-                        // Calculate total
-                        BigDecimal totalAmount = subtotal.add(taxAmount).setScale(2, RoundingMode.HALF_UP);
-                        invoice.setTotalAmount(totalAmount);
-
-                        Invoice savedInvoice = invoiceRepository.save(invoice);
-
+            return invoiceService.updateInvoice(id, request)
+                    .map(savedInvoice -> {
                         // Log activity
                         activityLogService.log("UPDATE", "INVOICE", savedInvoice.getId(),
                             String.format("Updated invoice %s, customer: %s, new total: %s",
@@ -225,45 +112,73 @@ public class InvoiceController {
     }
 
     @PutMapping("/{id}/status")
-    public ResponseEntity<Invoice> updateInvoiceStatus(@PathVariable Long id, @RequestParam String status, HttpServletRequest httpRequest) {
-        return invoiceRepository.findById(id)
-                .map(invoice -> {
-                    String oldStatus = invoice.getStatus().name();
-                    invoice.setStatus(Invoice.InvoiceStatus.valueOf(status));
-                    Invoice savedInvoice = invoiceRepository.save(invoice);
+    public ResponseEntity<?> updateInvoiceStatus(@PathVariable Long id, @RequestParam String status, HttpServletRequest httpRequest) {
+        try {
+            return invoiceService.updateStatus(id, Invoice.InvoiceStatus.valueOf(status))
+                    .map(savedInvoice -> {
+                        // Log activity
+                        activityLogService.log("STATUS_CHANGE", "INVOICE", savedInvoice.getId(),
+                            String.format("Changed invoice %s status to %s",
+                                savedInvoice.getInvoiceNumber(), status),
+                            httpRequest);
 
-                    // Log activity
-                    activityLogService.log("STATUS_CHANGE", "INVOICE", savedInvoice.getId(),
-                        String.format("Changed invoice %s status from %s to %s",
-                            savedInvoice.getInvoiceNumber(), oldStatus, status),
-                        httpRequest);
+                        return ResponseEntity.ok(savedInvoice);
+                    })
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error updating invoice status: " + e.getMessage());
+        }
+    }
 
-                    return ResponseEntity.ok(savedInvoice);
-                })
-                .orElse(ResponseEntity.notFound().build());
+    // Moves many invoices to one status; invalid transitions are reported, not applied
+    @PostMapping("/status")
+    public ResponseEntity<?> updateInvoiceStatuses(@Valid @RequestBody BulkStatusRequest request, HttpServletRequest httpRequest) {
+        try {
+            BulkStatusResult result = bulkInvoiceStatusService.updateStatus(request);
+
+            // Log activity, one row per invoice in a single batch
+            List<Long> ids = new ArrayList<>();
+            List<String> details = new ArrayList<>();
+            for (BulkStatusResult.Change change : result.getUpdated()) {
+                ids.add(change.getId());
+                details.add(String.format("Changed invoice %s status from %s to %s",
+                    change.getInvoiceNumber(), change.getFrom(), result.getStatus()));
+            }
+            activityLogService.logAll("STATUS_CHANGE", "INVOICE", ids, details, httpRequest);
+
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error updating invoice statuses: " + e.getMessage());
+        }
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteInvoice(@PathVariable Long id, HttpServletRequest httpRequest) {
-        return invoiceRepository.findById(id)
-                .map(invoice -> {
-                    String invoiceNumber = invoice.getInvoiceNumber();
-                    String customerName = invoice.getCustomerName();
-
-                    invoiceRepository.delete(invoice);
-
-                    // Log activity
-                    activityLogService.log("DELETE", "INVOICE", id,
-                        String.format("Deleted invoice %s for customer %s", invoiceNumber, customerName),
-                        httpRequest);
+        try {
+            return invoiceService.deleteInvoice(id)
+                    .map(invoice -> {
+                        // Log activity
+                        activityLogService.log("DELETE", "INVOICE", id,
+                            String.format("Deleted invoice %s for customer %s", invoice.getInvoiceNumber(), invoice.getCustomerName()),
+                            httpRequest);
 
-                    return ResponseEntity.ok().build();
-                })
-                .orElse(ResponseEntity.notFound().build());
+                        return ResponseEntity.ok().build();
+                    })
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error deleting invoice: " + e.getMessage());
+        }
     }
 
     @GetMapping("/search/{customerName}")
-    public List<Invoice> searchInvoices(@PathVariable String customerName) {
-        return invoiceRepository.findByCustomerNameContainingIgnoreCase(customerName);
+    public List<Invoice> searchInvoices(
+            @PathVariable String customerName,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from == null && to == null) {
+            return invoiceRepository.findByCustomerNameContainingIgnoreCase(customerName);
+        }
+        return invoiceRepository.findByCustomerNameContainingIgnoreCaseAndInvoiceDateBetween(customerName,
+                from != null ? from : EARLIEST, to != null ? to : LATEST);
     }
 }
@@ -0,0 +1,125 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.PaymentRequest;
+import com.example.demo.entity.Payment;
+import com.example.demo.entity.PaymentImport;
+import com.example.demo.entity.UnmatchedStatementLine;
+import com.example.demo.repository.PaymentImportRepository;
+import com.example.demo.repository.PaymentRepository;
+import com.example.demo.repository.UnmatchedStatementLineRepository;
+import com.example.demo.service.ActivityLogService;
+import com.example.demo.service.PaymentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import java.io.InputStream;
+import java.security.Principal;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/payments")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class PaymentController {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentImportRepository paymentImportRepository;
+
+    @Autowired
+    private UnmatchedStatementLineRepository unmatchedStatementLineRepository;
+
+    @Autowired
+    private ActivityLogService activityLogService;
+
+    @GetMapping("/invoice/{invoiceId}")
+    public ResponseEntity<List<Payment>> getInvoicePayments(@PathVariable Long invoiceId) {
+        return ResponseEntity.ok(paymentService.getInvoicePayments(invoiceId));
+    }
+
+    @PostMapping("/invoice/{invoiceId}")
+    public ResponseEntity<?> recordPayment(@PathVariable Long invoiceId, @Valid @RequestBody PaymentRequest request,
+                                           HttpServletRequest httpRequest) {
+        try {
+            Payment payment = paymentService.recordPayment(invoiceId, request);
+
+            // Log activity
+            activityLogService.log("PAYMENT", "INVOICE", invoiceId,
+                String.format("Recorded payment of %s (ref: %s)", payment.getAmount(), payment.getReference()),
+                httpRequest);
+
+            return ResponseEntity.ok(payment);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error recording payment: " + e.getMessage());
+        }
+    }
+
+    // Bank statement upload, CSV or CAMT-like XML (format defaults from the file extension)
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importStatement(@RequestParam("file") MultipartFile file,
+                                             @RequestParam(required = false) String format,
+                                             Principal principal, HttpServletRequest httpRequest) {
+        try (InputStream in = file.getInputStream()) {
+            PaymentImport summary = paymentService.importStatement(in, file.getOriginalFilename(), format, principal.getName());
+            logImport(summary, httpRequest);
+            return ResponseEntity.ok(summary);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error importing statement: " + e.getMessage());
+        }
+    }
+
+    // Statement already on the server, resolved inside app.payments.import-dir
+    @PostMapping("/import/local")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importLocalStatement(@RequestParam String fileName,
+                                                  @RequestParam(required = false) String format,
+                                                  Principal principal, HttpServletRequest httpRequest) {
+        try {
+            PaymentImport summary = paymentService.importLocalFile(fileName, format, principal.getName());
+            logImport(summary, httpRequest);
+            return ResponseEntity.ok(summary);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error importing statement: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/imports")
+    public ResponseEntity<List<PaymentImport>> getImports() {
+        return ResponseEntity.ok(paymentImportRepository.findTop50ByOrderByStartedAtDesc());
+    }
+
+    @GetMapping("/imports/{id}")
+    public ResponseEntity<PaymentImport> getImport(@PathVariable Long id) {
+        return paymentImportRepository.findById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/imports/{id}/payments")
+    public ResponseEntity<List<Payment>> getImportPayments(@PathVariable Long id) {
+        return ResponseEntity.ok(paymentRepository.findByImportIdOrderByIdAsc(id));
+    }
+
+    @GetMapping("/imports/{id}/unmatched")
+    public ResponseEntity<List<UnmatchedStatementLine>> getUnmatchedLines(@PathVariable Long id) {
+        return ResponseEntity.ok(unmatchedStatementLineRepository.findByImportIdOrderByLineNumberAsc(id));
+    }
+
+    private void logImport(PaymentImport summary, HttpServletRequest httpRequest) {
+        activityLogService.log("IMPORT", "PAYMENT", summary.getId(),
+            String.format("Imported statement %s: %d/%d credits matched (%s), %d lines/s",
+                summary.getFileName(), summary.getMatchedLines(), summary.getCreditLines(),
+                summary.getMatchedAmount(), summary.getLinesPerSecond()),
+            httpRequest);
+    }
+}
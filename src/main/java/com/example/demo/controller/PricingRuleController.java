@@ -0,0 +1,101 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.PricingRule;
+import com.example.demo.repository.PricingRuleRepository;
+import com.example.demo.service.ActivityLogService;
+import com.example.demo.service.PricingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/pricing-rules")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class PricingRuleController {
+
+    @Autowired
+    private PricingRuleRepository pricingRuleRepository;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private ActivityLogService activityLogService;
+
+    @GetMapping
+    public ResponseEntity<List<PricingRule>> getAllRules() {
+        return ResponseEntity.ok(pricingService.getAllRules());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<PricingRule> getRuleById(@PathVariable Long id) {
+        return pricingRuleRepository.findById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> createRule(@Valid @RequestBody PricingRule rule, HttpServletRequest request) {
+        rule.setId(null);
+        PricingRule savedRule = pricingService.save(rule);
+
+        // Log activity
+        activityLogService.log("CREATE", "PRICING_RULE", savedRule.getId(),
+            String.format("Created %s rule: %s, rate: %s", savedRule.getKind(), savedRule.getName(), savedRule.getRate()),
+            request);
+
+        return ResponseEntity.ok(savedRule);
+    }
+
+    @PutMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateRule(@PathVariable Long id, @Valid @RequestBody PricingRule ruleDetails, HttpServletRequest request) {
+        return pricingRuleRepository.findById(id)
+                .map(rule -> {
+                    rule.setName(ruleDetails.getName());
+                    rule.setKind(ruleDetails.getKind());
+                    rule.setClientId(ruleDetails.getClientId());
+                    rule.setCategory(ruleDetails.getCategory());
+                    rule.setProductId(ruleDetails.getProductId());
+                    rule.setMinQuantity(ruleDetails.getMinQuantity() != null ? ruleDetails.getMinQuantity() : 1);
+                    rule.setRate(ruleDetails.getRate());
+                    rule.setPriority(ruleDetails.getPriority() != null ? ruleDetails.getPriority() : 0);
+                    rule.setActive(ruleDetails.getActive() != null ? ruleDetails.getActive() : rule.getActive());
+
+                    PricingRule savedRule = pricingService.save(rule);
+
+                    // Log activity
+                    activityLogService.log("UPDATE", "PRICING_RULE", savedRule.getId(),
+                        String.format("Updated %s rule: %s, rate: %s, active: %s",
+                            savedRule.getKind(), savedRule.getName(), savedRule.getRate(), savedRule.getActive()),
+                        request);
+
+                    return ResponseEntity.ok(savedRule);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> deleteRule(@PathVariable Long id, HttpServletRequest request) {
+        return pricingRuleRepository.findById(id)
+                .map(rule -> {
+                    String ruleName = rule.getName();
+                    pricingService.delete(rule);
+
+                    // Log activity
+                    activityLogService.log("DELETE", "PRICING_RULE", id,
+                        String.format("Deleted pricing rule: %s", ruleName),
+                        request);
+
+                    return ResponseEntity.ok().build();
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -1,15 +1,32 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.BulkPriceRequest;
+import com.example.demo.dto.BulkPriceResult;
+import com.example.demo.entity.LowStockAlert;
 import com.example.demo.entity.Product;
+import com.example.demo.entity.ProductPriceChange;
+import com.example.demo.entity.StockMovement;
+import com.example.demo.repository.LowStockAlertRepository;
+import com.example.demo.repository.ProductPriceChangeRepository;
 import com.example.demo.repository.ProductRepository;
+import com.example.demo.repository.StockMovementRepository;
 import com.example.demo.service.ActivityLogService;
+import com.example.demo.service.BulkPricingService;
+import com.example.demo.service.StockLedgerService;
+import com.example.demo.service.StockService;
+import com.example.demo.service.StripedStockService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -22,21 +39,43 @@ public class ProductController {
     @Autowired
     private ActivityLogService activityLogService;
 
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private StripedStockService stripedStockService;
+
+    @Autowired
+    private BulkPricingService bulkPricingService;
+
+    @Autowired
+    private ProductPriceChangeRepository productPriceChangeRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private LowStockAlertRepository lowStockAlertRepository;
+
     @GetMapping
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        return stockService.withLiveStock(productRepository.findAll());
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(@PathVariable Long id) {
         return productRepository.findById(id)
-                .map(ResponseEntity::ok)
+                .map(product -> ResponseEntity.ok(stockService.withLiveStock(product)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
     public Product createProduct(@Valid @RequestBody Product product, HttpServletRequest request) {
         Product savedProduct = productRepository.save(product);
+        stockService.productCreated(savedProduct);
 
         // Log activity
         activityLogService.log("CREATE", "PRODUCT", savedProduct.getId(),
@@ -49,16 +88,8 @@ public class ProductController {
 
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(@PathVariable Long id, @Valid @RequestBody Product productDetails, HttpServletRequest request) {
-        return productRepository.findById(id)
-                .map(product -> {
-                    String oldName = product.getName();
-                    product.setName(productDetails.getName());
-                    product.setDescription(productDetails.getDescription());
-                    product.setPrice(productDetails.getPrice());
-                    product.setStockQuantity(productDetails.getStockQuantity());
-                    product.setCategory(productDetails.getCategory());
-                    Product savedProduct = productRepository.save(product);
-
+        return stockService.updateProduct(id, productDetails)
+                .map(savedProduct -> {
                     // Log activity
                     activityLogService.log("UPDATE", "PRODUCT", savedProduct.getId(),
                         String.format("Updated product: %s, new price: %s, stock: %d",
@@ -72,14 +103,11 @@ public class ProductController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteProduct(@PathVariable Long id, HttpServletRequest request) {
-        return productRepository.findById(id)
+        return stockService.deleteProduct(id)
                 .map(product -> {
-                    String productName = product.getName();
-                    productRepository.delete(product);
-
                     // Log activity
                     activityLogService.log("DELETE", "PRODUCT", id,
-                        String.format("Deleted product: %s", productName),
+                        String.format("Deleted product: %s", product.getName()),
                         request);
 
                     return ResponseEntity.ok().build();
@@ -87,18 +115,92 @@ public class ProductController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Adjusts the price of every matching product in set-based chunks, with one audit entry
+    @PostMapping("/bulk-price")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> bulkAdjustPrices(@Valid @RequestBody BulkPriceRequest priceRequest, HttpServletRequest request) {
+        try {
+            BulkPriceResult result = bulkPricingService.adjust(priceRequest);
+
+            // Log activity
+            activityLogService.log("BULK_UPDATE", "PRODUCT",
+                String.format("Adjusted prices by %s %s: %d matched, %d changed (category: %s, ids: %s, name: %s, price: %s-%s), batch %s",
+                    priceRequest.getValue(), priceRequest.getMode(), result.getMatched(), result.getChanged(),
+                    priceRequest.getCategory(), priceRequest.getProductIds(), priceRequest.getNameContains(),
+                    priceRequest.getMinPrice(), priceRequest.getMaxPrice(), result.getBatchId()),
+                request);
+
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error adjusting prices: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}/price-changes")
+    public List<ProductPriceChange> getPriceChanges(@PathVariable Long id) {
+        return productPriceChangeRepository.findByProductIdOrderByChangedAtDesc(id);
+    }
+
+    // Splits a hot product's stock across N rows so concurrent invoices stop queueing on one; 0 turns it off
+    @PutMapping("/{id}/stock-stripes")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> configureStockStripes(@PathVariable Long id, @RequestParam int count, HttpServletRequest request) {
+        if (!productRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            stripedStockService.configure(id, count);
+            activityLogService.log("UPDATE", "PRODUCT", id,
+                String.format("Set stock stripes to %d", count),
+                request);
+            return ResponseEntity.ok(stockService.withLiveStock(productRepository.findById(id).get()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error configuring stock stripes: " + e.getMessage());
+        }
+    }
+
+    // Ledger of stock changes for a product, oldest first
+    @GetMapping("/{id}/stock-movements")
+    public List<StockMovement> getStockMovements(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return stockMovementRepository.findByProductIdAndCreatedAtBetweenOrderByIdAsc(id, from, to);
+    }
+
+    @GetMapping("/{id}/stock-at")
+    public ResponseEntity<?> getStockAt(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("productId", id);
+        response.put("at", at);
+        response.put("stockQuantity", stockLedgerService.stockAt(id, at));
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/category/{category}")
     public List<Product> getProductsByCategory(@PathVariable String category) {
-        return productRepository.findByCategory(category);
+        return stockService.withLiveStock(productRepository.findByCategory(category));
     }
 
     @GetMapping("/search/{name}")
     public List<Product> searchProducts(@PathVariable String name) {
-        return productRepository.findByNameContainingIgnoreCase(name);
+        return stockService.withLiveStock(productRepository.findByNameContainingIgnoreCase(name));
     }
 
     @GetMapping("/low-stock")
     public List<Product> getLowStockProducts() {
-        return productRepository.findByStockQuantityLessThan(10);
+        return stockService.withLiveStock(productRepository.findWithLowStockAlert());
+    }
+
+    // Alerts raised after the given time, so clients can poll cheaply for new ones
+    @GetMapping("/low-stock/alerts")
+    public List<LowStockAlert> getLowStockAlerts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        if (since == null) {
+            return lowStockAlertRepository.findAllByOrderByRaisedAtDesc();
+        }
+        return lowStockAlertRepository.findByRaisedAtAfterOrderByRaisedAtDesc(since);
     }
 }
@@ -0,0 +1,80 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.AgingReport;
+import com.example.demo.dto.RevenueReportRow;
+import com.example.demo.dto.TopProductRow;
+import com.example.demo.entity.Invoice.InvoiceStatus;
+import com.example.demo.service.ActivityLogService;
+import com.example.demo.service.AgingReportService;
+import com.example.demo.service.RevenueReportService;
+import com.example.demo.service.RevenueRollupService;
+import com.example.demo.service.TopProductsTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.LocalDate;
+import java.util.List;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+
+    @Autowired
+    private RevenueReportService revenueReportService;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private AgingReportService agingReportService;
+
+    @Autowired
+    private TopProductsTracker topProductsTracker;
+
+    @Autowired
+    private ActivityLogService activityLogService;
+
+    @GetMapping("/revenue")
+    public ResponseEntity<?> getRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "MONTH") RevenueReportService.Granularity granularity,
+            @RequestParam(defaultValue = "NONE") RevenueReportService.GroupBy groupBy,
+            @RequestParam(required = false) List<InvoiceStatus> status) {
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().body("'from' must not be after 'to'");
+        }
+        List<RevenueReportRow> rows = revenueReportService.revenue(from, to, granularity, groupBy, status);
+        return ResponseEntity.ok(rows);
+    }
+
+    @GetMapping("/aging")
+    public ResponseEntity<AgingReport> getAging(@RequestParam(required = false) Long clientId) {
+        return ResponseEntity.ok(agingReportService.getAgingReport(clientId));
+    }
+
+    @GetMapping("/top-products")
+    public ResponseEntity<List<TopProductRow>> getTopProducts(
+            @RequestParam(defaultValue = "TODAY") TopProductsTracker.Window window,
+            @RequestParam(defaultValue = "UNITS") TopProductsTracker.Metric metric,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(topProductsTracker.top(window, metric, Math.max(limit, 0)));
+    }
+
+    @PostMapping("/revenue/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildRevenue(HttpServletRequest request) {
+        revenueRollupService.rebuild();
+        topProductsTracker.rebuild();
+
+        // Log activity
+        activityLogService.log("REBUILD", "REPORT", "Rebuilt revenue rollups from invoices", request);
+
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+public class AgingReportRow {
+    private Long clientId;
+    private String clientName;
+    private BigDecimal current = BigDecimal.ZERO;
+    private BigDecimal days1To30 = BigDecimal.ZERO;
+    private BigDecimal days31To60 = BigDecimal.ZERO;
+    private BigDecimal days61To90 = BigDecimal.ZERO;
+    private BigDecimal over90 = BigDecimal.ZERO;
+    private BigDecimal total = BigDecimal.ZERO;
+    private long invoiceCount;
+
+    public void add(AgingReportRow row) {
+        current = current.add(row.current);
+        days1To30 = days1To30.add(row.days1To30);
+        days31To60 = days31To60.add(row.days31To60);
+        days61To90 = days61To90.add(row.days61To90);
+        over90 = over90.add(row.over90);
+        total = total.add(row.total);
+        invoiceCount += row.invoiceCount;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+public class BulkPriceRequest {
+
+    // PERCENT adds value% to each price, ABSOLUTE adds value; negative values lower prices
+    @NotNull
+    private Mode mode;
+
+    @NotNull
+    private BigDecimal value;
+
+    // Selection: every given criterion must match, and at least one is required
+    private String category;
+    private List<Long> productIds;
+    private String nameContains;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+
+    public enum Mode {
+        PERCENT, ABSOLUTE
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BulkPriceResult {
+    private String batchId;
+    private int matched;
+    private int changed;
+    private long durationMs;
+}
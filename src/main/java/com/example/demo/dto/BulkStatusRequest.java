@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.Invoice;
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@Data
+public class BulkStatusRequest {
+    // Invoices may be given by id, by number, or both
+    private List<Long> ids;
+    private List<String> invoiceNumbers;
+
+    @NotNull
+    private Invoice.InvoiceStatus status;
+}
@@ -0,0 +1,28 @@
+package com.example.demo.dto;
+
+import com.example.demo.entity.Invoice;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkStatusResult {
+    private Invoice.InvoiceStatus status;
+    private List<Change> updated = new ArrayList<>();
+    private List<String> unchanged = new ArrayList<>();
+    private List<String> rejected = new ArrayList<>();
+    private List<String> notFound = new ArrayList<>();
+    private long durationMs;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Change {
+        private Long id;
+        private String invoiceNumber;
+        private Invoice.InvoiceStatus from;
+    }
+}
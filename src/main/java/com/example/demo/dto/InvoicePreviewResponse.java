@@ -0,0 +1,33 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class InvoicePreviewResponse {
+    private String customerName;
+    private List<LinePreview> items = new ArrayList<>();
+    private BigDecimal subtotal;
+    private BigDecimal taxRate;
+    private BigDecimal taxAmount;
+    private BigDecimal discount;
+    private BigDecimal totalAmount;
+    private boolean allInStock;
+
+    @Data
+    public static class LinePreview {
+        private Long productId;
+        private String productName;
+        private Integer quantity;
+        private BigDecimal unitPrice;
+        private BigDecimal subtotal;
+        private BigDecimal discount;
+        private BigDecimal taxRate;
+        private BigDecimal taxAmount;
+        private Integer availableStock;
+        private boolean inStock;
+    }
+}
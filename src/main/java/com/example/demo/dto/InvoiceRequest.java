@@ -5,6 +5,7 @@ import java.util.List;
 
 @Data
 public class InvoiceRequest {
+    private Long clientId;
     private String customerName;
     private List<InvoiceItemRequest> items;
 
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+public class PaymentRequest {
+    @NotNull
+    @DecimalMin("0.01")
+    private BigDecimal amount;
+
+    // Defaults to today
+    private LocalDate paymentDate;
+
+    private String reference;
+}
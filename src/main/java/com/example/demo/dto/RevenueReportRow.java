@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueReportRow {
+    private LocalDate period;
+    private String key;
+    private String label;
+    private BigDecimal revenue;
+    private BigDecimal tax;
+    private Long units;
+}
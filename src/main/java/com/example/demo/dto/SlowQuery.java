@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class SlowQuery {
+    private LocalDateTime executedAt;
+    private double durationMs;
+    private String sql;
+    private List<String> parameters;
+    private boolean batch;
+    private String origin;
+    private String endpoint;
+    private String thread;
+    // Filled in later by the explain thread, for the sampled share only
+    private volatile String plan;
+    private volatile String planError;
+}
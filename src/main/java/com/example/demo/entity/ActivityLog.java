@@ -8,7 +8,10 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "activity_logs")
+@Table(name = "activity_logs", indexes = {
+    @Index(name = "idx_activity_logs_created_at", columnList = "created_at"),
+    @Index(name = "idx_activity_logs_username_created_at", columnList = "username, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
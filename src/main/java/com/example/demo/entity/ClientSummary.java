@@ -0,0 +1,36 @@
+package com.example.demo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "client_summaries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientSummary {
+
+    @Id
+    @Column(name = "client_id")
+    private Long clientId;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal outstandingBalance = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal lifetimeRevenue = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Long invoiceCount = 0L;
+
+    private LocalDate lastInvoiceDate;
+
+    public ClientSummary(Long clientId) {
+        this.clientId = clientId;
+    }
+}
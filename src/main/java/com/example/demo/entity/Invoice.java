@@ -17,7 +17,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "invoices")
+@Table(name = "invoices", indexes = {
+    @Index(name = "idx_invoices_status_due_date", columnList = "status, dueDate"),
+    @Index(name = "idx_invoices_open_aging", columnList = "status, client_id, dueDate, totalAmount, amountPaid"),
+    @Index(name = "idx_invoices_client_date", columnList = "client_id, invoiceDate"),
+    @Index(name = "idx_invoices_number", columnList = "invoiceNumber"),
+    @Index(name = "idx_invoices_date", columnList = "invoiceDate"),
+    @Index(name = "idx_invoices_created_at", columnList = "created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,8 +35,9 @@ public class Invoice {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Unique through InvoiceNumber, as invoices may be partitioned by invoice date
     @NotBlank
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String invoiceNumber;
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -64,6 +72,10 @@ public class Invoice {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal totalAmount;
 
+    // Sum of the payments received; the invoice becomes PAID once it reaches totalAmount
+    @Column(nullable = false, precision = 10, scale = 2, columnDefinition = "numeric(10,2) default 0")
+    private BigDecimal amountPaid;
+
     @Column(columnDefinition = "TEXT")
     private String notes;
 
@@ -114,6 +126,9 @@ public class Invoice {
         if (totalAmount == null) {
             totalAmount = BigDecimal.ZERO;
         }
+        if (amountPaid == null) {
+            amountPaid = BigDecimal.ZERO;
+        }
     }
 
     public void addItem(InvoiceItem item) {
@@ -1,6 +1,7 @@
 package com.example.demo.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,9 +10,12 @@ import lombok.NoArgsConstructor;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 @Entity
-@Table(name = "invoice_items")
+@Table(name = "invoice_items", indexes = {
+    @Index(name = "idx_invoice_items_invoice", columnList = "invoice_id, invoice_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -43,11 +47,37 @@ public class InvoiceItem {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal subtotal;
 
+    // Amount taken off the subtotal by the winning discount rule
+    @Column(nullable = false, precision = 10, scale = 2, columnDefinition = "numeric(10,2) default 0")
+    private BigDecimal discount;
+
+    // Null on lines written before per-line tax; those fall back to the invoice tax rate
+    @Column(precision = 5, scale = 2)
+    private BigDecimal taxRate;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal taxAmount;
+
+    // Copy of the invoice's date, the key invoice_items is partitioned by alongside invoices
+    @Column(name = "invoice_date", updatable = false)
+    @JsonIgnore
+    private LocalDate invoiceDate;
+
     @PrePersist
+    protected void onCreate() {
+        if (invoice != null) {
+            invoiceDate = invoice.getInvoiceDate();
+        }
+        calculateSubtotal();
+    }
+
     @PreUpdate
     protected void calculateSubtotal() {
         if (quantity != null && unitPrice != null) {
             subtotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
         }
+        if (discount == null) {
+            discount = BigDecimal.ZERO;
+        }
     }
 }
@@ -0,0 +1,30 @@
+package com.example.demo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+// Claims an invoice number across all invoice partitions: a unique index on the partitioned
+// invoices table would have to include invoice_date, so the primary key here enforces it instead
+@Entity
+@Table(name = "invoice_numbers", indexes = {
+    @Index(name = "idx_invoice_numbers_invoice", columnList = "invoice_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceNumber {
+
+    @Id
+    @Column(name = "invoice_number")
+    private String invoiceNumber;
+
+    @Column(name = "invoice_id", nullable = false)
+    private Long invoiceId;
+
+    @Column(name = "invoice_date", nullable = false)
+    private LocalDate invoiceDate;
+}
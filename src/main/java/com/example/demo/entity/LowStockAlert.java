@@ -0,0 +1,30 @@
+package com.example.demo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "low_stock_alerts")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockAlert {
+
+    // One open alert per product: the table is the set of products currently below threshold
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer stockQuantity;
+
+    @Column(nullable = false)
+    private Integer reorderThreshold;
+
+    @Column(name = "raised_at", nullable = false)
+    private LocalDateTime raisedAt;
+}
@@ -0,0 +1,64 @@
+package com.example.demo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_invoice", columnList = "invoice_id"),
+        @Index(name = "idx_payments_import", columnList = "import_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Payment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // An invoice can take several partial payments; their sum is Invoice.amountPaid
+    @Column(name = "invoice_id", nullable = false)
+    private Long invoiceId;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private LocalDate paymentDate;
+
+    @Column(length = 500)
+    private String reference;
+
+    @Column
+    private String counterparty;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private MatchType matchType;
+
+    // Statement import that produced the payment, null for manual payments
+    @Column(name = "import_id")
+    private Long importId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (paymentDate == null) {
+            paymentDate = LocalDate.now();
+        }
+    }
+
+    public enum MatchType {
+        MANUAL, INVOICE_NUMBER, FUZZY_NUMBER, CLIENT_AMOUNT, AMOUNT
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.entity;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "payment_imports")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentImport {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String fileName;
+
+    @Column(nullable = false, length = 10)
+    private String format;
+
+    @Column(nullable = false)
+    private String importedBy;
+
+    // Every statement line read, credits among them, and what became of the credits
+    private int totalLines;
+    private int creditLines;
+    private int matchedLines;
+    private int unmatchedLines;
+
+    // Matched lines per matching strategy
+    private int byInvoiceNumber;
+    private int byFuzzyNumber;
+    private int byClientAmount;
+    private int byAmount;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal matchedAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal unmatchedAmount = BigDecimal.ZERO;
+
+    private long durationMs;
+
+    // Why the import stopped early, null when the whole file was read
+    @Column(length = 500)
+    private String error;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @JsonProperty
+    public double getMatchRate() {
+        return creditLines == 0 ? 0 : (double) matchedLines / creditLines;
+    }
+
+    @JsonProperty
+    public long getLinesPerSecond() {
+        return totalLines * 1000L / Math.max(durationMs, 1);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "pricing_rules")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PricingRule {
+
+    // A rule applies to a line when every scope field it sets matches and the line quantity
+    // reaches minQuantity. Product rules beat category rules beat catch-all rules; within that,
+    // client-specific beats generic, then higher priority, then the larger quantity break.
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    @Column(nullable = false)
+    private String name;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Kind kind;
+
+    @Column(name = "client_id")
+    private Long clientId;
+
+    @Column(length = 100)
+    private String category;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Min(1)
+    @Column(nullable = false)
+    private Integer minQuantity;
+
+    // Discount percentage for DISCOUNT rules, tax rate for TAX rules
+    @NotNull
+    @DecimalMin("0.00")
+    @DecimalMax("100.00")
+    @Column(nullable = false, precision = 5, scale = 2)
+    private BigDecimal rate;
+
+    @Column(nullable = false)
+    private Integer priority;
+
+    @Column(nullable = false)
+    private Boolean active;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum Kind {
+        DISCOUNT, TAX
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (minQuantity == null) {
+            minQuantity = 1;
+        }
+        if (priority == null) {
+            priority = 0;
+        }
+        if (active == null) {
+            active = true;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
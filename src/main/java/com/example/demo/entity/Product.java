@@ -12,13 +12,18 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_category", columnList = "category"),
+    @Index(name = "idx_products_stock_quantity", columnList = "stockQuantity")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Product {
 
+    public static final int DEFAULT_REORDER_THRESHOLD = 10;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -41,6 +46,14 @@ public class Product {
     @Column(length = 100)
     private String category;
 
+    // 0 keeps stock in stock_quantity; N > 0 splits it across N product_stock_stripes rows
+    @Column(name = "stock_stripes", nullable = false, columnDefinition = "integer default 0")
+    private Integer stockStripes;
+
+    // Stock level below which the product is reported as low
+    @Column(name = "reorder_threshold", nullable = false, columnDefinition = "integer default 10")
+    private Integer reorderThreshold;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -49,6 +62,10 @@ public class Product {
 
     @PrePersist
     protected void onCreate() {
+        if (reorderThreshold == null) {
+            reorderThreshold = DEFAULT_REORDER_THRESHOLD;
+        }
+        stockStripes = 0;
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
     }
@@ -0,0 +1,40 @@
+package com.example.demo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "product_price_changes", indexes = {
+        @Index(name = "idx_product_price_changes_product", columnList = "product_id, changed_at"),
+        @Index(name = "idx_product_price_changes_batch", columnList = "batch_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPriceChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Groups the rows written by one bulk adjustment; the activity log entry names it
+    @Column(name = "batch_id", nullable = false, length = 36)
+    private String batchId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal oldPrice;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal newPrice;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+}
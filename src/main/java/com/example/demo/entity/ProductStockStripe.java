@@ -0,0 +1,37 @@
+package com.example.demo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Entity
+@Table(name = "product_stock_stripes")
+@IdClass(ProductStockStripe.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStockStripe {
+
+    // Available stock of a striped product is the sum of its stripes
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    private Integer stripe;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long productId;
+        private Integer stripe;
+    }
+}
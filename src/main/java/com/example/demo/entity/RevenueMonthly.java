@@ -0,0 +1,50 @@
+package com.example.demo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "revenue_monthly")
+@IdClass(RevenueMonthly.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueMonthly {
+
+    @Id
+    @Column(name = "bucket_month")
+    private LocalDate bucketMonth;
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Invoice.InvoiceStatus status;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal tax;
+
+    @Column(nullable = false)
+    private Long units;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate bucketMonth;
+        private Long productId;
+        private Invoice.InvoiceStatus status;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movements_product_time", columnList = "product_id, created_at"),
+        @Index(name = "idx_stock_movements_invoice", columnList = "invoice_id"),
+        @Index(name = "idx_stock_movements_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+
+    // Append-only: rows are written in batches by StockService and never updated
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // No foreign key so the history outlives deleted products
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // Signed change: negative takes stock out, positive puts it back
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "stock_after", nullable = false)
+    private Integer stockAfter;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Reason reason;
+
+    @Column(name = "invoice_id")
+    private Long invoiceId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum Reason {
+        OPENING, INVOICE, ADJUSTMENT, DELETION
+    }
+}
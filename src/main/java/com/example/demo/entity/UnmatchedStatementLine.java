@@ -0,0 +1,44 @@
+package com.example.demo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "unmatched_statement_lines", indexes = {
+        @Index(name = "idx_unmatched_statement_lines_import", columnList = "import_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnmatchedStatementLine {
+
+    // Credit lines an import could not apply, left for manual reconciliation
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "import_id", nullable = false)
+    private Long importId;
+
+    private int lineNumber;
+
+    private LocalDate bookingDate;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(length = 500)
+    private String reference;
+
+    @Column
+    private String counterparty;
+
+    @Column(length = 100)
+    private String reason;
+}
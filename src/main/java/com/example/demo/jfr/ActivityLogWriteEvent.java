@@ -0,0 +1,24 @@
+package com.example.demo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.demo.ActivityLogWrite")
+@Label("Activity Log Write")
+@Category({"Facturation", "Audit"})
+@Description("Activity log rows inserted, one at a time or as a JDBC batch")
+@StackTrace(false)
+public class ActivityLogWriteEvent extends jdk.jfr.Event {
+
+    @Label("Mode")
+    public String mode;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Action")
+    public String action;
+}
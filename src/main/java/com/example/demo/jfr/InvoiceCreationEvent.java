@@ -0,0 +1,57 @@
+package com.example.demo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// One invoice creation, with the same stages as the invoices.create.stage timer
+@Name("com.example.demo.InvoiceCreation")
+@Label("Invoice Creation")
+@Category({"Facturation", "Invoices"})
+@Description("Invoice created through InvoiceService.createInvoice, failed attempts included")
+@StackTrace(false)
+public class InvoiceCreationEvent extends jdk.jfr.Event {
+
+    @Label("Invoice Number")
+    public String invoiceNumber;
+
+    @Label("Lines")
+    public int lineCount;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+
+    @Label("Numbering")
+    @Timespan(Timespan.NANOSECONDS)
+    public long numbering;
+
+    @Label("Pricing")
+    @Timespan(Timespan.NANOSECONDS)
+    public long pricing;
+
+    @Label("Persist")
+    @Timespan(Timespan.NANOSECONDS)
+    public long persist;
+
+    @Label("Stock")
+    @Timespan(Timespan.NANOSECONDS)
+    public long stock;
+
+    @Label("Rollups")
+    @Timespan(Timespan.NANOSECONDS)
+    public long rollups;
+
+    public void stage(String name, long nanos) {
+        switch (name) {
+            case "numbering": numbering = nanos; break;
+            case "pricing": pricing = nanos; break;
+            case "persist": persist = nanos; break;
+            case "stock": stock = nanos; break;
+            case "rollups": rollups = nanos; break;
+            default: throw new IllegalArgumentException("Unknown stage: " + name);
+        }
+    }
+}
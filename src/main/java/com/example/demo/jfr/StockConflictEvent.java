@@ -0,0 +1,29 @@
+package com.example.demo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Rare, so the stack trace is kept to show which caller ran out of stock
+@Name("com.example.demo.StockConflict")
+@Label("Stock Reservation Conflict")
+@Category({"Facturation", "Stock"})
+@Description("Stock change rejected because a product did not have enough stock left")
+public class StockConflictEvent extends jdk.jfr.Event {
+
+    @Label("Reason")
+    public String reason;
+
+    @Label("Invoice Id")
+    public long invoiceId;
+
+    @Label("Products Requested")
+    public int requested;
+
+    @Label("Products Short")
+    public int rejected;
+
+    @Label("Product Names")
+    public String products;
+}
@@ -0,0 +1,21 @@
+package com.example.demo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.demo.UserPrincipalLoad")
+@Label("User Principal Load")
+@Category({"Facturation", "Security"})
+@Description("User and roles loaded to authenticate a request or a login")
+@StackTrace(false)
+public class UserPrincipalLoadEvent extends jdk.jfr.Event {
+
+    @Label("Username")
+    public String username;
+
+    @Label("Found")
+    public boolean found;
+}
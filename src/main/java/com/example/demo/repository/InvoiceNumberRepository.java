@@ -0,0 +1,11 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.InvoiceNumber;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InvoiceNumberRepository extends JpaRepository<InvoiceNumber, String> {
+
+    void deleteByInvoiceId(Long invoiceId);
+}
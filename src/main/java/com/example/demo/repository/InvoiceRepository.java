@@ -3,8 +3,13 @@ package com.example.demo.repository;
 import com.example.demo.entity.Invoice;
 import com.example.demo.entity.Invoice.InvoiceStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,7 +18,19 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
 
     Optional<Invoice> findByInvoiceNumber(String invoiceNumber);
 
+    // Row lock until commit, so concurrent edits and deletes of one invoice run one after another
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Invoice i WHERE i.id = :id")
+    Optional<Invoice> findByIdForUpdate(@Param("id") Long id);
+
     List<Invoice> findByStatus(InvoiceStatus status);
 
     List<Invoice> findByCustomerNameContainingIgnoreCase(String customerName);
+
+    // Bounded by invoice date so Postgres only scans the matching yearly partitions
+    List<Invoice> findByInvoiceDateBetween(LocalDate from, LocalDate to);
+
+    List<Invoice> findByStatusAndInvoiceDateBetween(InvoiceStatus status, LocalDate from, LocalDate to);
+
+    List<Invoice> findByCustomerNameContainingIgnoreCaseAndInvoiceDateBetween(String customerName, LocalDate from, LocalDate to);
 }
@@ -0,0 +1,16 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.LowStockAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface LowStockAlertRepository extends JpaRepository<LowStockAlert, Long> {
+
+    List<LowStockAlert> findAllByOrderByRaisedAtDesc();
+
+    List<LowStockAlert> findByRaisedAtAfterOrderByRaisedAtDesc(LocalDateTime since);
+}
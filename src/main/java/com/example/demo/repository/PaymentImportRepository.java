@@ -0,0 +1,13 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.PaymentImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentImportRepository extends JpaRepository<PaymentImport, Long> {
+
+    List<PaymentImport> findTop50ByOrderByStartedAtDesc();
+}
@@ -0,0 +1,17 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Payment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentRepository extends JpaRepository<Payment, Long> {
+
+    List<Payment> findByInvoiceIdOrderByPaymentDateAscIdAsc(Long invoiceId);
+
+    List<Payment> findByImportIdOrderByIdAsc(Long importId);
+
+    boolean existsByInvoiceId(Long invoiceId);
+}
@@ -0,0 +1,15 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.PricingRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PricingRuleRepository extends JpaRepository<PricingRule, Long> {
+
+    List<PricingRule> findByActiveTrue();
+
+    List<PricingRule> findAllByOrderByKindAscPriorityDescIdAsc();
+}
@@ -0,0 +1,15 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ProductPriceChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductPriceChangeRepository extends JpaRepository<ProductPriceChange, Long> {
+
+    List<ProductPriceChange> findByProductIdOrderByChangedAtDesc(Long productId);
+
+    List<ProductPriceChange> findByBatchIdOrderByProductIdAsc(String batchId);
+}
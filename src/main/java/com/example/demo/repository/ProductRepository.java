@@ -2,6 +2,7 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +15,9 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByNameContainingIgnoreCase(String name);
 
     List<Product> findByStockQuantityLessThan(Integer quantity);
+
+    // Only touches products with an open alert, never the whole catalog
+    @Query("SELECT p FROM Product p, LowStockAlert a WHERE a.productId = p.id " +
+           "ORDER BY p.stockQuantity - p.reorderThreshold, p.name")
+    List<Product> findWithLowStockAlert();
 }
@@ -0,0 +1,16 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.StockMovement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    List<StockMovement> findByProductIdAndCreatedAtBetweenOrderByIdAsc(Long productId, LocalDateTime from, LocalDateTime to);
+
+    List<StockMovement> findByInvoiceIdOrderByIdAsc(Long invoiceId);
+}
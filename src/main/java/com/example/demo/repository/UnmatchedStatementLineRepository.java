@@ -0,0 +1,13 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.UnmatchedStatementLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UnmatchedStatementLineRepository extends JpaRepository<UnmatchedStatementLine, Long> {
+
+    List<UnmatchedStatementLine> findByImportIdOrderByLineNumberAsc(Long importId);
+}
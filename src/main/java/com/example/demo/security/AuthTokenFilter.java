@@ -1,5 +1,9 @@
 package com.example.demo.security;
 
+import com.example.demo.config.RequestTiming;
+import com.example.demo.jfr.JwtVerificationEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,15 +28,18 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        try {
+        try (RequestTiming.Span ignored = RequestTiming.auth()) {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUsernameFromJwtToken(jwt);
+            String username = jwt != null ? verify(jwt) : null;
+            if (username != null) {
 
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -48,6 +55,19 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Signature check and claim parsing, timed as jwt.verification tagged with the outcome and
+    // recorded as a JwtVerification JFR event
+    private String verify(String jwt) {
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String username = jwtUtils.validateJwtToken(jwt) ? jwtUtils.getUsernameFromJwtToken(jwt) : null;
+        sample.stop(meterRegistry.timer("jwt.verification", "outcome", username != null ? "valid" : "invalid"));
+        event.valid = username != null;
+        event.commit();
+        return username;
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -1,6 +1,7 @@
 package com.example.demo.security;
 
 import com.example.demo.entity.User;
+import com.example.demo.jfr.UserPrincipalLoadEvent;
 import com.example.demo.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -18,9 +19,18 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
+        UserPrincipalLoadEvent event = new UserPrincipalLoadEvent();
+        event.begin();
+        event.username = username;
+        try {
+            User user = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
 
-        return UserDetailsImpl.build(user);
+            UserDetails userDetails = UserDetailsImpl.build(user);
+            event.found = true;
+            return userDetails;
+        } finally {
+            event.commit();
+        }
     }
 }
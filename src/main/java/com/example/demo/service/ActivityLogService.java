@@ -1,18 +1,23 @@
 package com.example.demo.service;
 
 import com.example.demo.entity.ActivityLog;
+import com.example.demo.jfr.ActivityLogWriteEvent;
 import com.example.demo.repository.ActivityLogRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import javax.servlet.http.HttpServletRequest;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,29 +27,78 @@ public class ActivityLogService {
     @Autowired
     private ActivityLogRepository activityLogRepository;
 
-    public void log(String action, String entityType, Long entityId, String details, HttpServletRequest request) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-        String username = "Anonymous";
-        String userRole = "UNKNOWN";
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
-        if (authentication != null && authentication.isAuthenticated() && !authentication.getName().equals("anonymousUser")) {
-            username = authentication.getName();
-            userRole = authentication.getAuthorities().stream()
-                    .map(GrantedAuthority::getAuthority)
-                    .collect(Collectors.joining(", "));
-        }
+    @Autowired
+    private MeterRegistry meterRegistry;
 
+    public void log(String action, String entityType, Long entityId, String details, HttpServletRequest request) {
         String ipAddress = getClientIpAddress(request);
 
-        ActivityLog log = new ActivityLog(username, userRole, action, entityType, entityId, details, ipAddress);
-        activityLogRepository.save(log);
+        ActivityLog log = new ActivityLog(currentUsername(), currentUserRole(), action, entityType, entityId, details, ipAddress);
+        write("single", 1, action, () -> activityLogRepository.save(log));
     }
 
     public void log(String action, String entityType, String details, HttpServletRequest request) {
         log(action, entityType, null, details, request);
     }
 
+    // One row per entity in a single JDBC batch, for bulk operations
+    public void logAll(String action, String entityType, List<Long> entityIds, List<String> details, HttpServletRequest request) {
+        if (entityIds.isEmpty()) {
+            return;
+        }
+        String username = currentUsername();
+        String userRole = currentUserRole();
+        String ipAddress = getClientIpAddress(request);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> rows = new ArrayList<>(entityIds.size());
+        for (int i = 0; i < entityIds.size(); i++) {
+            rows.add(new Object[]{username, userRole, action, entityType, entityIds.get(i), details.get(i), ipAddress, now});
+        }
+        write("batch", rows.size(), action, () -> jdbcTemplate.batchUpdate(
+                "INSERT INTO activity_logs (username, user_role, action, entity_type, entity_id, details, ip_address, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows));
+    }
+
+    // For scheduled jobs that run outside of any HTTP request
+    public void logSystem(String action, String entityType, String details) {
+        write("single", 1, action, () ->
+                activityLogRepository.save(new ActivityLog("System", "SYSTEM", action, entityType, null, details, "localhost")));
+    }
+
+    // Timed as activity.log.writes and recorded as an ActivityLogWrite JFR event
+    private void write(String mode, int rows, String action, Runnable insert) {
+        ActivityLogWriteEvent event = new ActivityLogWriteEvent();
+        event.begin();
+        meterRegistry.timer("activity.log.writes", "mode", mode).record(insert);
+        event.mode = mode;
+        event.rows = rows;
+        event.action = action;
+        event.commit();
+    }
+
+    private static boolean isLoggedIn(Authentication authentication) {
+        return authentication != null && authentication.isAuthenticated() && !authentication.getName().equals("anonymousUser");
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return isLoggedIn(authentication) ? authentication.getName() : "Anonymous";
+    }
+
+    private String currentUserRole() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!isLoggedIn(authentication)) {
+            return "UNKNOWN";
+        }
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(", "));
+    }
+
     private String getClientIpAddress(HttpServletRequest request) {
         String xForwardedForHeader = request.getHeader("X-Forwarded-For");
         if (xForwardedForHeader != null && !xForwardedForHeader.isEmpty()) {
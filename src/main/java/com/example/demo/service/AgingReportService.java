@@ -0,0 +1,98 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AgingReport;
+import com.example.demo.dto.AgingReportRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class AgingReportService {
+
+    public static final String CACHE_NAME = "agingReport";
+
+    // Unpaid part of open invoices bucketed by days past due in one pass; served by idx_invoices_open_aging.
+    // An invoice without a due date is due on its invoice date, so it lands in a bucket like the rest.
+    private static final String AGING_SQL =
+            "SELECT i.client_id, MAX(c.name), " +
+            "SUM(CASE WHEN COALESCE(i.due_date, i.invoice_date) >= ? THEN (i.total_amount - i.amount_paid) ELSE 0 END), " +
+            "SUM(CASE WHEN ? - COALESCE(i.due_date, i.invoice_date) BETWEEN 1 AND 30 THEN (i.total_amount - i.amount_paid) ELSE 0 END), " +
+            "SUM(CASE WHEN ? - COALESCE(i.due_date, i.invoice_date) BETWEEN 31 AND 60 THEN (i.total_amount - i.amount_paid) ELSE 0 END), " +
+            "SUM(CASE WHEN ? - COALESCE(i.due_date, i.invoice_date) BETWEEN 61 AND 90 THEN (i.total_amount - i.amount_paid) ELSE 0 END), " +
+            "SUM(CASE WHEN ? - COALESCE(i.due_date, i.invoice_date) > 90 THEN (i.total_amount - i.amount_paid) ELSE 0 END), " +
+            "SUM((i.total_amount - i.amount_paid)), COUNT(*) " +
+            "FROM invoices i LEFT JOIN clients c ON c.id = i.client_id " +
+            "WHERE i.status IN ('PENDING', 'SENT', 'OVERDUE') %s " +
+            "GROUP BY i.client_id ORDER BY SUM((i.total_amount - i.amount_paid)) DESC";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Cacheable(value = CACHE_NAME, key = "#clientId == null ? 'ALL' : #clientId")
+    public AgingReport getAgingReport(Long clientId) {
+        LocalDate today = LocalDate.now();
+        Date asOf = Date.valueOf(today);
+
+        List<Object> args = new ArrayList<>(List.of(asOf, asOf, asOf, asOf, asOf));
+        String sql = String.format(AGING_SQL, clientId != null ? "AND i.client_id = ?" : "");
+        if (clientId != null) {
+            args.add(clientId);
+        }
+
+        AgingReportRow totals = new AgingReportRow();
+        totals.setClientName("Total");
+
+        List<AgingReportRow> rows = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            AgingReportRow row = new AgingReportRow();
+            long id = rs.getLong(1);
+            row.setClientId(rs.wasNull() ? null : id);
+            row.setClientName(row.getClientId() != null ? rs.getString(2) : "No client");
+            row.setCurrent(rs.getBigDecimal(3));
+            row.setDays1To30(rs.getBigDecimal(4));
+            row.setDays31To60(rs.getBigDecimal(5));
+            row.setDays61To90(rs.getBigDecimal(6));
+            row.setOver90(rs.getBigDecimal(7));
+            row.setTotal(rs.getBigDecimal(8));
+            row.setInvoiceCount(rs.getLong(9));
+            totals.add(row);
+            return row;
+        }, args.toArray());
+
+        return new AgingReport(today, rows, totals);
+    }
+
+    // Clears the cache once the surrounding transaction commits; evicting earlier lets a report
+    // read in between cache the figures from before the write
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear();
+                }
+            });
+        } else {
+            clear();
+        }
+    }
+
+    private void clear() {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.BulkStatusRequest;
+import com.example.demo.dto.BulkStatusResult;
+import com.example.demo.entity.Invoice.InvoiceStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class BulkInvoiceStatusService {
+
+    // Statuses each status may move to; PAID and CANCELLED are final
+    private static final Map<InvoiceStatus, Set<InvoiceStatus>> ALLOWED = new EnumMap<>(InvoiceStatus.class);
+
+    static {
+        ALLOWED.put(InvoiceStatus.DRAFT, EnumSet.of(InvoiceStatus.PENDING, InvoiceStatus.SENT, InvoiceStatus.CANCELLED));
+        ALLOWED.put(InvoiceStatus.PENDING, EnumSet.of(InvoiceStatus.SENT, InvoiceStatus.PAID, InvoiceStatus.OVERDUE, InvoiceStatus.CANCELLED));
+        ALLOWED.put(InvoiceStatus.SENT, EnumSet.of(InvoiceStatus.PAID, InvoiceStatus.OVERDUE, InvoiceStatus.CANCELLED));
+        ALLOWED.put(InvoiceStatus.OVERDUE, EnumSet.of(InvoiceStatus.SENT, InvoiceStatus.PAID, InvoiceStatus.CANCELLED));
+        ALLOWED.put(InvoiceStatus.PAID, EnumSet.noneOf(InvoiceStatus.class));
+        ALLOWED.put(InvoiceStatus.CANCELLED, EnumSet.noneOf(InvoiceStatus.class));
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private ClientSummaryService clientSummaryService;
+
+    @Autowired
+    private AgingReportService agingReportService;
+
+    @Autowired
+    private TopProductsTracker topProductsTracker;
+
+    public static boolean isAllowed(InvoiceStatus from, InvoiceStatus to) {
+        return ALLOWED.getOrDefault(from, Collections.emptySet()).contains(to);
+    }
+
+    // Locks the invoices, then moves each source status group with one UPDATE and keeps the
+    // rollups, client summaries, aging cache and leaderboard in step without loading any entity
+    @Transactional
+    public BulkStatusResult updateStatus(BulkStatusRequest request) {
+        long started = System.currentTimeMillis();
+        InvoiceStatus target = request.getStatus();
+        Long[] ids = request.getIds() != null ? request.getIds().toArray(new Long[0]) : new Long[0];
+        String[] numbers = request.getInvoiceNumbers() != null ? request.getInvoiceNumbers().toArray(new String[0]) : new String[0];
+
+        BulkStatusResult result = new BulkStatusResult();
+        result.setStatus(target);
+
+        Set<Long> foundIds = new HashSet<>();
+        Set<String> foundNumbers = new HashSet<>();
+        Map<InvoiceStatus, List<Long>> bySource = new EnumMap<>(InvoiceStatus.class);
+        ClientBalanceDelta balances = new ClientBalanceDelta();
+
+        jdbcTemplate.query(
+                "SELECT id, invoice_number, status, client_id, total_amount, amount_paid FROM invoices " +
+                "WHERE id = ANY(?::bigint[]) OR invoice_number = ANY(?::varchar[]) ORDER BY id FOR UPDATE",
+                (RowCallbackHandler) rs -> {
+                    long id = rs.getLong("id");
+                    String number = rs.getString("invoice_number");
+                    InvoiceStatus from = InvoiceStatus.valueOf(rs.getString("status"));
+                    foundIds.add(id);
+                    foundNumbers.add(number);
+
+                    if (from == target) {
+                        result.getUnchanged().add(number);
+                    } else if (!isAllowed(from, target)) {
+                        result.getRejected().add(number + ": " + from + " -> " + target + " not allowed");
+                    } else {
+                        bySource.computeIfAbsent(from, s -> new ArrayList<>()).add(id);
+                        result.getUpdated().add(new BulkStatusResult.Change(id, number, from));
+                        long clientId = rs.getLong("client_id");
+                        if (!rs.wasNull()) {
+                            BigDecimal paid = rs.getBigDecimal("amount_paid");
+                            balances.move(clientId, rs.getBigDecimal("total_amount"), paid, paid, from, target);
+                        }
+                    }
+                },
+                ids, numbers);
+
+        for (Long id : ids) {
+            if (!foundIds.contains(id)) {
+                result.getNotFound().add(String.valueOf(id));
+            }
+        }
+        for (String number : numbers) {
+            if (!foundNumbers.contains(number)) {
+                result.getNotFound().add(number);
+            }
+        }
+
+        for (Map.Entry<InvoiceStatus, List<Long>> group : bySource.entrySet()) {
+            InvoiceStatus from = group.getKey();
+            Long[] groupIds = group.getValue().toArray(new Long[0]);
+            jdbcTemplate.update("UPDATE invoices SET status = ? WHERE id = ANY(?::bigint[]) AND status = ?",
+                    target.name(), groupIds, from.name());
+
+            revenueRollupService.moveStatus(group.getValue(), from, target);
+            // Only cancellations change what the leaderboard counts
+            if (from == InvoiceStatus.CANCELLED || target == InvoiceStatus.CANCELLED) {
+                topProductsTracker.record(revenueRollupService.moveDelta(group.getValue(), from, target));
+            }
+        }
+
+        if (!bySource.isEmpty()) {
+            clientSummaryService.apply(balances);
+            agingReportService.invalidate();
+        }
+
+        result.setDurationMs(System.currentTimeMillis() - started);
+        return result;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.BulkPriceRequest;
+import com.example.demo.dto.BulkPriceResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class BulkPricingService {
+
+    // Updates one chunk and writes its price history in the same statement; %s is the new price
+    private static final String ADJUST_CHUNK_SQL =
+            "WITH changed AS (" +
+            "UPDATE products p SET price = GREATEST(%s, 0), updated_at = now() " +
+            "FROM (SELECT id, price FROM products WHERE id = ANY(?::bigint[]) FOR UPDATE) old " +
+            "WHERE p.id = old.id AND GREATEST(%1$s, 0) <> old.price " +
+            "RETURNING p.id, old.price AS old_price, p.price AS new_price) " +
+            "INSERT INTO product_price_changes (batch_id, product_id, old_price, new_price, changed_at) " +
+            "SELECT ?, id, old_price, new_price, now() FROM changed";
+
+    private static final String PERCENT_PRICE = "ROUND(old.price * (100 + CAST(? AS numeric)) / 100, 2)";
+    private static final String ABSOLUTE_PRICE = "old.price + CAST(? AS numeric)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.products.bulk-price.chunk-size:1000}")
+    private int chunkSize;
+
+    // All chunks run in one transaction, so a failure leaves every price as it was
+    @Transactional
+    public BulkPriceResult adjust(BulkPriceRequest request) {
+        long started = System.currentTimeMillis();
+        Long[] ids = selectProducts(request);
+
+        String sql = String.format(ADJUST_CHUNK_SQL,
+                request.getMode() == BulkPriceRequest.Mode.PERCENT ? PERCENT_PRICE : ABSOLUTE_PRICE);
+        String batchId = UUID.randomUUID().toString();
+        int changed = 0;
+        for (int from = 0; from < ids.length; from += chunkSize) {
+            Long[] chunk = Arrays.copyOfRange(ids, from, Math.min(from + chunkSize, ids.length));
+            changed += jdbcTemplate.update(sql, request.getValue(), chunk, request.getValue(), batchId);
+        }
+
+        return new BulkPriceResult(batchId, ids.length, changed, System.currentTimeMillis() - started);
+    }
+
+    private Long[] selectProducts(BulkPriceRequest request) {
+        StringBuilder sql = new StringBuilder("SELECT id FROM products WHERE TRUE");
+        List<Object> args = new ArrayList<>();
+        if (request.getCategory() != null && !request.getCategory().isBlank()) {
+            sql.append(" AND category = ?");
+            args.add(request.getCategory());
+        }
+        if (request.getProductIds() != null && !request.getProductIds().isEmpty()) {
+            sql.append(" AND id = ANY(?::bigint[])");
+            args.add(request.getProductIds().toArray(new Long[0]));
+        }
+        if (request.getNameContains() != null && !request.getNameContains().isBlank()) {
+            sql.append(" AND name ILIKE ?");
+            args.add("%" + request.getNameContains().replace("%", "\\%").replace("_", "\\_") + "%");
+        }
+        if (request.getMinPrice() != null) {
+            sql.append(" AND price >= ?");
+            args.add(request.getMinPrice());
+        }
+        if (request.getMaxPrice() != null) {
+            sql.append(" AND price <= ?");
+            args.add(request.getMaxPrice());
+        }
+        if (args.isEmpty()) {
+            throw new RuntimeException("At least one of category, productIds, nameContains, minPrice or maxPrice is required");
+        }
+        sql.append(" ORDER BY id");
+        return jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray()).toArray(new Long[0]);
+    }
+}
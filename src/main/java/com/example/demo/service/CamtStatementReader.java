@@ -0,0 +1,150 @@
+package com.example.demo.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+// CAMT.053-like XML statement read with StAX: one line per <Ntry>, using its amount, direction,
+// booking date, unstructured remittance text and the debtor name of the first transaction.
+// Namespaces are ignored so camt.053 and camt.054 variants read the same.
+class CamtStatementReader implements StatementReader {
+
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    @Override
+    public void read(InputStream in, Consumer<StatementLine> sink) throws IOException {
+        try {
+            XMLStreamReader xml = FACTORY.createXMLStreamReader(in);
+            Deque<String> path = new ArrayDeque<>();
+            Entry entry = null;
+            int entryNumber = 0;
+
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if (name.equals("Ntry")) {
+                        entry = new Entry();
+                        entryNumber++;
+                        path.clear();
+                    } else if (entry != null) {
+                        String parent = path.peek();
+                        path.push(name);
+                        if (isText(name)) {
+                            entry.read(parent, name, xml.getElementText().trim(), path.size(), path.contains("Dbtr"));
+                            path.pop();
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && entry != null) {
+                    if (xml.getLocalName().equals("Ntry")) {
+                        sink.accept(entry.toLine(entryNumber));
+                        entry = null;
+                    } else if (!path.isEmpty()) {
+                        path.pop();
+                    }
+                }
+            }
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid statement XML: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isText(String name) {
+        switch (name) {
+            case "Amt":
+            case "CdtDbtInd":
+            case "Dt":
+            case "DtTm":
+            case "Ustrd":
+            case "Nm":
+            case "EndToEndId":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static class Entry {
+        BigDecimal amount;
+        boolean credit = true;
+        boolean directionSet;
+        LocalDate bookingDate;
+        LocalDate valueDate;
+        final StringBuilder reference = new StringBuilder();
+        String counterparty;
+
+        void read(String parent, String name, String text, int depth, boolean underDebtor) {
+            switch (name) {
+                case "Amt":
+                    // The entry amount sits directly under Ntry; transaction-level amounts repeat it
+                    if (amount == null && depth == 1) {
+                        amount = CsvStatementReader.parseAmount(text);
+                    }
+                    break;
+                case "CdtDbtInd":
+                    if (!directionSet) {
+                        credit = text.equals("CRDT");
+                        directionSet = true;
+                    }
+                    break;
+                case "Dt":
+                case "DtTm":
+                    LocalDate date = LocalDate.parse(text.substring(0, 10));
+                    if ("BookgDt".equals(parent) && bookingDate == null) {
+                        bookingDate = date;
+                    } else if ("ValDt".equals(parent) && valueDate == null) {
+                        valueDate = date;
+                    }
+                    break;
+                case "Ustrd":
+                    append(text);
+                    break;
+                case "EndToEndId":
+                    if (!text.equals("NOTPROVIDED")) {
+                        append(text);
+                    }
+                    break;
+                case "Nm":
+                    if (underDebtor && counterparty == null) {
+                        counterparty = text;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void append(String text) {
+            if (reference.length() > 0) {
+                reference.append(' ');
+            }
+            reference.append(text);
+        }
+
+        StatementLine toLine(int entryNumber) {
+            if (amount == null) {
+                throw new RuntimeException("Entry " + entryNumber + ": missing amount");
+            }
+            LocalDate date = bookingDate != null ? bookingDate : valueDate;
+            if (date == null) {
+                throw new RuntimeException("Entry " + entryNumber + ": missing booking date");
+            }
+            return new StatementLine(entryNumber, date, amount.abs(), credit,
+                    reference.length() > 0 ? reference.toString() : null, counterparty);
+        }
+    }
+}
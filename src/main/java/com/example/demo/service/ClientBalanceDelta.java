@@ -0,0 +1,88 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Invoice;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Net change to client_summaries caused by one invoice write, keyed by client id
+public class ClientBalanceDelta {
+
+    static final Set<Invoice.InvoiceStatus> OPEN_STATUSES =
+            EnumSet.of(Invoice.InvoiceStatus.PENDING, Invoice.InvoiceStatus.SENT, Invoice.InvoiceStatus.OVERDUE);
+
+    private final Map<Long, Totals> totals = new HashMap<>();
+
+    public void add(Invoice invoice) {
+        apply(invoice, 1);
+    }
+
+    public void subtract(Invoice invoice) {
+        apply(invoice, -1);
+    }
+
+    private void apply(Invoice invoice, int sign) {
+        if (invoice.getClient() == null) {
+            return;
+        }
+        Totals client = totals.computeIfAbsent(invoice.getClient().getId(), id -> new Totals());
+        BigDecimal amount = sign > 0 ? invoice.getTotalAmount() : invoice.getTotalAmount().negate();
+
+        if (OPEN_STATUSES.contains(invoice.getStatus())) {
+            BigDecimal unpaid = invoice.getTotalAmount().subtract(paid(invoice.getAmountPaid()));
+            client.outstanding = client.outstanding.add(sign > 0 ? unpaid : unpaid.negate());
+        }
+        if (invoice.getStatus() != Invoice.InvoiceStatus.CANCELLED) {
+            client.revenue = client.revenue.add(amount);
+        }
+        client.count += sign;
+        if (sign > 0) {
+            client.lastInvoiceDate = invoice.getInvoiceDate();
+        }
+    }
+
+    // A status or payment change applied in SQL: the invoice stays with the client, only its
+    // unpaid amount and revenue bucket change
+    public void move(Long clientId, BigDecimal total, BigDecimal paidBefore, BigDecimal paidAfter,
+                     Invoice.InvoiceStatus from, Invoice.InvoiceStatus to) {
+        if (clientId == null) {
+            return;
+        }
+        Totals client = totals.computeIfAbsent(clientId, id -> new Totals());
+        if (OPEN_STATUSES.contains(from)) {
+            client.outstanding = client.outstanding.subtract(total.subtract(paid(paidBefore)));
+        }
+        if (OPEN_STATUSES.contains(to)) {
+            client.outstanding = client.outstanding.add(total.subtract(paid(paidAfter)));
+        }
+        if (from != Invoice.InvoiceStatus.CANCELLED) {
+            client.revenue = client.revenue.subtract(total);
+        }
+        if (to != Invoice.InvoiceStatus.CANCELLED) {
+            client.revenue = client.revenue.add(total);
+        }
+    }
+
+    private static BigDecimal paid(BigDecimal amountPaid) {
+        return amountPaid != null ? amountPaid : BigDecimal.ZERO;
+    }
+
+    Map<Long, Totals> totals() {
+        return totals;
+    }
+
+    static class Totals {
+        BigDecimal outstanding = BigDecimal.ZERO;
+        BigDecimal revenue = BigDecimal.ZERO;
+        long count;
+        LocalDate lastInvoiceDate;
+
+        boolean isZero() {
+            return count == 0 && outstanding.signum() == 0 && revenue.signum() == 0;
+        }
+    }
+}
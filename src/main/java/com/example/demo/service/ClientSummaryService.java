@@ -0,0 +1,92 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.ClientSummary;
+import com.example.demo.repository.ClientSummaryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class ClientSummaryService {
+
+    private static final String UPSERT =
+            "INSERT INTO client_summaries (client_id, outstanding_balance, lifetime_revenue, invoice_count, last_invoice_date) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (client_id) DO UPDATE SET " +
+            "outstanding_balance = client_summaries.outstanding_balance + EXCLUDED.outstanding_balance, " +
+            "lifetime_revenue = client_summaries.lifetime_revenue + EXCLUDED.lifetime_revenue, " +
+            "invoice_count = client_summaries.invoice_count + EXCLUDED.invoice_count, " +
+            "last_invoice_date = GREATEST(client_summaries.last_invoice_date, EXCLUDED.last_invoice_date)";
+
+    // Only needed when an invoice leaves a client; served by idx_invoices_client_date
+    private static final String REFRESH_LAST_INVOICE_DATE =
+            "UPDATE client_summaries SET last_invoice_date = " +
+            "(SELECT MAX(invoice_date) FROM invoices WHERE client_id = ?) WHERE client_id = ?";
+
+    @Autowired
+    private ClientSummaryRepository clientSummaryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public List<ClientSummary> getAllSummaries() {
+        return clientSummaryRepository.findAll();
+    }
+
+    public ClientSummary getSummary(Long clientId) {
+        return clientSummaryRepository.findById(clientId).orElseGet(() -> new ClientSummary(clientId));
+    }
+
+    @Transactional
+    public void apply(ClientBalanceDelta delta) {
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> refreshes = new ArrayList<>();
+
+        // In client id order, so concurrent invoice writes lock the summary rows in the same order
+        for (Map.Entry<Long, ClientBalanceDelta.Totals> entry : new TreeMap<>(delta.totals()).entrySet()) {
+            ClientBalanceDelta.Totals totals = entry.getValue();
+            if (totals.isZero()) {
+                continue;
+            }
+            upserts.add(new Object[]{entry.getKey(), totals.outstanding, totals.revenue, totals.count,
+                    totals.lastInvoiceDate != null ? Date.valueOf(totals.lastInvoiceDate) : null});
+            // An invoice left this client, so its last invoice date may have to move back
+            if (totals.count < 0) {
+                refreshes.add(new Object[]{entry.getKey(), entry.getKey()});
+            }
+        }
+
+        if (!upserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT, upserts);
+        }
+        if (!refreshes.isEmpty()) {
+            jdbcTemplate.batchUpdate(REFRESH_LAST_INVOICE_DATE, refreshes);
+        }
+    }
+
+    @Transactional
+    public void delete(Long clientId) {
+        if (clientSummaryRepository.existsById(clientId)) {
+            clientSummaryRepository.deleteById(clientId);
+        }
+    }
+
+    // Recomputes every summary from invoices, e.g. after linking historical invoices to clients
+    @Transactional
+    public void rebuild() {
+        jdbcTemplate.execute("TRUNCATE client_summaries");
+        jdbcTemplate.update(
+                "INSERT INTO client_summaries (client_id, outstanding_balance, lifetime_revenue, invoice_count, last_invoice_date) " +
+                "SELECT client_id, " +
+                "SUM(CASE WHEN status IN ('PENDING', 'SENT', 'OVERDUE') THEN total_amount - amount_paid ELSE 0 END), " +
+                "SUM(CASE WHEN status <> 'CANCELLED' THEN total_amount ELSE 0 END), " +
+                "COUNT(*), MAX(invoice_date) " +
+                "FROM invoices WHERE client_id IS NOT NULL GROUP BY client_id");
+    }
+}
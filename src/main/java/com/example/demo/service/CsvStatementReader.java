@@ -0,0 +1,158 @@
+package com.example.demo.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+// Bank CSV export: a header row naming the columns, ';' or ',' separated, optionally quoted.
+// Debits are either negative amounts or flagged in a direction column.
+class CsvStatementReader implements StatementReader {
+
+    private static final DateTimeFormatter[] DATE_FORMATS = {
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.ofPattern("dd.MM.yyyy")
+    };
+
+    @Override
+    public void read(InputStream in, Consumer<StatementLine> sink) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        char separator = count(header, ';') > count(header, ',') ? ';' : ',';
+        List<String> columns = split(header, separator);
+
+        int date = column(columns, true, "date", "booking_date", "bookingdate", "value_date");
+        int amount = column(columns, true, "amount", "montant");
+        int reference = column(columns, false, "reference", "description", "remittance", "libelle", "memo");
+        int counterparty = column(columns, false, "counterparty", "name", "payer", "debtor");
+        int direction = column(columns, false, "direction", "type", "cdtdbtind");
+
+        String line;
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            List<String> values = split(line, separator);
+            try {
+                BigDecimal value = parseAmount(get(values, amount));
+                String flag = get(values, direction);
+                boolean credit = flag != null
+                        ? !flag.toUpperCase(Locale.ROOT).startsWith("D")
+                        : value.signum() > 0;
+                sink.accept(new StatementLine(lineNumber, parseDate(get(values, date)), value.abs(), credit,
+                        get(values, reference), get(values, counterparty)));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static int column(List<String> columns, boolean required, String... names) {
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i).trim().toLowerCase(Locale.ROOT).replace(' ', '_');
+            for (String name : names) {
+                if (column.equals(name)) {
+                    return i;
+                }
+            }
+        }
+        if (required) {
+            throw new RuntimeException("Missing column '" + names[0] + "' in statement header");
+        }
+        return -1;
+    }
+
+    private static String get(List<String> values, int index) {
+        if (index < 0 || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static List<String> split(String line, char separator) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == separator && !quoted) {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    // Accepts 1234.56, 1,234.56, 1234,56 and 1.234,56
+    static BigDecimal parseAmount(String value) {
+        if (value == null) {
+            throw new RuntimeException("missing amount");
+        }
+        String amount = value.replace(" ", "").replace("\u00A0", "");
+        int comma = amount.lastIndexOf(',');
+        int dot = amount.lastIndexOf('.');
+        if (comma > dot) {
+            amount = amount.replace(".", "").replace(',', '.');
+        } else {
+            amount = amount.replace(",", "");
+        }
+        try {
+            return new BigDecimal(amount);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("invalid amount '" + value + "'");
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            throw new RuntimeException("missing date");
+        }
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(value, format);
+            } catch (DateTimeParseException ignored) {
+                // try the next format
+            }
+        }
+        throw new RuntimeException("invalid date '" + value + "'");
+    }
+
+    private static int count(String value, char c) {
+        int count = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == c) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.service;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+// Continuous flight recording with the application's events (the jfr profile turns it on) and
+// on-demand dumps of it to app.jfr.dump-dir
+@Service
+public class FlightRecordingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecordingService.class);
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Value("${app.jfr.continuous:false}")
+    private boolean continuous;
+
+    @Value("${app.jfr.max-age:PT6H}")
+    private Duration maxAge;
+
+    @Value("${app.jfr.max-size:256MB}")
+    private DataSize maxSize;
+
+    @Value("${app.jfr.dump-dir:}")
+    private String dumpDir;
+
+    private Recording recording;
+
+    @PostConstruct
+    public void start() throws IOException, ParseException {
+        if (!continuous) {
+            return;
+        }
+        recording = new Recording(settings());
+        recording.setName("facturation");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSize.toBytes());
+        recording.start();
+        logger.info("Continuous flight recording started, keeping {} or {} MB", maxAge, maxSize.toMegabytes());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    // The JDK's low-overhead default settings, with jfr/facturation.jfc on top for our events
+    static Map<String, String> settings() throws IOException, ParseException {
+        Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+        try (Reader reader = new InputStreamReader(
+                new ClassPathResource("jfr/facturation.jfc").getInputStream(), StandardCharsets.UTF_8)) {
+            settings.putAll(Configuration.create(reader).getSettings());
+        }
+        return settings;
+    }
+
+    // Dumps the continuous recording or, without one, a snapshot of whatever recordings are
+    // running (e.g. started with -XX:StartFlightRecording)
+    public Path dump() throws IOException {
+        if (dumpDir == null || dumpDir.isEmpty()) {
+            throw new RuntimeException("Recording dumps are not enabled");
+        }
+        Path dir = Paths.get(dumpDir).toAbsolutePath().normalize();
+        Files.createDirectories(dir);
+        Path file = dir.resolve("facturation-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            recording.dump(file);
+        } else if (FlightRecorder.isInitialized() && !FlightRecorder.getFlightRecorder().getRecordings().isEmpty()) {
+            try (Recording snapshot = FlightRecorder.getFlightRecorder().takeSnapshot()) {
+                snapshot.dump(file);
+            }
+        } else {
+            throw new RuntimeException("No flight recording is running");
+        }
+        logger.info("Flight recording dumped to {}", file);
+        return file;
+    }
+}
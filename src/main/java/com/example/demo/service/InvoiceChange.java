@@ -0,0 +1,21 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Invoice;
+
+// Everything derived from an invoice that has to follow it when it is written:
+// record the invoice as it was (removed) and as it is now (added), then apply once
+public class InvoiceChange {
+
+    final RevenueDelta revenue = new RevenueDelta();
+    final ClientBalanceDelta balances = new ClientBalanceDelta();
+
+    public void removed(Invoice invoice) {
+        revenue.subtract(invoice);
+        balances.subtract(invoice);
+    }
+
+    public void added(Invoice invoice) {
+        revenue.add(invoice);
+        balances.add(invoice);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Hands out invoice numbers from company_settings in a transaction of their own, so the settings
+// row is locked for one statement instead of the whole invoice creation. A number whose invoice
+// then fails is skipped; the invoice_numbers primary key still rejects a number used twice.
+@Service
+public class InvoiceNumberService {
+
+    private static final String DEFAULT_NUMBER = "FACT-0001";
+
+    private static final String NEXT_SQL =
+            "UPDATE company_settings SET next_invoice_number = COALESCE(next_invoice_number, 1) + 1 " +
+            "WHERE id = (SELECT MIN(id) FROM company_settings) " +
+            "RETURNING invoice_prefix, next_invoice_number - 1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public String next() {
+        List<String> numbers = jdbcTemplate.query(NEXT_SQL,
+                (rs, rowNum) -> String.format("%s-%04d", rs.getString(1), rs.getInt(2)));
+        return numbers.isEmpty() ? DEFAULT_NUMBER : numbers.get(0);
+    }
+}
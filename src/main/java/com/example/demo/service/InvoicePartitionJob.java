@@ -0,0 +1,52 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+// Keeps yearly invoice partitions created ahead of time once db/partition-invoices.sql has run,
+// so new invoices land in their year's partition instead of the default one
+@Component
+public class InvoicePartitionJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoicePartitionJob.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.invoices.partitions.years-ahead:1}")
+    private int yearsAhead;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.invoices.partitions.cron:0 30 0 * * *}")
+    public void createPartitions() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('invoices'))",
+                Boolean.class);
+        if (!Boolean.TRUE.equals(partitioned)) {
+            return;
+        }
+
+        int year = LocalDate.now().getYear();
+        for (int y = year; y <= year + yearsAhead; y++) {
+            try {
+                jdbcTemplate.queryForObject("SELECT create_invoice_partitions(?)", Object.class, y);
+            } catch (Exception e) {
+                logger.error("Could not create invoice partitions for {}: {}", y, e.getMessage());
+            }
+        }
+
+        Long misplaced = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM invoices_default", Long.class);
+        if (misplaced != null && misplaced > 0) {
+            logger.warn("{} invoices sit in the default partition; create their years' partitions", misplaced);
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.InvoicePreviewResponse;
+import com.example.demo.dto.InvoiceRequest;
+import com.example.demo.entity.Invoice;
+import com.example.demo.entity.InvoiceItem;
+import com.example.demo.entity.InvoiceNumber;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.StockMovement;
+import com.example.demo.jfr.InvoiceCreationEvent;
+import com.example.demo.model.Client;
+import com.example.demo.model.CompanySettings;
+import com.example.demo.repository.ClientRepository;
+import com.example.demo.repository.CompanySettingsRepository;
+import com.example.demo.repository.InvoiceNumberRepository;
+import com.example.demo.repository.InvoiceRepository;
+import com.example.demo.repository.PaymentRepository;
+import com.example.demo.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+public class InvoiceService {
+
+    private static final BigDecimal DEFAULT_TAX_RATE = BigDecimal.valueOf(20.0);
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CompanySettingsRepository companySettingsRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private AgingReportService agingReportService;
+
+    @Autowired
+    private ClientSummaryService clientSummaryService;
+
+    @Autowired
+    private TopProductsTracker topProductsTracker;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private InvoiceNumberRepository invoiceNumberRepository;
+
+    @Autowired
+    private InvoiceNumberService invoiceNumberService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Prices a request like createInvoice does, without numbering, stock changes or logging
+    @Transactional(readOnly = true)
+    public InvoicePreviewResponse preview(InvoiceRequest request) {
+        Map<Long, Product> products = loadProducts(request.getItems());
+        stockService.withLiveStock(products.values());
+
+        // Stock is checked against the total requested per product, not per line
+        Map<Long, Integer> requestedByProduct = new HashMap<>();
+        for (InvoiceRequest.InvoiceItemRequest itemRequest : request.getItems()) {
+            requestedByProduct.merge(itemRequest.getProductId(), itemRequest.getQuantity(), Integer::sum);
+        }
+
+        InvoicePreviewResponse preview = new InvoicePreviewResponse();
+        preview.setCustomerName(request.getCustomerName());
+        preview.setTaxRate(resolveTaxRate(findSettings()));
+
+        // Priced on detached items exactly as createInvoice would price them
+        Invoice invoice = new Invoice();
+        invoice.setTaxRate(preview.getTaxRate());
+        PricingRules rules = pricingService.current();
+        LinePricing pricing = new LinePricing();
+        boolean allInStock = true;
+
+        for (InvoiceRequest.InvoiceItemRequest itemRequest : request.getItems()) {
+            Product product = products.get(itemRequest.getProductId());
+
+            InvoiceItem item = new InvoiceItem();
+            item.setProduct(product);
+            item.setQuantity(itemRequest.getQuantity());
+            item.setUnitPrice(product.getPrice());
+            priceLine(item, rules, pricing, request.getClientId(), invoice.getTaxRate());
+            invoice.getItems().add(item);
+
+            InvoicePreviewResponse.LinePreview line = new InvoicePreviewResponse.LinePreview();
+            line.setProductId(product.getId());
+            line.setProductName(product.getName());
+            line.setQuantity(item.getQuantity());
+            line.setUnitPrice(item.getUnitPrice());
+            line.setSubtotal(item.getSubtotal());
+            line.setDiscount(item.getDiscount());
+            line.setTaxRate(item.getTaxRate());
+            line.setTaxAmount(item.getTaxAmount());
+            line.setAvailableStock(product.getStockQuantity());
+            line.setInStock(product.getStockQuantity() >= requestedByProduct.get(product.getId()));
+
+            preview.getItems().add(line);
+            allInStock &= line.isInStock();
+        }
+
+        applyTotals(invoice);
+        preview.setSubtotal(invoice.getSubtotal());
+        preview.setDiscount(invoice.getDiscount());
+        preview.setTaxAmount(invoice.getTaxAmount());
+        preview.setTotalAmount(invoice.getTotalAmount());
+        preview.setAllInStock(allInStock);
+
+        return preview;
+    }
+
+    // Numbered first, in a transaction of its own, then written in a second one, so concurrent
+    // invoices only queue on the settings row for the numbering statement.
+    // Recorded as an InvoiceCreation JFR event whether it succeeds or not
+    public Invoice createInvoice(InvoiceRequest request) {
+        InvoiceCreationEvent event = new InvoiceCreationEvent();
+        event.begin();
+        event.lineCount = request.getItems() != null ? request.getItems().size() : 0;
+        try {
+            Timer.Sample numbering = Timer.start(meterRegistry);
+            String invoiceNumber = invoiceNumberService.next();
+            Timer.Sample stage = endStage(numbering, "numbering", event);
+
+            Invoice invoice = transactionTemplate.execute(status -> create(request, invoiceNumber, stage, event));
+            event.invoiceNumber = invoice.getInvoiceNumber();
+            event.succeeded = true;
+            return invoice;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private Invoice create(InvoiceRequest request, String invoiceNumber, Timer.Sample stage, InvoiceCreationEvent event) {
+        Invoice invoice = new Invoice();
+        invoice.setCustomerName(request.getCustomerName());
+        linkClient(invoice, request);
+        invoice.setInvoiceNumber(invoiceNumber);
+        invoice.setTaxRate(resolveTaxRate(findSettings()));
+
+        // Create invoice items, each priced against one snapshot of the rules
+        Map<Long, Product> products = loadProducts(request.getItems());
+        Map<Long, Integer> stockDeltas = new HashMap<>();
+        PricingRules rules = pricingService.current();
+        LinePricing pricing = new LinePricing();
+        Long clientId = invoice.getClient() != null ? invoice.getClient().getId() : null;
+
+        for (InvoiceRequest.InvoiceItemRequest itemRequest : request.getItems()) {
+            Product product = products.get(itemRequest.getProductId());
+
+            InvoiceItem item = new InvoiceItem();
+            item.setProduct(product);
+            item.setQuantity(itemRequest.getQuantity());
+            item.setUnitPrice(product.getPrice());
+            priceLine(item, rules, pricing, clientId, invoice.getTaxRate());
+            invoice.addItem(item);
+
+            stockDeltas.merge(product.getId(), itemRequest.getQuantity(), Integer::sum);
+        }
+
+        applyTotals(invoice);
+        stage = endStage(stage, "pricing", event);
+
+        Invoice savedInvoice = invoiceRepository.save(invoice);
+        // Persisted rather than merged, so a number already taken fails with a key violation;
+        // flushed here so that happens before any stock is taken
+        entityManager.persist(new InvoiceNumber(savedInvoice.getInvoiceNumber(), savedInvoice.getId(),
+                savedInvoice.getInvoiceDate()));
+        try {
+            entityManager.flush();
+        } catch (PersistenceException e) {
+            if (e.getCause() instanceof ConstraintViolationException) {
+                meterRegistry.counter("invoices.numbering.conflicts").increment();
+                throw new RuntimeException("Invoice number " + savedInvoice.getInvoiceNumber() + " is already taken", e);
+            }
+            throw e;
+        }
+        stage = endStage(stage, "persist", event);
+
+        // Check and take stock for all lines at once; saved first so the ledger can reference it
+        stockService.applyDeltas(stockDeltas, StockMovement.Reason.INVOICE, savedInvoice.getId());
+        stage = endStage(stage, "stock", event);
+
+        InvoiceChange change = new InvoiceChange();
+        change.added(savedInvoice);
+        applyChange(change);
+        endStage(stage, "rollups", event);
+
+        return savedInvoice;
+    }
+
+    // Records the stage just finished under invoices.create.stage and on the JFR event, and
+    // starts timing the next one
+    private Timer.Sample endStage(Timer.Sample stage, String name, InvoiceCreationEvent event) {
+        event.stage(name, stage.stop(meterRegistry.timer("invoices.create.stage", "stage", name)));
+        return Timer.start(meterRegistry);
+    }
+
+    // Diffs the requested lines against the existing items by product: unchanged lines are left
+    // alone, changed quantities are updated in place and only net stock deltas are applied
+    @Transactional
+    public Optional<Invoice> updateInvoice(Long id, InvoiceRequest request) {
+        Optional<Invoice> found = invoiceRepository.findByIdForUpdate(id);
+        if (found.isEmpty()) {
+            return found;
+        }
+        Invoice invoice = found.get();
+
+        InvoiceChange change = new InvoiceChange();
+        change.removed(invoice);
+
+        Long previousClientId = invoice.getClient() != null ? invoice.getClient().getId() : null;
+        invoice.setCustomerName(request.getCustomerName());
+        linkClient(invoice, request);
+
+        Map<Long, Integer> requested = new LinkedHashMap<>();
+        for (InvoiceRequest.InvoiceItemRequest itemRequest : request.getItems()) {
+            requested.merge(itemRequest.getProductId(), itemRequest.getQuantity(), Integer::sum);
+        }
+
+        // Positive deltas consume stock, negative deltas restore it
+        Map<Long, Integer> stockDeltas = new HashMap<>();
+        Set<Long> kept = new HashSet<>();
+        PricingRules rules = pricingService.current();
+        LinePricing pricing = new LinePricing();
+        Long clientId = invoice.getClient() != null ? invoice.getClient().getId() : null;
+        // Client rules may no longer apply, so every kept line is repriced for the new client
+        boolean clientChanged = !Objects.equals(previousClientId, clientId);
+
+        Iterator<InvoiceItem> existing = invoice.getItems().iterator();
+        while (existing.hasNext()) {
+            InvoiceItem item = existing.next();
+            Long productId = item.getProduct().getId();
+            Integer newQuantity = requested.get(productId);
+
+            if (newQuantity == null || !kept.add(productId)) {
+                // Dropped line, or a duplicate line for a product already kept
+                stockDeltas.merge(productId, -item.getQuantity(), Integer::sum);
+                existing.remove();
+                item.setInvoice(null);
+            } else if (!newQuantity.equals(item.getQuantity()) || clientChanged) {
+                // Keeps its unit price but gets the discount and tax for the new quantity and client
+                stockDeltas.merge(productId, newQuantity - item.getQuantity(), Integer::sum);
+                item.setQuantity(newQuantity);
+                priceLine(item, rules, pricing, clientId, invoice.getTaxRate());
+            }
+        }
+
+        // Products that were not on the invoice yet become new lines at the current price
+        List<InvoiceRequest.InvoiceItemRequest> added = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : requested.entrySet()) {
+            if (!kept.contains(entry.getKey())) {
+                InvoiceRequest.InvoiceItemRequest itemRequest = new InvoiceRequest.InvoiceItemRequest();
+                itemRequest.setProductId(entry.getKey());
+                itemRequest.setQuantity(entry.getValue());
+                added.add(itemRequest);
+            }
+        }
+        if (!added.isEmpty()) {
+            Map<Long, Product> products = loadProducts(added);
+            for (InvoiceRequest.InvoiceItemRequest itemRequest : added) {
+                Product product = products.get(itemRequest.getProductId());
+
+                InvoiceItem item = new InvoiceItem();
+                item.setProduct(product);
+                item.setQuantity(itemRequest.getQuantity());
+                item.setUnitPrice(product.getPrice());
+                priceLine(item, rules, pricing, clientId, invoice.getTaxRate());
+                invoice.addItem(item);
+
+                stockDeltas.merge(product.getId(), itemRequest.getQuantity(), Integer::sum);
+            }
+        }
+
+        stockService.applyDeltas(stockDeltas, StockMovement.Reason.INVOICE, invoice.getId());
+
+        applyTotals(invoice);
+
+        change.added(invoice);
+        applyChange(change);
+
+        return Optional.of(invoiceRepository.save(invoice));
+    }
+
+    // Locked like edits, so payments, the overdue sweep and bulk changes cannot interleave with it;
+    // empty when the invoice is gone
+    @Transactional
+    public Optional<Invoice> updateStatus(Long id, Invoice.InvoiceStatus status) {
+        Optional<Invoice> found = invoiceRepository.findByIdForUpdate(id);
+        if (found.isEmpty() || found.get().getStatus() == status) {
+            return found;
+        }
+        Invoice invoice = found.get();
+        if (!BulkInvoiceStatusService.isAllowed(invoice.getStatus(), status)) {
+            throw new RuntimeException("Cannot change invoice status from " + invoice.getStatus() + " to " + status);
+        }
+
+        InvoiceChange change = new InvoiceChange();
+        change.removed(invoice);
+        invoice.setStatus(status);
+        change.added(invoice);
+        applyChange(change);
+
+        return Optional.of(invoiceRepository.save(invoice));
+    }
+
+    // Lines give their stock back; empty when the invoice is gone, e.g. deleted concurrently.
+    // Invoices with payments are kept, so reconciled bank lines never lose their invoice; payments
+    // lock the invoice before recording themselves, so none can slip in after the check.
+    @Transactional
+    public Optional<Invoice> deleteInvoice(Long id) {
+        Optional<Invoice> found = invoiceRepository.findByIdForUpdate(id);
+        if (found.isEmpty()) {
+            return found;
+        }
+        Invoice invoice = found.get();
+        if (paymentRepository.existsByInvoiceId(invoice.getId())) {
+            throw new IllegalStateException("Invoice " + invoice.getInvoiceNumber() + " has payments and cannot be deleted");
+        }
+
+        // Stock before rollups, the order creates and updates take their locks in
+        Map<Long, Integer> stockDeltas = new HashMap<>();
+        for (InvoiceItem item : invoice.getItems()) {
+            stockDeltas.merge(item.getProduct().getId(), -item.getQuantity(), Integer::sum);
+        }
+        stockService.applyDeltas(stockDeltas, StockMovement.Reason.INVOICE, invoice.getId());
+
+        InvoiceChange change = new InvoiceChange();
+        change.removed(invoice);
+        applyChange(change);
+
+        invoiceNumberRepository.deleteByInvoiceId(invoice.getId());
+        invoiceRepository.delete(invoice);
+        return found;
+    }
+
+    // Keeps rollups, client summaries, report caches and the leaderboard in step with the invoice write
+    private void applyChange(InvoiceChange change) {
+        revenueRollupService.apply(change.revenue);
+        clientSummaryService.apply(change.balances);
+        agingReportService.invalidate();
+        topProductsTracker.record(change.revenue);
+    }
+
+    // A request without a client id leaves the current link untouched
+    private void linkClient(Invoice invoice, InvoiceRequest request) {
+        if (request.getClientId() == null) {
+            return;
+        }
+        Client client = clientRepository.findById(request.getClientId())
+                .orElseThrow(() -> new RuntimeException("Client not found with ID: " + request.getClientId()));
+        invoice.setClient(client);
+        if (invoice.getCustomerName() == null || invoice.getCustomerName().isBlank()) {
+            invoice.setCustomerName(client.getName());
+        }
+    }
+
+    // Resolves every product referenced by the request with a single query
+    Map<Long, Product> loadProducts(List<InvoiceRequest.InvoiceItemRequest> items) {
+        Set<Long> productIds = new HashSet<>();
+        for (InvoiceRequest.InvoiceItemRequest itemRequest : items) {
+            productIds.add(itemRequest.getProductId());
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            products.put(product.getId(), product);
+        }
+
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new RuntimeException("Product not found with ID: " + productId);
+            }
+        }
+        return products;
+    }
+
+    CompanySettings findSettings() {
+        List<CompanySettings> settingsList = companySettingsRepository.findAll();
+        return settingsList.isEmpty() ? null : settingsList.get(0);
+    }
+
+    static BigDecimal resolveTaxRate(CompanySettings settings) {
+        return settings != null ? BigDecimal.valueOf(settings.getDefaultTaxRate()) : DEFAULT_TAX_RATE;
+    }
+
+    // Sets subtotal, discount and tax of a line from its unit price and quantity
+    static void priceLine(InvoiceItem item, PricingRules rules, LinePricing pricing, Long clientId, BigDecimal defaultTaxRate) {
+        Product product = item.getProduct();
+        rules.evaluate(clientId, product.getId(), product.getCategory(), item.getQuantity(), pricing);
+
+        BigDecimal subtotal = lineSubtotal(item.getUnitPrice(), item.getQuantity());
+        BigDecimal discount = pricing.discountRate != null
+                ? subtotal.multiply(pricing.discountRate).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        BigDecimal taxRate = pricing.taxRate != null ? pricing.taxRate : defaultTaxRate;
+
+        item.setSubtotal(subtotal);
+        item.setDiscount(discount);
+        item.setTaxRate(taxRate);
+        item.setTaxAmount(taxAmount(subtotal.subtract(discount), taxRate));
+    }
+
+    // Invoice totals are the sums of the line amounts
+    static void applyTotals(Invoice invoice) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal discount = BigDecimal.ZERO;
+        BigDecimal tax = BigDecimal.ZERO;
+        for (InvoiceItem item : invoice.getItems()) {
+            subtotal = subtotal.add(item.getSubtotal());
+            discount = discount.add(lineDiscount(item));
+            tax = tax.add(lineTax(item, invoice.getTaxRate()));
+        }
+        invoice.setSubtotal(subtotal.setScale(2, RoundingMode.HALF_UP));
+        invoice.setDiscount(discount.setScale(2, RoundingMode.HALF_UP));
+        invoice.setTaxAmount(tax.setScale(2, RoundingMode.HALF_UP));
+        invoice.setTotalAmount(subtotal.subtract(discount).add(tax).setScale(2, RoundingMode.HALF_UP));
+    }
+
+    static BigDecimal lineDiscount(InvoiceItem item) {
+        return item.getDiscount() != null ? item.getDiscount() : BigDecimal.ZERO;
+    }
+
+    // Lines written before per-line tax carry no tax amount and use the invoice rate
+    static BigDecimal lineTax(InvoiceItem item, BigDecimal invoiceTaxRate) {
+        if (item.getTaxAmount() != null) {
+            return item.getTaxAmount();
+        }
+        return taxAmount(item.getSubtotal().subtract(lineDiscount(item)),
+                invoiceTaxRate != null ? invoiceTaxRate : BigDecimal.ZERO);
+    }
+
+    static BigDecimal lineSubtotal(BigDecimal unitPrice, int quantity) {
+        return unitPrice.multiply(BigDecimal.valueOf(quantity)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    static BigDecimal taxAmount(BigDecimal subtotal, BigDecimal taxRate) {
+        return subtotal.multiply(taxRate).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+    }
+}
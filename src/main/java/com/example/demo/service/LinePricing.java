@@ -0,0 +1,11 @@
+package com.example.demo.service;
+
+import java.math.BigDecimal;
+
+// Result holder for PricingRules.evaluate, reused across the lines of one invoice
+class LinePricing {
+    BigDecimal discountRate;
+    BigDecimal taxRate;
+    Long discountRuleId;
+    Long taxRuleId;
+}
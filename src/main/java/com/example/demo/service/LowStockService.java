@@ -0,0 +1,92 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class LowStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LowStockService.class);
+
+    // raised_at is kept on conflict so it always records when the product first went low
+    private static final String RAISE =
+            "INSERT INTO low_stock_alerts (product_id, stock_quantity, reorder_threshold, raised_at) " +
+            "VALUES (?, ?, ?, now()) ON CONFLICT (product_id) DO UPDATE SET " +
+            "stock_quantity = EXCLUDED.stock_quantity, reorder_threshold = EXCLUDED.reorder_threshold";
+
+    private static final String CLEAR = "DELETE FROM low_stock_alerts WHERE product_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Raises an alert when a product drops below its threshold and clears it once restocked
+    @Transactional
+    public void onStockChanged(List<StockChange> changes) {
+        List<Object[]> raised = new ArrayList<>();
+        List<Object[]> cleared = new ArrayList<>();
+
+        for (StockChange change : changes) {
+            boolean wasLow = change.getBefore() < change.getReorderThreshold();
+            boolean isLow = change.getAfter() < change.getReorderThreshold();
+            if (isLow) {
+                raised.add(new Object[]{change.getProductId(), change.getAfter(), change.getReorderThreshold()});
+                if (!wasLow) {
+                    logger.warn("Product {} fell below its reorder threshold: {} < {}",
+                            change.getProductId(), change.getAfter(), change.getReorderThreshold());
+                }
+            } else if (wasLow) {
+                cleared.add(new Object[]{change.getProductId()});
+            }
+        }
+
+        if (!raised.isEmpty()) {
+            jdbcTemplate.batchUpdate(RAISE, raised);
+        }
+        if (!cleared.isEmpty()) {
+            jdbcTemplate.batchUpdate(CLEAR, cleared);
+        }
+    }
+
+    // For product edits, where the threshold itself may have moved
+    @Transactional
+    public void onProductSaved(Product product, int stockBefore, int thresholdBefore) {
+        boolean wasLow = stockBefore < thresholdBefore;
+        boolean isLow = product.getStockQuantity() < product.getReorderThreshold();
+        if (isLow) {
+            jdbcTemplate.update(RAISE, product.getId(), product.getStockQuantity(), product.getReorderThreshold());
+        } else if (wasLow) {
+            jdbcTemplate.update(CLEAR, product.getId());
+        }
+    }
+
+    @Transactional
+    public void onProductDeleted(Long productId) {
+        jdbcTemplate.update(CLEAR, productId);
+    }
+
+    // Reconciles the alert set with the catalog once at startup, e.g. after the table is first created
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void reconcile() {
+        jdbcTemplate.update("DELETE FROM low_stock_alerts a USING products p " +
+                "WHERE p.id = a.product_id AND p.stock_quantity >= p.reorder_threshold");
+        jdbcTemplate.update("DELETE FROM low_stock_alerts a " +
+                "WHERE NOT EXISTS (SELECT 1 FROM products p WHERE p.id = a.product_id)");
+        int raised = jdbcTemplate.update(
+                "INSERT INTO low_stock_alerts (product_id, stock_quantity, reorder_threshold, raised_at) " +
+                "SELECT id, stock_quantity, reorder_threshold, now() FROM products " +
+                "WHERE stock_quantity < reorder_threshold ON CONFLICT (product_id) DO UPDATE SET " +
+                "stock_quantity = EXCLUDED.stock_quantity, reorder_threshold = EXCLUDED.reorder_threshold");
+        logger.info("Low stock alerts reconciled, {} products below threshold", raised);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Invoice.InvoiceStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class OverdueInvoiceJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(OverdueInvoiceJob.class);
+
+    private static final String MARK_OVERDUE_CHUNK_SQL =
+            "UPDATE invoices i SET status = 'OVERDUE' FROM (" +
+            "SELECT id, status FROM invoices WHERE status IN ('PENDING', 'SENT') AND due_date < ? " +
+            "LIMIT ? FOR UPDATE SKIP LOCKED) old " +
+            "WHERE i.id = old.id RETURNING i.id, old.status";
+
+    // Cluster-wide key for pg_try_advisory_lock so only one node sweeps at a time
+    private static final long LOCK_KEY = 0x4F56455244554FL;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private AgingReportService agingReportService;
+
+    @Autowired
+    private ActivityLogService activityLogService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.invoices.overdue-sweep.chunk-size:1000}")
+    private int chunkSize;
+
+    @Scheduled(cron = "${app.invoices.overdue-sweep.cron:0 15 0 * * *}")
+    public void sweep() {
+        // The advisory lock is session scoped, so it is held on this connection while
+        // each chunk commits in its own short transaction on another one
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+                logger.info("Overdue sweep already running on another node, skipping");
+                return null;
+            }
+            try {
+                markOverdue(LocalDate.now());
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+            }
+            return null;
+        });
+    }
+
+    private void markOverdue(LocalDate today) {
+        int total = 0;
+        int updated;
+        do {
+            Integer chunk = transactionTemplate.execute(status -> markOverdueChunk(today));
+            updated = chunk != null ? chunk : 0;
+            total += updated;
+        } while (updated == chunkSize);
+
+        if (total > 0) {
+            agingReportService.invalidate();
+            activityLogService.logSystem("STATUS_CHANGE", "INVOICE",
+                String.format("Marked %d invoices past their due date as OVERDUE", total));
+        }
+        logger.info("Overdue sweep marked {} invoices", total);
+    }
+
+    private int markOverdueChunk(LocalDate today) {
+        Map<InvoiceStatus, List<Long>> idsByOldStatus = new EnumMap<>(InvoiceStatus.class);
+        jdbcTemplate.query(MARK_OVERDUE_CHUNK_SQL, (RowCallbackHandler) rs -> idsByOldStatus
+                .computeIfAbsent(InvoiceStatus.valueOf(rs.getString(2)), status -> new ArrayList<>())
+                .add(rs.getLong(1)), Date.valueOf(today), chunkSize);
+
+        int updated = 0;
+        for (Map.Entry<InvoiceStatus, List<Long>> entry : idsByOldStatus.entrySet()) {
+            revenueRollupService.moveStatus(entry.getValue(), entry.getKey(), InvoiceStatus.OVERDUE);
+            updated += entry.getValue().size();
+        }
+        return updated;
+    }
+
+    private boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, LOCK_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+}
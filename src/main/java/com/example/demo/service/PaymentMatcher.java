@@ -0,0 +1,205 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Payment.MatchType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Open invoices of one import, indexed by normalized number, digits of the number, remaining
+// amount in cents and client so each statement line is matched with a few hash lookups.
+// Remaining amounts are tracked as lines match; the database re-checks them when applying.
+class PaymentMatcher {
+
+    // Tokens that look like an invoice number, e.g. INV-2024-0042, FAC 000123, F2024/17
+    private static final Pattern NUMBER_TOKEN = Pattern.compile("[A-Za-z]{1,6}[-_/ .]?\\d[\\d_/.-]*");
+    private static final Pattern DIGITS = Pattern.compile("\\d{3,}");
+
+    // Marks a key shared by several invoices, which the fuzzy lookups must not guess between
+    private static final OpenInvoice AMBIGUOUS = new OpenInvoice(-1, null, null, 0);
+    private static final Long AMBIGUOUS_CLIENT = -1L;
+
+    static final class OpenInvoice {
+        final long id;
+        final String number;
+        final Long clientId;
+        long remainingCents;
+
+        OpenInvoice(long id, String number, Long clientId, long remainingCents) {
+            this.id = id;
+            this.number = number;
+            this.clientId = clientId;
+            this.remainingCents = remainingCents;
+        }
+    }
+
+    static final class Match {
+        final OpenInvoice invoice;
+        final MatchType type;
+
+        Match(OpenInvoice invoice, MatchType type) {
+            this.invoice = invoice;
+            this.type = type;
+        }
+    }
+
+    private final Map<String, OpenInvoice> byNumber = new HashMap<>();
+    private final Map<String, OpenInvoice> byDigits = new HashMap<>();
+    private final Map<Long, List<OpenInvoice>> byAmount = new HashMap<>();
+    private final Map<Long, Map<Long, List<OpenInvoice>>> byClientAmount = new HashMap<>();
+    private final Map<String, Long> clientsByName = new HashMap<>();
+
+    static PaymentMatcher load(JdbcTemplate jdbcTemplate) {
+        PaymentMatcher matcher = new PaymentMatcher();
+        jdbcTemplate.query(
+                "SELECT id, invoice_number, client_id, total_amount - amount_paid FROM invoices " +
+                "WHERE status IN ('PENDING', 'SENT', 'OVERDUE') AND total_amount > amount_paid",
+                (RowCallbackHandler) rs -> {
+                    long clientId = rs.getLong(3);
+                    matcher.add(new OpenInvoice(rs.getLong(1), rs.getString(2), rs.wasNull() ? null : clientId,
+                            toCents(rs.getBigDecimal(4))));
+                });
+        jdbcTemplate.query("SELECT id, name, company_name FROM clients",
+                (RowCallbackHandler) rs -> {
+                    matcher.addClientName(rs.getString(2), rs.getLong(1));
+                    matcher.addClientName(rs.getString(3), rs.getLong(1));
+                });
+        return matcher;
+    }
+
+    int size() {
+        return byNumber.size();
+    }
+
+    // Exact invoice number in the reference, then a number whose digits alone identify one
+    // invoice, then the payer's client with an open invoice of exactly that amount, then an
+    // amount no other open invoice shares
+    Match match(StatementLine line) {
+        long cents = toCents(line.amount);
+        String reference = line.reference != null ? line.reference : "";
+
+        Matcher tokens = NUMBER_TOKEN.matcher(reference);
+        while (tokens.find()) {
+            OpenInvoice invoice = byNumber.get(normalizeNumber(tokens.group()));
+            if (invoice != null && invoice.remainingCents > 0) {
+                return apply(invoice, cents, MatchType.INVOICE_NUMBER);
+            }
+        }
+
+        // Digits could be anything in free text, so only accept them when the amount fits
+        Matcher digits = DIGITS.matcher(reference);
+        while (digits.find()) {
+            OpenInvoice invoice = byDigits.get(stripZeros(digits.group()));
+            if (invoice != null && invoice != AMBIGUOUS && invoice.remainingCents >= cents) {
+                return apply(invoice, cents, MatchType.FUZZY_NUMBER);
+            }
+        }
+
+        Long clientId = line.counterparty != null ? clientsByName.get(normalizeName(line.counterparty)) : null;
+        if (clientId != null && !AMBIGUOUS_CLIENT.equals(clientId)) {
+            OpenInvoice invoice = first(byClientAmount.getOrDefault(clientId, Collections.emptyMap()).get(cents), cents);
+            if (invoice != null) {
+                return apply(invoice, cents, MatchType.CLIENT_AMOUNT);
+            }
+        }
+
+        OpenInvoice invoice = unique(byAmount.get(cents), cents);
+        if (invoice != null) {
+            return apply(invoice, cents, MatchType.AMOUNT);
+        }
+        return null;
+    }
+
+    // Gives back a match the database refused, e.g. because the invoice was paid meanwhile
+    void release(Match match) {
+        match.invoice.remainingCents = 0;
+    }
+
+    private Match apply(OpenInvoice invoice, long cents, MatchType type) {
+        invoice.remainingCents -= cents;
+        // A partial payment leaves the invoice findable under its new remaining amount
+        if (invoice.remainingCents > 0) {
+            indexAmount(invoice);
+        }
+        return new Match(invoice, type);
+    }
+
+    void add(OpenInvoice invoice) {
+        byNumber.put(normalizeNumber(invoice.number), invoice);
+        String digits = stripZeros(invoice.number.replaceAll("\\D", ""));
+        if (!digits.isEmpty()) {
+            byDigits.merge(digits, invoice, (a, b) -> AMBIGUOUS);
+        }
+        indexAmount(invoice);
+    }
+
+    private void indexAmount(OpenInvoice invoice) {
+        byAmount.computeIfAbsent(invoice.remainingCents, c -> new ArrayList<>(1)).add(invoice);
+        if (invoice.clientId != null) {
+            byClientAmount.computeIfAbsent(invoice.clientId, c -> new HashMap<>())
+                    .computeIfAbsent(invoice.remainingCents, c -> new ArrayList<>(1)).add(invoice);
+        }
+    }
+
+    void addClientName(String name, long clientId) {
+        if (name == null || name.trim().isEmpty()) {
+            return;
+        }
+        clientsByName.merge(normalizeName(name), clientId, (a, b) -> a.equals(b) ? a : AMBIGUOUS_CLIENT);
+    }
+
+    // Entries go stale once an invoice is paid down, so candidates are re-checked on lookup
+    private static OpenInvoice first(List<OpenInvoice> candidates, long cents) {
+        if (candidates != null) {
+            for (OpenInvoice invoice : candidates) {
+                if (invoice.remainingCents == cents) {
+                    return invoice;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static OpenInvoice unique(List<OpenInvoice> candidates, long cents) {
+        OpenInvoice found = null;
+        if (candidates != null) {
+            for (OpenInvoice invoice : candidates) {
+                if (invoice.remainingCents == cents) {
+                    if (found != null && found != invoice) {
+                        return null;
+                    }
+                    found = invoice;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static String normalizeNumber(String number) {
+        return number.replaceAll("[^A-Za-z0-9]", "").toUpperCase(Locale.ROOT);
+    }
+
+    private static String normalizeName(String name) {
+        return name.replaceAll("[^\\p{L}\\p{N}]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String stripZeros(String digits) {
+        int i = 0;
+        while (i < digits.length() - 1 && digits.charAt(i) == '0') {
+            i++;
+        }
+        return digits.substring(i);
+    }
+
+    static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValue();
+    }
+}
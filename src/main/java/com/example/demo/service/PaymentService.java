@@ -0,0 +1,309 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentRequest;
+import com.example.demo.entity.Invoice.InvoiceStatus;
+import com.example.demo.entity.Payment;
+import com.example.demo.entity.PaymentImport;
+import com.example.demo.repository.PaymentImportRepository;
+import com.example.demo.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class PaymentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
+
+    // Adds the payments to the locked open invoices, marking those now fully paid as PAID
+    private static final String APPLY_SQL =
+            "UPDATE invoices i SET amount_paid = old.amount_paid + d.amount, " +
+            "status = CASE WHEN old.amount_paid + d.amount >= old.total_amount THEN 'PAID' ELSE old.status END " +
+            "FROM (SELECT id, status, amount_paid, total_amount FROM invoices " +
+            "WHERE id = ANY(?::bigint[]) AND status IN ('PENDING', 'SENT', 'OVERDUE') ORDER BY id FOR UPDATE) old, " +
+            "unnest(?::bigint[], ?::text[]::numeric[]) AS d(id, amount) " +
+            "WHERE i.id = old.id AND d.id = old.id " +
+            "RETURNING i.id, i.client_id, old.status, i.status, old.amount_paid, i.amount_paid, i.total_amount";
+
+    private static final String INSERT_PAYMENT =
+            "INSERT INTO payments (invoice_id, amount, payment_date, reference, counterparty, match_type, import_id, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_UNMATCHED =
+            "INSERT INTO unmatched_statement_lines (import_id, line_number, booking_date, amount, reference, counterparty, reason) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentImportRepository paymentImportRepository;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private ClientSummaryService clientSummaryService;
+
+    @Autowired
+    private AgingReportService agingReportService;
+
+    // Statement lines applied per transaction
+    @Value("${app.payments.batch-size:500}")
+    private int batchSize;
+
+    // Directory server-side statement files may be imported from; empty disables it
+    @Value("${app.payments.import-dir:}")
+    private String importDir;
+
+    @Transactional
+    public Payment recordPayment(Long invoiceId, PaymentRequest request) {
+        Map<Long, BigDecimal> amounts = new LinkedHashMap<>();
+        amounts.put(invoiceId, request.getAmount());
+        if (applyToInvoices(amounts).isEmpty()) {
+            throw new RuntimeException("Invoice " + invoiceId + " not found or not open for payment");
+        }
+        agingReportService.invalidate();
+
+        Payment payment = new Payment();
+        payment.setInvoiceId(invoiceId);
+        payment.setAmount(request.getAmount());
+        payment.setPaymentDate(request.getPaymentDate());
+        payment.setReference(request.getReference());
+        payment.setMatchType(Payment.MatchType.MANUAL);
+        return paymentRepository.save(payment);
+    }
+
+    public List<Payment> getInvoicePayments(Long invoiceId) {
+        return paymentRepository.findByInvoiceIdOrderByPaymentDateAscIdAsc(invoiceId);
+    }
+
+    public PaymentImport importLocalFile(String fileName, String format, String username) throws IOException {
+        if (importDir == null || importDir.isEmpty()) {
+            throw new RuntimeException("Server-side statement import is not enabled");
+        }
+        Path base = Paths.get(importDir).toAbsolutePath().normalize();
+        Path file = base.resolve(fileName).normalize();
+        if (!file.startsWith(base) || !Files.isRegularFile(file)) {
+            throw new RuntimeException("Statement file not found: " + fileName);
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return importStatement(in, file.getFileName().toString(), format, username);
+        }
+    }
+
+    // Streams the statement through the matcher and applies matched credits in batches, each
+    // batch in its own transaction so a large file never holds locks for the whole import
+    public PaymentImport importStatement(InputStream in, String fileName, String format, String username) throws IOException {
+        long started = System.currentTimeMillis();
+        String resolvedFormat = resolveFormat(fileName, format);
+
+        PaymentImport summary = new PaymentImport();
+        summary.setFileName(fileName);
+        summary.setFormat(resolvedFormat);
+        summary.setImportedBy(username);
+        summary.setStartedAt(LocalDateTime.now());
+        summary = paymentImportRepository.save(summary);
+
+        PaymentMatcher matcher = PaymentMatcher.load(jdbcTemplate);
+        logger.info("Payment import {} matching {} against {} open invoices", summary.getId(), fileName, matcher.size());
+
+        Batch batch = new Batch(summary, matcher);
+        try {
+            StatementReader.forFormat(resolvedFormat).read(in, line -> {
+                batch.add(line);
+                if (batch.size() >= batchSize) {
+                    batch.flush();
+                }
+            });
+            batch.flush();
+        } catch (IOException | RuntimeException e) {
+            // Batches already flushed stay applied; the summary records where the import stopped
+            summary.setError(truncate(e.getMessage(), 500));
+            throw e;
+        } finally {
+            if (summary.getMatchedLines() > 0) {
+                agingReportService.invalidate();
+            }
+            summary.setDurationMs(System.currentTimeMillis() - started);
+            summary.setFinishedAt(LocalDateTime.now());
+            paymentImportRepository.save(summary);
+            logger.info("Payment import {}: {} lines, {}/{} credits matched in {} ms", summary.getId(),
+                    summary.getTotalLines(), summary.getMatchedLines(), summary.getCreditLines(), summary.getDurationMs());
+        }
+        return summary;
+    }
+
+    // Applies the aggregated amounts to the invoices still open and keeps the rollups and client
+    // summaries in step; returns the invoices that took their payment
+    private Set<Long> applyToInvoices(Map<Long, BigDecimal> amounts) {
+        Set<Long> applied = new HashSet<>();
+        if (amounts.isEmpty()) {
+            return applied;
+        }
+        Long[] ids = amounts.keySet().toArray(new Long[0]);
+        // The driver binds no BigDecimal arrays, so amounts travel as text and are cast to numeric
+        String[] values = amounts.values().stream().map(BigDecimal::toPlainString).toArray(String[]::new);
+        Map<InvoiceStatus, List<Long>> paidBySource = new EnumMap<>(InvoiceStatus.class);
+        ClientBalanceDelta balances = new ClientBalanceDelta();
+
+        jdbcTemplate.query(APPLY_SQL, (RowCallbackHandler) rs -> {
+            long id = rs.getLong(1);
+            long clientId = rs.getLong(2);
+            boolean hasClient = !rs.wasNull();
+            InvoiceStatus from = InvoiceStatus.valueOf(rs.getString(3));
+            InvoiceStatus to = InvoiceStatus.valueOf(rs.getString(4));
+            applied.add(id);
+            if (to != from) {
+                paidBySource.computeIfAbsent(from, s -> new ArrayList<>()).add(id);
+            }
+            if (hasClient) {
+                balances.move(clientId, rs.getBigDecimal(7), rs.getBigDecimal(5), rs.getBigDecimal(6), from, to);
+            }
+        }, ids, ids, values);
+
+        paidBySource.forEach((from, paid) -> revenueRollupService.moveStatus(paid, from, InvoiceStatus.PAID));
+        clientSummaryService.apply(balances);
+        return applied;
+    }
+
+    private static String resolveFormat(String fileName, String format) {
+        if (format != null && !format.isEmpty()) {
+            return format.toUpperCase(Locale.ROOT);
+        }
+        return fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".xml") ? "CAMT" : "CSV";
+    }
+
+    private static String truncate(String value, int length) {
+        return value != null && value.length() > length ? value.substring(0, length) : value;
+    }
+
+    // Statement lines read since the last flush, with the matcher's verdict on each credit
+    private class Batch {
+        private final PaymentImport summary;
+        private final PaymentMatcher matcher;
+        private final List<StatementLine> lines = new ArrayList<>();
+        private final List<PaymentMatcher.Match> matches = new ArrayList<>();
+
+        Batch(PaymentImport summary, PaymentMatcher matcher) {
+            this.summary = summary;
+            this.matcher = matcher;
+        }
+
+        void add(StatementLine line) {
+            summary.setTotalLines(summary.getTotalLines() + 1);
+            if (!line.credit || line.amount.signum() <= 0) {
+                return;
+            }
+            summary.setCreditLines(summary.getCreditLines() + 1);
+            lines.add(line);
+            matches.add(matcher.match(line));
+        }
+
+        int size() {
+            return lines.size();
+        }
+
+        void flush() {
+            if (lines.isEmpty()) {
+                return;
+            }
+            Set<Long> applied = transactionTemplate.execute(status -> {
+                Map<Long, BigDecimal> amounts = new LinkedHashMap<>();
+                for (int i = 0; i < lines.size(); i++) {
+                    if (matches.get(i) != null) {
+                        amounts.merge(matches.get(i).invoice.id, lines.get(i).amount, BigDecimal::add);
+                    }
+                }
+                Set<Long> took = applyToInvoices(amounts);
+
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                List<Object[]> payments = new ArrayList<>();
+                List<Object[]> unmatched = new ArrayList<>();
+                for (int i = 0; i < lines.size(); i++) {
+                    StatementLine line = lines.get(i);
+                    PaymentMatcher.Match match = matches.get(i);
+                    if (match != null && took.contains(match.invoice.id)) {
+                        payments.add(new Object[]{match.invoice.id, line.amount, Date.valueOf(line.bookingDate),
+                                truncate(line.reference, 500), truncate(line.counterparty, 255),
+                                match.type.name(), summary.getId(), now});
+                    } else {
+                        String reason = match == null
+                                ? "No matching open invoice"
+                                : "Invoice " + match.invoice.number + " no longer open";
+                        unmatched.add(new Object[]{summary.getId(), line.lineNumber, Date.valueOf(line.bookingDate),
+                                line.amount, truncate(line.reference, 500), truncate(line.counterparty, 255), reason});
+                    }
+                }
+                jdbcTemplate.batchUpdate(INSERT_PAYMENT, payments);
+                jdbcTemplate.batchUpdate(INSERT_UNMATCHED, unmatched);
+                return took;
+            });
+
+            for (int i = 0; i < lines.size(); i++) {
+                PaymentMatcher.Match match = matches.get(i);
+                BigDecimal amount = lines.get(i).amount;
+                if (match != null && applied.contains(match.invoice.id)) {
+                    count(match.type, amount);
+                } else {
+                    if (match != null) {
+                        matcher.release(match);
+                    }
+                    summary.setUnmatchedLines(summary.getUnmatchedLines() + 1);
+                    summary.setUnmatchedAmount(summary.getUnmatchedAmount().add(amount));
+                }
+            }
+            lines.clear();
+            matches.clear();
+        }
+
+        private void count(Payment.MatchType type, BigDecimal amount) {
+            summary.setMatchedLines(summary.getMatchedLines() + 1);
+            summary.setMatchedAmount(summary.getMatchedAmount().add(amount));
+            switch (type) {
+                case INVOICE_NUMBER:
+                    summary.setByInvoiceNumber(summary.getByInvoiceNumber() + 1);
+                    break;
+                case FUZZY_NUMBER:
+                    summary.setByFuzzyNumber(summary.getByFuzzyNumber() + 1);
+                    break;
+                case CLIENT_AMOUNT:
+                    summary.setByClientAmount(summary.getByClientAmount() + 1);
+                    break;
+                default:
+                    summary.setByAmount(summary.getByAmount() + 1);
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.PricingRule;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Immutable snapshot of the active pricing rules, indexed by product id, category and client. Built
+// once per rule change and shared by all invoice threads; evaluating a line is a few map lookups and
+// short array scans, with no database access and nothing allocated.
+public final class PricingRules {
+
+    // Within one index bucket: client-specific first, then priority, then the larger quantity break
+    private static final Comparator<Rule> PRECEDENCE = Comparator
+            .comparing((Rule rule) -> rule.clientId == null)
+            .thenComparing(rule -> -rule.priority)
+            .thenComparing(rule -> -rule.minQuantity)
+            .thenComparing(rule -> rule.id);
+
+    static final PricingRules EMPTY = compile(Collections.emptyList());
+
+    private final Index discounts;
+    private final Index taxes;
+    private final int size;
+
+    private PricingRules(Index discounts, Index taxes, int size) {
+        this.discounts = discounts;
+        this.taxes = taxes;
+        this.size = size;
+    }
+
+    static PricingRules compile(List<PricingRule> rules) {
+        List<PricingRule> discountRules = new ArrayList<>();
+        List<PricingRule> taxRules = new ArrayList<>();
+        for (PricingRule rule : rules) {
+            if (!Boolean.TRUE.equals(rule.getActive())) {
+                continue;
+            }
+            (rule.getKind() == PricingRule.Kind.TAX ? taxRules : discountRules).add(rule);
+        }
+        return new PricingRules(Index.build(discountRules), Index.build(taxRules), discountRules.size() + taxRules.size());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Fills the result with the winning discount and tax for one line; null rates mean no rule applies
+    void evaluate(Long clientId, Long productId, String category, int quantity, LinePricing result) {
+        Rule discount = discounts.match(clientId, productId, category, quantity);
+        result.discountRate = discount != null ? discount.rate : null;
+        result.discountRuleId = discount != null ? discount.id : null;
+
+        Rule tax = taxes.match(clientId, productId, category, quantity);
+        result.taxRate = tax != null ? tax.rate : null;
+        result.taxRuleId = tax != null ? tax.id : null;
+    }
+
+    private static final class Rule {
+        final Long id;
+        final Long clientId;
+        final String category;
+        final int minQuantity;
+        final int priority;
+        final BigDecimal rate;
+
+        Rule(PricingRule rule) {
+            this.id = rule.getId();
+            this.clientId = rule.getClientId();
+            this.category = rule.getCategory();
+            this.minQuantity = rule.getMinQuantity() != null ? rule.getMinQuantity() : 1;
+            this.priority = rule.getPriority() != null ? rule.getPriority() : 0;
+            this.rate = rule.getRate();
+        }
+
+        boolean matches(Long clientId, String category, int quantity) {
+            return quantity >= minQuantity
+                    && (this.clientId == null || this.clientId.equals(clientId))
+                    && (this.category == null || this.category.equals(category));
+        }
+    }
+
+    // Product rules beat category rules, which beat rules scoped to a client only, which beat rules
+    // scoped to nothing
+    private static final class Index {
+        final Map<Long, Rule[]> byProduct;
+        final Map<String, Rule[]> byCategory;
+        final Map<Long, Rule[]> byClient;
+        final Rule[] global;
+
+        private Index(Map<Long, Rule[]> byProduct, Map<String, Rule[]> byCategory, Map<Long, Rule[]> byClient,
+                      Rule[] global) {
+            this.byProduct = byProduct;
+            this.byCategory = byCategory;
+            this.byClient = byClient;
+            this.global = global;
+        }
+
+        static Index build(List<PricingRule> rules) {
+            Map<Long, List<Rule>> byProduct = new HashMap<>();
+            Map<String, List<Rule>> byCategory = new HashMap<>();
+            Map<Long, List<Rule>> byClient = new HashMap<>();
+            List<Rule> global = new ArrayList<>();
+            for (PricingRule rule : rules) {
+                if (rule.getProductId() != null) {
+                    byProduct.computeIfAbsent(rule.getProductId(), k -> new ArrayList<>()).add(new Rule(rule));
+                } else if (rule.getCategory() != null) {
+                    byCategory.computeIfAbsent(rule.getCategory(), k -> new ArrayList<>()).add(new Rule(rule));
+                } else if (rule.getClientId() != null) {
+                    byClient.computeIfAbsent(rule.getClientId(), k -> new ArrayList<>()).add(new Rule(rule));
+                } else {
+                    global.add(new Rule(rule));
+                }
+            }
+            return new Index(freeze(byProduct), freeze(byCategory), freeze(byClient), sorted(global));
+        }
+
+        Rule match(Long clientId, Long productId, String category, int quantity) {
+            Rule rule = first(productId != null ? byProduct.get(productId) : null, clientId, category, quantity);
+            if (rule == null && category != null) {
+                rule = first(byCategory.get(category), clientId, category, quantity);
+            }
+            if (rule == null && clientId != null) {
+                rule = first(byClient.get(clientId), clientId, category, quantity);
+            }
+            if (rule == null) {
+                rule = first(global, clientId, category, quantity);
+            }
+            return rule;
+        }
+
+        private static Rule first(Rule[] rules, Long clientId, String category, int quantity) {
+            if (rules == null) {
+                return null;
+            }
+            for (Rule rule : rules) {
+                if (rule.matches(clientId, category, quantity)) {
+                    return rule;
+                }
+            }
+            return null;
+        }
+
+        private static <K> Map<K, Rule[]> freeze(Map<K, List<Rule>> buckets) {
+            Map<K, Rule[]> frozen = new HashMap<>();
+            buckets.forEach((key, rules) -> frozen.put(key, sorted(rules)));
+            return Collections.unmodifiableMap(frozen);
+        }
+
+        private static Rule[] sorted(List<Rule> rules) {
+            Rule[] array = rules.toArray(new Rule[0]);
+            Arrays.sort(array, PRECEDENCE);
+            return array;
+        }
+    }
+}
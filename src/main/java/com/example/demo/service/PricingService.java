@@ -0,0 +1,90 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.PricingRule;
+import com.example.demo.repository.PricingRuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Objects;
+
+@Service
+public class PricingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PricingService.class);
+
+    // Changes whenever a rule is added, edited or removed on any node
+    private static final String FINGERPRINT_SQL =
+            "SELECT count(*) || ':' || COALESCE(CAST(max(updated_at) AS varchar), '') FROM pricing_rules";
+
+    @Autowired
+    private PricingRuleRepository pricingRuleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile PricingRules rules = PricingRules.EMPTY;
+
+    private volatile String fingerprint;
+
+    // Invoices take one snapshot and price every line against it
+    public PricingRules current() {
+        return rules;
+    }
+
+    public List<PricingRule> getAllRules() {
+        return pricingRuleRepository.findAllByOrderByKindAscPriorityDescIdAsc();
+    }
+
+    @Transactional
+    public PricingRule save(PricingRule rule) {
+        PricingRule saved = pricingRuleRepository.save(rule);
+        reloadAfterCommit();
+        return saved;
+    }
+
+    @Transactional
+    public void delete(PricingRule rule) {
+        pricingRuleRepository.delete(rule);
+        reloadAfterCommit();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        String current = jdbcTemplate.queryForObject(FINGERPRINT_SQL, String.class);
+        PricingRules compiled = PricingRules.compile(pricingRuleRepository.findByActiveTrue());
+        rules = compiled;
+        fingerprint = current;
+        logger.info("Compiled {} active pricing rules", compiled.size());
+    }
+
+    // Picks up rule changes made through other instances
+    @Scheduled(fixedDelayString = "${app.pricing.refresh-ms:30000}", initialDelayString = "${app.pricing.refresh-ms:30000}")
+    public void refreshIfChanged() {
+        if (!Objects.equals(fingerprint, jdbcTemplate.queryForObject(FINGERPRINT_SQL, String.class))) {
+            reload();
+        }
+    }
+
+    private void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import java.util.Arrays;
+
+// Open-addressing map from product id to (units, revenue in cents) that never boxes keys or values
+class ProductCounters {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private long[] units;
+    private long[] cents;
+    private int size;
+
+    ProductCounters() {
+        this(64);
+    }
+
+    private ProductCounters(int capacity) {
+        keys = new long[capacity];
+        units = new long[capacity];
+        cents = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    void add(long productId, long unitDelta, long centDelta) {
+        if ((size + 1) * 4 > keys.length * 3) {
+            grow();
+        }
+        int slot = slot(productId);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = productId;
+            size++;
+        }
+        units[slot] += unitDelta;
+        cents[slot] += centDelta;
+    }
+
+    void addAll(ProductCounters other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                add(other.keys[i], other.units[i], other.cents[i]);
+            }
+        }
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    boolean isUsed(int slot) {
+        return keys[slot] != EMPTY && units[slot] != 0;
+    }
+
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    long unitsAt(int slot) {
+        return units[slot];
+    }
+
+    long centsAt(int slot) {
+        return cents[slot];
+    }
+
+    // The used slots with the most units (or revenue), largest first. A min-heap of the best
+    // limit seen so far keeps this at n log(limit) without sorting every product.
+    int[] topSlots(int limit, boolean byUnits) {
+        long[] values = byUnits ? units : cents;
+        int[] heap = new int[Math.min(limit, size)];
+        int count = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (!isUsed(slot)) {
+                continue;
+            }
+            if (count < heap.length) {
+                heap[count] = slot;
+                siftUp(heap, count++, values);
+            } else if (count > 0 && values[slot] > values[heap[0]]) {
+                heap[0] = slot;
+                siftDown(heap, 0, count, values);
+            }
+        }
+        // Moving the smallest to the end one by one leaves the slots in descending order
+        for (int end = count - 1; end > 0; end--) {
+            int smallest = heap[0];
+            heap[0] = heap[end];
+            heap[end] = smallest;
+            siftDown(heap, 0, end, values);
+        }
+        return Arrays.copyOf(heap, count);
+    }
+
+    private static void siftUp(int[] heap, int index, long[] values) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (values[heap[parent]] <= values[heap[index]]) {
+                return;
+            }
+            int swap = heap[parent];
+            heap[parent] = heap[index];
+            heap[index] = swap;
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int index, int count, long[] values) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < count && values[heap[left]] < values[heap[smallest]]) {
+                smallest = left;
+            }
+            if (right < count && values[heap[right]] < values[heap[smallest]]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            int swap = heap[smallest];
+            heap[smallest] = heap[index];
+            heap[index] = swap;
+            index = smallest;
+        }
+    }
+
+    private int slot(long productId) {
+        int mask = keys.length - 1;
+        int slot = Long.hashCode(productId * 0x9E3779B97F4A7C15L) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != productId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        ProductCounters bigger = new ProductCounters(keys.length * 2);
+        bigger.addAll(this);
+        keys = bigger.keys;
+        units = bigger.units;
+        cents = bigger.cents;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Invoice;
+import com.example.demo.entity.InvoiceItem;
+import com.example.demo.entity.RevenueDaily;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+// Net change to the revenue rollups caused by one invoice write, keyed by (day, product, status)
+public class RevenueDelta {
+
+    private final Map<RevenueDaily.Key, Totals> totals = new HashMap<>();
+
+    public void add(Invoice invoice) {
+        apply(invoice, 1);
+    }
+
+    public void subtract(Invoice invoice) {
+        apply(invoice, -1);
+    }
+
+    private void apply(Invoice invoice, int sign) {
+        for (InvoiceItem item : invoice.getItems()) {
+            RevenueDaily.Key key = new RevenueDaily.Key(invoice.getInvoiceDate(), item.getProduct().getId(), invoice.getStatus());
+            Totals line = totals.computeIfAbsent(key, k -> new Totals());
+
+            BigDecimal revenue = item.getSubtotal().subtract(InvoiceService.lineDiscount(item));
+            BigDecimal tax = InvoiceService.lineTax(item, invoice.getTaxRate());
+            if (sign < 0) {
+                revenue = revenue.negate();
+                tax = tax.negate();
+            }
+            line.revenue = line.revenue.add(revenue);
+            line.tax = line.tax.add(tax);
+            line.units += (long) sign * item.getQuantity();
+        }
+    }
+
+    // For changes computed in SQL rather than from loaded invoices
+    void addLine(RevenueDaily.Key key, BigDecimal revenue, BigDecimal tax, long units) {
+        Totals line = totals.computeIfAbsent(key, k -> new Totals());
+        line.revenue = line.revenue.add(revenue);
+        line.tax = line.tax.add(tax);
+        line.units += units;
+    }
+
+    Map<RevenueDaily.Key, Totals> nonZero() {
+        Map<RevenueDaily.Key, Totals> result = new HashMap<>();
+        totals.forEach((key, line) -> {
+            if (!line.isZero()) {
+                result.put(key, line);
+            }
+        });
+        return result;
+    }
+
+    static class Totals {
+        BigDecimal revenue = BigDecimal.ZERO;
+        BigDecimal tax = BigDecimal.ZERO;
+        long units;
+
+        boolean isZero() {
+            return units == 0 && revenue.signum() == 0 && tax.signum() == 0;
+        }
+    }
+}
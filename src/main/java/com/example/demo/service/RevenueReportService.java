@@ -0,0 +1,220 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.RevenueReportRow;
+import com.example.demo.entity.Invoice.InvoiceStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+
+@Service
+public class RevenueReportService {
+
+    public enum Granularity { DAY, MONTH, TOTAL }
+
+    public enum GroupBy { NONE, PRODUCT, CATEGORY, STATUS }
+
+    // Size of one unit of parallel work: a month of daily buckets or a year of monthly ones
+    private static final int DAYS_PER_SEGMENT = 31;
+    private static final int MONTHS_PER_SEGMENT = 12;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.reports.parallelism:4}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void startPool() {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    void stopPool() {
+        pool.shutdown();
+    }
+
+    // Full months are read from revenue_monthly, partial months at either end from revenue_daily
+    public List<RevenueReportRow> revenue(LocalDate from, LocalDate to, Granularity granularity,
+                                          GroupBy groupBy, List<InvoiceStatus> statuses) {
+        List<Segment> segments = new ArrayList<>();
+
+        if (granularity == Granularity.DAY) {
+            addSegments(segments, false, from, to);
+        } else {
+            LocalDate firstFullMonth = from.getDayOfMonth() == 1 ? from : from.plusMonths(1).withDayOfMonth(1);
+            LocalDate afterLastFullMonth = to.plusDays(1).withDayOfMonth(1);
+
+            if (!firstFullMonth.isBefore(afterLastFullMonth)) {
+                addSegments(segments, false, from, to);
+            } else {
+                if (from.isBefore(firstFullMonth)) {
+                    addSegments(segments, false, from, firstFullMonth.minusDays(1));
+                }
+                addSegments(segments, true, firstFullMonth, afterLastFullMonth.minusMonths(1));
+                if (!to.isBefore(afterLastFullMonth)) {
+                    addSegments(segments, false, afterLastFullMonth, to);
+                }
+            }
+        }
+
+        Query query = new Query(granularity, groupBy, statuses);
+        Map<List<Object>, RevenueReportRow> merged = segments.size() == 1
+                ? query.run(segments.get(0))
+                : pool.invoke(new SegmentTask(query, segments, 0, segments.size()));
+
+        return merged.values().stream()
+                .sorted(Comparator.comparing(RevenueReportRow::getPeriod, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(RevenueReportRow::getRevenue, Comparator.reverseOrder()))
+                .collect(Collectors.toList());
+    }
+
+    private void addSegments(List<Segment> segments, boolean monthly, LocalDate from, LocalDate to) {
+        LocalDate start = from;
+        while (!start.isAfter(to)) {
+            LocalDate end = monthly ? start.plusMonths(MONTHS_PER_SEGMENT - 1) : start.plusDays(DAYS_PER_SEGMENT - 1);
+            if (end.isAfter(to)) {
+                end = to;
+            }
+            segments.add(new Segment(monthly, start, end));
+            start = monthly ? end.plusMonths(1) : end.plusDays(1);
+        }
+    }
+
+    private static class Segment {
+        final boolean monthly;
+        final LocalDate from;
+        final LocalDate to;
+
+        Segment(boolean monthly, LocalDate from, LocalDate to) {
+            this.monthly = monthly;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private class SegmentTask extends RecursiveTask<Map<List<Object>, RevenueReportRow>> {
+        private final Query query;
+        private final List<Segment> segments;
+        private final int lo;
+        private final int hi;
+
+        SegmentTask(Query query, List<Segment> segments, int lo, int hi) {
+            this.query = query;
+            this.segments = segments;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Map<List<Object>, RevenueReportRow> compute() {
+            if (hi - lo == 1) {
+                return query.run(segments.get(lo));
+            }
+            int mid = (lo + hi) >>> 1;
+            SegmentTask left = new SegmentTask(query, segments, lo, mid);
+            left.fork();
+            Map<List<Object>, RevenueReportRow> result = new SegmentTask(query, segments, mid, hi).compute();
+            left.join().values().forEach(row -> addRow(result, row));
+            return result;
+        }
+    }
+
+    private class Query {
+        private final Granularity granularity;
+        private final GroupBy groupBy;
+        private final List<InvoiceStatus> statuses;
+
+        Query(Granularity granularity, GroupBy groupBy, List<InvoiceStatus> statuses) {
+            this.granularity = granularity;
+            this.groupBy = groupBy;
+            this.statuses = statuses;
+        }
+
+        Map<List<Object>, RevenueReportRow> run(Segment segment) {
+            String table = segment.monthly ? "revenue_monthly" : "revenue_daily";
+            String dateColumn = segment.monthly ? "r.bucket_month" : "r.bucket_date";
+
+            String period;
+            switch (granularity) {
+                case DAY:
+                    period = dateColumn;
+                    break;
+                case MONTH:
+                    period = segment.monthly ? dateColumn : "CAST(date_trunc('month', r.bucket_date) AS date)";
+                    break;
+                default:
+                    period = "CAST(NULL AS date)";
+            }
+
+            String key;
+            String label;
+            switch (groupBy) {
+                case PRODUCT:
+                    key = "CAST(r.product_id AS varchar)";
+                    label = "COALESCE(p.name, 'Deleted product')";
+                    break;
+                case CATEGORY:
+                    key = "COALESCE(p.category, 'Uncategorized')";
+                    label = key;
+                    break;
+                case STATUS:
+                    key = "r.status";
+                    label = key;
+                    break;
+                default:
+                    key = "'ALL'";
+                    label = key;
+            }
+
+            StringBuilder sql = new StringBuilder()
+                    .append("SELECT ").append(period).append(", ").append(key).append(", ").append(label)
+                    .append(", SUM(r.revenue), SUM(r.tax), SUM(r.units) FROM ").append(table).append(" r ");
+            if (groupBy == GroupBy.PRODUCT || groupBy == GroupBy.CATEGORY) {
+                sql.append("LEFT JOIN products p ON p.id = r.product_id ");
+            }
+            sql.append("WHERE ").append(dateColumn).append(" BETWEEN ? AND ? ");
+
+            List<Object> args = new ArrayList<>();
+            args.add(Date.valueOf(segment.from));
+            args.add(Date.valueOf(segment.to));
+            if (statuses != null && !statuses.isEmpty()) {
+                sql.append("AND r.status = ANY(?::varchar[]) ");
+                args.add(statuses.stream().map(Enum::name).toArray(String[]::new));
+            }
+            sql.append("GROUP BY 1, 2, 3");
+
+            Map<List<Object>, RevenueReportRow> rows = new LinkedHashMap<>();
+            jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> {
+                Date bucket = rs.getDate(1);
+                RevenueReportRow row = new RevenueReportRow(
+                        bucket != null ? bucket.toLocalDate() : null, rs.getString(2), rs.getString(3),
+                        rs.getBigDecimal(4), rs.getBigDecimal(5), rs.getLong(6));
+                addRow(rows, row);
+            }, args.toArray());
+            return rows;
+        }
+    }
+
+    private static void addRow(Map<List<Object>, RevenueReportRow> rows, RevenueReportRow row) {
+        rows.merge(Arrays.asList(row.getPeriod(), row.getKey()), row, (a, b) -> new RevenueReportRow(a.getPeriod(), a.getKey(),
+                a.getLabel(), a.getRevenue().add(b.getRevenue()), a.getTax().add(b.getTax()), a.getUnits() + b.getUnits()));
+    }
+}
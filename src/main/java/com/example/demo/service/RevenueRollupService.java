@@ -0,0 +1,138 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Invoice.InvoiceStatus;
+import com.example.demo.entity.RevenueDaily;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class RevenueRollupService {
+
+    private static final String UPSERT =
+            "INSERT INTO %1$s (%2$s, product_id, status, revenue, tax, units) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (%2$s, product_id, status) DO UPDATE SET " +
+            "revenue = %1$s.revenue + EXCLUDED.revenue, tax = %1$s.tax + EXCLUDED.tax, units = %1$s.units + EXCLUDED.units";
+
+    // Revenue is net of line discounts; lines from before per-line tax use the invoice rate
+    private static final String LINE_TAX =
+            "COALESCE(ii.tax_amount, ROUND((ii.subtotal - ii.discount) * COALESCE(i.tax_rate, 0) / 100, 2))";
+
+    // Re-buckets invoices already in the database under another status, without loading them
+    private static final String MOVE =
+            "INSERT INTO %1$s (%2$s, product_id, status, revenue, tax, units) " +
+            "SELECT %3$s, ii.product_id, ?, ? * SUM(ii.subtotal - ii.discount), " +
+            "? * SUM(" + LINE_TAX + "), ? * SUM(ii.quantity) " +
+            "FROM invoice_items ii JOIN invoices i ON i.id = ii.invoice_id " +
+            "WHERE i.id = ANY(?::bigint[]) GROUP BY 1, 2 ORDER BY 1, 2 " +
+            "ON CONFLICT (%2$s, product_id, status) DO UPDATE SET " +
+            "revenue = %1$s.revenue + EXCLUDED.revenue, tax = %1$s.tax + EXCLUDED.tax, units = %1$s.units + EXCLUDED.units";
+
+    private static final String UPSERT_DAILY = String.format(UPSERT, "revenue_daily", "bucket_date");
+    private static final String UPSERT_MONTHLY = String.format(UPSERT, "revenue_monthly", "bucket_month");
+    private static final String MOVE_DAILY = String.format(MOVE, "revenue_daily", "bucket_date", "i.invoice_date");
+    private static final String MOVE_MONTHLY = String.format(MOVE, "revenue_monthly", "bucket_month",
+            "CAST(date_trunc('month', i.invoice_date) AS date)");
+
+    private static final Comparator<RevenueDaily.Key> KEY_ORDER = Comparator
+            .comparing(RevenueDaily.Key::getBucketDate)
+            .thenComparing(RevenueDaily.Key::getProductId)
+            .thenComparing(RevenueDaily.Key::getStatus);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public void apply(RevenueDelta delta) {
+        Map<RevenueDaily.Key, RevenueDelta.Totals> daily = delta.nonZero();
+        if (daily.isEmpty()) {
+            return;
+        }
+
+        Map<RevenueDaily.Key, RevenueDelta.Totals> monthly = new HashMap<>();
+        daily.forEach((key, totals) -> {
+            RevenueDaily.Key monthKey = new RevenueDaily.Key(
+                    key.getBucketDate().withDayOfMonth(1), key.getProductId(), key.getStatus());
+            RevenueDelta.Totals month = monthly.computeIfAbsent(monthKey, k -> new RevenueDelta.Totals());
+            month.revenue = month.revenue.add(totals.revenue);
+            month.tax = month.tax.add(totals.tax);
+            month.units += totals.units;
+        });
+
+        jdbcTemplate.batchUpdate(UPSERT_DAILY, toBatchArgs(daily));
+        jdbcTemplate.batchUpdate(UPSERT_MONTHLY, toBatchArgs(monthly));
+    }
+
+    @Transactional
+    public void moveStatus(Collection<Long> invoiceIds, InvoiceStatus from, InvoiceStatus to) {
+        if (invoiceIds.isEmpty() || from == to) {
+            return;
+        }
+        Long[] ids = invoiceIds.toArray(new Long[0]);
+        for (String sql : new String[]{MOVE_DAILY, MOVE_MONTHLY}) {
+            jdbcTemplate.update(sql, from.name(), -1, -1, -1, ids);
+            jdbcTemplate.update(sql, to.name(), 1, 1, 1, ids);
+        }
+    }
+
+    // The same re-bucketing as moveStatus, as a delta for in-memory consumers such as the leaderboard
+    @Transactional(readOnly = true)
+    public RevenueDelta moveDelta(Collection<Long> invoiceIds, InvoiceStatus from, InvoiceStatus to) {
+        RevenueDelta delta = new RevenueDelta();
+        if (invoiceIds.isEmpty() || from == to) {
+            return delta;
+        }
+        jdbcTemplate.query(
+                "SELECT i.invoice_date, ii.product_id, SUM(ii.subtotal - ii.discount), SUM(" + LINE_TAX + "), SUM(ii.quantity) " +
+                "FROM invoice_items ii JOIN invoices i ON i.id = ii.invoice_id " +
+                "WHERE i.id = ANY(?::bigint[]) GROUP BY 1, 2",
+                (RowCallbackHandler) rs -> {
+                    LocalDate day = rs.getDate(1).toLocalDate();
+                    long productId = rs.getLong(2);
+                    delta.addLine(new RevenueDaily.Key(day, productId, from),
+                            rs.getBigDecimal(3).negate(), rs.getBigDecimal(4).negate(), -rs.getLong(5));
+                    delta.addLine(new RevenueDaily.Key(day, productId, to),
+                            rs.getBigDecimal(3), rs.getBigDecimal(4), rs.getLong(5));
+                },
+                (Object) invoiceIds.toArray(new Long[0]));
+        return delta;
+    }
+
+    // Recomputes both rollups from scratch, e.g. after importing historical invoices
+    @Transactional
+    public void rebuild() {
+        jdbcTemplate.execute("TRUNCATE revenue_daily, revenue_monthly");
+        jdbcTemplate.update(
+                "INSERT INTO revenue_daily (bucket_date, product_id, status, revenue, tax, units) " +
+                "SELECT i.invoice_date, ii.product_id, i.status, SUM(ii.subtotal - ii.discount), " +
+                "SUM(" + LINE_TAX + "), SUM(ii.quantity) " +
+                "FROM invoice_items ii JOIN invoices i ON i.id = ii.invoice_id GROUP BY 1, 2, 3");
+        jdbcTemplate.update(
+                "INSERT INTO revenue_monthly (bucket_month, product_id, status, revenue, tax, units) " +
+                "SELECT CAST(date_trunc('month', bucket_date) AS date), product_id, status, SUM(revenue), SUM(tax), SUM(units) " +
+                "FROM revenue_daily GROUP BY 1, 2, 3");
+    }
+
+    // In key order, so concurrent invoice writes lock the rollup rows in the same order and cannot deadlock
+    private List<Object[]> toBatchArgs(Map<RevenueDaily.Key, RevenueDelta.Totals> rows) {
+        Map<RevenueDaily.Key, RevenueDelta.Totals> sorted = new TreeMap<>(KEY_ORDER);
+        sorted.putAll(rows);
+        List<Object[]> args = new ArrayList<>(rows.size());
+        sorted.forEach((key, totals) -> args.add(new Object[]{
+                Date.valueOf(key.getBucketDate()), key.getProductId(), key.getStatus().name(),
+                totals.revenue, totals.tax, totals.units}));
+        return args;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// One booking read from a bank statement; amounts are positive, credit tells the direction
+class StatementLine {
+
+    final int lineNumber;
+    final LocalDate bookingDate;
+    final BigDecimal amount;
+    final boolean credit;
+    final String reference;
+    final String counterparty;
+
+    StatementLine(int lineNumber, LocalDate bookingDate, BigDecimal amount, boolean credit,
+                  String reference, String counterparty) {
+        this.lineNumber = lineNumber;
+        this.bookingDate = bookingDate;
+        this.amount = amount;
+        this.credit = credit;
+        this.reference = reference;
+        this.counterparty = counterparty;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+// Streams statement lines to the sink one at a time so a file is never held in memory
+interface StatementReader {
+
+    void read(InputStream in, Consumer<StatementLine> sink) throws IOException;
+
+    static StatementReader forFormat(String format) {
+        switch (format) {
+            case "CSV":
+                return new CsvStatementReader();
+            case "CAMT":
+                return new CamtStatementReader();
+            default:
+                throw new RuntimeException("Unsupported statement format: " + format);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demo.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// A product's stock before and after one mutation
+@Data
+@AllArgsConstructor
+public class StockChange {
+    private Long productId;
+    private int before;
+    private int after;
+    private int reorderThreshold;
+}
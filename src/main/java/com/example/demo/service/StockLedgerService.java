@@ -0,0 +1,109 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.StockMovement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class StockLedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLedgerService.class);
+
+    private static final String RECORD_SQL =
+            "INSERT INTO stock_movements (product_id, quantity, stock_after, reason, invoice_id, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, now())";
+
+    // Each product's new snapshot is its previous one plus the movements since, up to the cutoff.
+    // Every product that moved before the previous cutoff got a snapshot there, so only movements
+    // after it are read, and previous snapshots are only looked up for the products they touch.
+    private static final String SNAPSHOT_SQL =
+            "WITH moved AS (" +
+            "SELECT product_id, SUM(quantity) AS quantity FROM stock_movements " +
+            "WHERE created_at > COALESCE((SELECT max(taken_at) FROM stock_snapshots), '-infinity'::timestamp) " +
+            "AND created_at <= ? GROUP BY product_id) " +
+            "INSERT INTO stock_snapshots (product_id, taken_at, stock_quantity) " +
+            "SELECT m.product_id, ?, COALESCE((" +
+            "SELECT s.stock_quantity FROM stock_snapshots s WHERE s.product_id = m.product_id " +
+            "ORDER BY s.taken_at DESC LIMIT 1), 0) + m.quantity " +
+            "FROM moved m " +
+            "ON CONFLICT (product_id, taken_at) DO NOTHING";
+
+    // Latest snapshot at or before the instant, plus the movements between the two
+    private static final String STOCK_AT_SQL =
+            "WITH s AS (" +
+            "SELECT taken_at, stock_quantity FROM stock_snapshots WHERE product_id = ? AND taken_at <= ? " +
+            "ORDER BY taken_at DESC LIMIT 1) " +
+            "SELECT COALESCE((SELECT stock_quantity FROM s), 0) + COALESCE((" +
+            "SELECT SUM(m.quantity) FROM stock_movements m WHERE m.product_id = ? " +
+            "AND m.created_at > COALESCE((SELECT taken_at FROM s), '-infinity'::timestamp) " +
+            "AND m.created_at <= ?), 0)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Movements are stamped with their transaction start, so the cutoff trails the clock to
+    // leave in-flight transactions time to commit before their movements are folded in
+    @Value("${app.stock.snapshot.lag:PT5M}")
+    private Duration snapshotLag;
+
+    @Transactional
+    public void record(Long productId, int quantity, int stockAfter, StockMovement.Reason reason, Long invoiceId) {
+        if (quantity == 0 && reason != StockMovement.Reason.OPENING) {
+            return;
+        }
+        jdbcTemplate.update(RECORD_SQL, productId, quantity, stockAfter, reason.name(), invoiceId);
+    }
+
+    @Transactional
+    public void recordAll(List<StockChange> changes, StockMovement.Reason reason, Long invoiceId) {
+        List<Object[]> rows = new ArrayList<>();
+        for (StockChange change : changes) {
+            rows.add(new Object[]{change.getProductId(), change.getAfter() - change.getBefore(), change.getAfter(),
+                    reason.name(), invoiceId});
+        }
+        jdbcTemplate.batchUpdate(RECORD_SQL, rows);
+    }
+
+    @Transactional(readOnly = true)
+    public int stockAt(Long productId, LocalDateTime at) {
+        Timestamp instant = Timestamp.valueOf(at);
+        Integer stock = jdbcTemplate.queryForObject(STOCK_AT_SQL, Integer.class, productId, instant, productId, instant);
+        return stock != null ? stock : 0;
+    }
+
+    @Scheduled(cron = "${app.stock.snapshot.cron:0 45 * * * *}")
+    @Transactional
+    public void snapshot() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(snapshotLag).truncatedTo(ChronoUnit.MINUTES));
+        int taken = jdbcTemplate.update(SNAPSHOT_SQL, cutoff, cutoff);
+        logger.info("Stock snapshot at {}: {} products", cutoff, taken);
+    }
+
+    // Products that predate the ledger get an opening movement so their history sums to their stock
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void openMissingBalances() {
+        int opened = jdbcTemplate.update(
+                "INSERT INTO stock_movements (product_id, quantity, stock_after, reason, created_at) " +
+                "SELECT p.id, p.stock_quantity, p.stock_quantity, 'OPENING', now() FROM products p " +
+                "WHERE NOT EXISTS (SELECT 1 FROM stock_movements m WHERE m.product_id = p.id)");
+        if (opened > 0) {
+            logger.info("Opened stock ledger for {} products", opened);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Product;
+import com.example.demo.entity.StockMovement;
+import com.example.demo.jfr.StockConflictEvent;
+import com.example.demo.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+public class StockService {
+
+    // The update below visits the rows in whatever order the join yields them, so they are locked
+    // in id order first; otherwise two invoices sharing products can deadlock. NO KEY UPDATE is
+    // the lock the update takes anyway and does not block invoice lines referencing the products.
+    private static final String LOCK_SQL =
+            "SELECT id FROM products WHERE id = ANY(?::bigint[]) AND stock_stripes = 0 ORDER BY id FOR NO KEY UPDATE";
+
+    private static final String LOCK_PRODUCT_SQL =
+            "SELECT stock_quantity FROM products WHERE id = ? FOR NO KEY UPDATE";
+
+    // Applies every delta in one statement and appends the matching ledger rows in the same
+    // round trip; a row is only touched if it has enough stock
+    private static final String APPLY_DELTAS_SQL =
+            "WITH moved AS (" +
+            "UPDATE products p SET stock_quantity = p.stock_quantity - d.qty, updated_at = now() " +
+            "FROM unnest(?::bigint[], ?::int[]) AS d(id, qty) " +
+            "WHERE p.id = d.id AND p.stock_stripes = 0 AND p.stock_quantity >= d.qty " +
+            "RETURNING p.id, p.stock_quantity, p.reorder_threshold, d.qty), " +
+            "logged AS (" +
+            "INSERT INTO stock_movements (product_id, quantity, stock_after, reason, invoice_id, created_at) " +
+            "SELECT id, -qty, stock_quantity, ?::varchar, ?::bigint, now() FROM moved) " +
+            "SELECT id, stock_quantity, reorder_threshold, qty FROM moved";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private LowStockService lowStockService;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private StripedStockService stripedStockService;
+
+    @Autowired
+    private TopProductsTracker topProductsTracker;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Positive deltas take stock out, negative deltas put it back
+    @Transactional
+    public void applyDeltas(Map<Long, Integer> deltas, StockMovement.Reason reason, Long invoiceId) {
+        Set<Long> changed = new HashSet<>();
+        for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+            if (entry.getValue() != 0) {
+                changed.add(entry.getKey());
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        Long[] productIds = changed.toArray(new Long[0]);
+        Integer[] quantities = new Integer[productIds.length];
+        for (int i = 0; i < productIds.length; i++) {
+            quantities[i] = deltas.get(productIds[i]);
+        }
+
+        jdbcTemplate.queryForList(LOCK_SQL, Long.class, (Object) productIds);
+        List<StockChange> updated = jdbcTemplate.query(APPLY_DELTAS_SQL, (rs, rowNum) -> {
+            int after = rs.getInt("stock_quantity");
+            return new StockChange(rs.getLong("id"), after + rs.getInt("qty"), after, rs.getInt("reorder_threshold"));
+        }, productIds, quantities, reason.name(), invoiceId);
+        if (updated.size() < productIds.length) {
+            Set<Long> missing = new HashSet<>(changed);
+            for (StockChange change : updated) {
+                missing.remove(change.getProductId());
+            }
+
+            // Striped products were skipped by the statement above and go through their stripes
+            Map<Long, Integer> striped = stripedStockService.findStriped(missing);
+            if (!striped.isEmpty()) {
+                Map<Long, Integer> taken = new HashMap<>();
+                for (Map.Entry<Long, Integer> entry : striped.entrySet()) {
+                    Long productId = entry.getKey();
+                    if (stripedStockService.take(productId, entry.getValue(), deltas.get(productId))) {
+                        taken.put(productId, deltas.get(productId));
+                        missing.remove(productId);
+                    }
+                }
+                if (missing.isEmpty()) {
+                    List<StockChange> stripedChanges = stripedStockService.changes(taken);
+                    stockLedgerService.recordAll(stripedChanges, reason, invoiceId);
+                    updated.addAll(stripedChanges);
+                }
+            }
+        }
+        if (updated.size() < productIds.length) {
+            Set<Long> missing = new HashSet<>(changed);
+            for (StockChange change : updated) {
+                missing.remove(change.getProductId());
+            }
+            String names = String.join(", ", jdbcTemplate.queryForList(
+                    "SELECT name FROM products WHERE id = ANY(?::bigint[]) ORDER BY name",
+                    String.class, (Object) missing.toArray(new Long[0])));
+            meterRegistry.counter("stock.rejections", "reason", reason.name()).increment();
+            StockConflictEvent event = new StockConflictEvent();
+            event.reason = reason.name();
+            event.invoiceId = invoiceId != null ? invoiceId : 0;
+            event.requested = productIds.length;
+            event.rejected = missing.size();
+            event.products = names;
+            event.commit();
+            throw new RuntimeException("Insufficient stock for product: " + names);
+        }
+
+        lowStockService.onStockChanged(updated);
+    }
+
+    // Products as the API returns them: striped products show the sum of their stripes.
+    // Those are detached first so the live figure is never flushed back over stock_quantity.
+    @Transactional(readOnly = true)
+    public <T extends Collection<Product>> T withLiveStock(T products) {
+        Map<Long, Product> striped = new HashMap<>();
+        for (Product product : products) {
+            if (product.getStockStripes() > 0) {
+                striped.put(product.getId(), product);
+            }
+        }
+        if (striped.isEmpty()) {
+            return products;
+        }
+        for (Map.Entry<Long, Integer> total : stripedStockService.totals(striped.keySet()).entrySet()) {
+            Product product = striped.get(total.getKey());
+            entityManager.detach(product);
+            product.setStockQuantity(total.getValue());
+        }
+        return products;
+    }
+
+    public Product withLiveStock(Product product) {
+        withLiveStock(Collections.singletonList(product));
+        return product;
+    }
+
+    // Product edits write stock directly, so they are recorded here rather than in applyDeltas
+
+    @Transactional
+    public void productCreated(Product product) {
+        stockLedgerService.record(product.getId(), product.getStockQuantity(), product.getStockQuantity(),
+                StockMovement.Reason.OPENING, null);
+        lowStockService.onProductSaved(product, product.getStockQuantity(), product.getReorderThreshold());
+    }
+
+    // Edits and deletes lock the row as applyDeltas does and measure the change against the locked
+    // figure, so an invoice committing in between is neither lost nor booked twice in the ledger
+
+    @Transactional
+    public Optional<Product> updateProduct(Long id, Product details) {
+        List<Integer> locked = jdbcTemplate.queryForList(LOCK_PRODUCT_SQL, Integer.class, id);
+        if (locked.isEmpty()) {
+            return Optional.empty();
+        }
+        Product product = productRepository.findById(id).get();
+        int thresholdBefore = product.getReorderThreshold();
+        product.setName(details.getName());
+        product.setDescription(details.getDescription());
+        product.setPrice(details.getPrice());
+        product.setStockQuantity(details.getStockQuantity());
+        product.setCategory(details.getCategory());
+        if (details.getReorderThreshold() != null) {
+            product.setReorderThreshold(details.getReorderThreshold());
+        }
+
+        int stockBefore = product.getStockStripes() > 0
+                ? stripedStockService.setTotal(id, product.getStockStripes(), product.getStockQuantity())
+                : locked.get(0);
+        Product savedProduct = productRepository.save(product);
+        stockLedgerService.record(id, savedProduct.getStockQuantity() - stockBefore, savedProduct.getStockQuantity(),
+                StockMovement.Reason.ADJUSTMENT, null);
+        lowStockService.onProductSaved(savedProduct, stockBefore, thresholdBefore);
+        topProductsTracker.productChanged(id);
+        return Optional.of(savedProduct);
+    }
+
+    @Transactional
+    public Optional<Product> deleteProduct(Long id) {
+        List<Integer> locked = jdbcTemplate.queryForList(LOCK_PRODUCT_SQL, Integer.class, id);
+        if (locked.isEmpty()) {
+            return Optional.empty();
+        }
+        Product product = productRepository.findById(id).get();
+        int stockBefore = product.getStockStripes() > 0
+                ? stripedStockService.totals(Collections.singleton(id)).getOrDefault(id, 0)
+                : locked.get(0);
+        productRepository.delete(product);
+        stockLedgerService.record(id, -stockBefore, 0, StockMovement.Reason.DELETION, null);
+        lowStockService.onProductDeleted(id);
+        topProductsTracker.productChanged(id);
+        return Optional.of(product);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Stock for hot products split across N stripe rows so concurrent invoices lock different rows.
+// For striped products products.stock_quantity is only refreshed by rebalance(); the stripes are the truth.
+@Service
+public class StripedStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripedStockService.class);
+
+    public static final int MAX_STRIPES = 64;
+
+    // Moves quantity on the first unlocked stripe that can cover it, starting at a random stripe
+    // so concurrent writers spread out; negative quantities put stock back. The pick is a scalar
+    // subquery so it runs once: joined in FROM it was rescanned per stripe and hit all of them.
+    private static final String TAKE_FROM_STRIPE_SQL =
+            "UPDATE product_stock_stripes s SET quantity = s.quantity - ? " +
+            "WHERE s.product_id = ? AND s.stripe = (" +
+            "SELECT stripe FROM product_stock_stripes WHERE product_id = ? AND quantity >= ? " +
+            "ORDER BY stripe < ?, stripe LIMIT 1 FOR UPDATE SKIP LOCKED) RETURNING s.stripe";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Striped products among the given ids, with their stripe counts
+    public Map<Long, Integer> findStriped(Collection<Long> productIds) {
+        Map<Long, Integer> striped = new HashMap<>();
+        jdbcTemplate.query("SELECT id, stock_stripes FROM products WHERE id = ANY(?::bigint[]) AND stock_stripes > 0",
+                rs -> {
+                    striped.put(rs.getLong("id"), rs.getInt("stock_stripes"));
+                },
+                (Object) productIds.toArray(new Long[0]));
+        return striped;
+    }
+
+    // Returns false if the stripes together cannot cover the quantity
+    @Transactional
+    public boolean take(Long productId, int stripes, int quantity) {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        List<Integer> hit = jdbcTemplate.queryForList(TAKE_FROM_STRIPE_SQL, Integer.class,
+                quantity, productId, productId, quantity, start);
+        if (!hit.isEmpty()) {
+            return true;
+        }
+
+        // No single free stripe could cover it: lock them all and even them out
+        int total = lockedTotal(productId);
+        if (total < quantity) {
+            return false;
+        }
+        spread(productId, stripes, total - quantity);
+        return true;
+    }
+
+    // Stock before and after the given deltas, read back from the stripes
+    public List<StockChange> changes(Map<Long, Integer> applied) {
+        return jdbcTemplate.query("SELECT s.product_id, SUM(s.quantity) AS total, p.reorder_threshold " +
+                        "FROM product_stock_stripes s JOIN products p ON p.id = s.product_id " +
+                        "WHERE s.product_id = ANY(?::bigint[]) GROUP BY s.product_id, p.reorder_threshold",
+                (rs, rowNum) -> {
+                    long productId = rs.getLong("product_id");
+                    int after = rs.getInt("total");
+                    return new StockChange(productId, after + applied.get(productId), after, rs.getInt("reorder_threshold"));
+                },
+                (Object) applied.keySet().toArray(new Long[0]));
+    }
+
+    public Map<Long, Integer> totals(Collection<Long> productIds) {
+        Map<Long, Integer> totals = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, SUM(quantity) AS total FROM product_stock_stripes " +
+                        "WHERE product_id = ANY(?::bigint[]) GROUP BY product_id",
+                rs -> {
+                    totals.put(rs.getLong("product_id"), rs.getInt("total"));
+                },
+                (Object) productIds.toArray(new Long[0]));
+        return totals;
+    }
+
+    // Replaces the stock of a striped product, returning what it was
+    @Transactional
+    public int setTotal(Long productId, int stripes, int quantity) {
+        int previous = lockedTotal(productId);
+        spread(productId, stripes, quantity);
+        return previous;
+    }
+
+    // Switches a product to N stripes, or back to a single row with 0
+    @Transactional
+    public void configure(Long productId, int stripes) {
+        if (stripes < 0 || stripes > MAX_STRIPES) {
+            throw new RuntimeException("Stripe count must be between 0 and " + MAX_STRIPES);
+        }
+        Map<String, Object> product = jdbcTemplate.queryForMap(
+                "SELECT stock_quantity, stock_stripes FROM products WHERE id = ? FOR UPDATE", productId);
+        int total = ((Number) product.get("stock_stripes")).intValue() > 0
+                ? lockedTotal(productId)
+                : ((Number) product.get("stock_quantity")).intValue();
+
+        jdbcTemplate.update("DELETE FROM product_stock_stripes WHERE product_id = ?", productId);
+        if (stripes > 0) {
+            List<Object[]> rows = new ArrayList<>();
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                rows.add(new Object[]{productId, stripe, share(total, stripes, stripe)});
+            }
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO product_stock_stripes (product_id, stripe, quantity) VALUES (?, ?, ?)", rows);
+        }
+        jdbcTemplate.update("UPDATE products SET stock_stripes = ?, stock_quantity = ?, updated_at = now() WHERE id = ?",
+                stripes, total, productId);
+    }
+
+    // Evens out the stripes of every striped product and refreshes products.stock_quantity
+    @Scheduled(fixedDelayString = "${app.stock.stripes.rebalance-ms:10000}")
+    public void rebalance() {
+        List<Map<String, Object>> striped = jdbcTemplate.queryForList(
+                "SELECT id, stock_stripes FROM products WHERE stock_stripes > 0");
+        for (Map<String, Object> row : striped) {
+            Long productId = ((Number) row.get("id")).longValue();
+            int stripes = ((Number) row.get("stock_stripes")).intValue();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    int total = lockedTotal(productId);
+                    spread(productId, stripes, total);
+                    jdbcTemplate.update("UPDATE products SET stock_quantity = ? WHERE id = ? AND stock_stripes > 0",
+                            total, productId);
+                });
+            } catch (RuntimeException e) {
+                logger.warn("Could not rebalance stock stripes of product {}: {}", productId, e.getMessage());
+            }
+        }
+    }
+
+    // Locks every stripe of the product in a fixed order and sums them
+    private int lockedTotal(Long productId) {
+        List<Integer> quantities = jdbcTemplate.queryForList(
+                "SELECT quantity FROM product_stock_stripes WHERE product_id = ? ORDER BY stripe FOR UPDATE",
+                Integer.class, productId);
+        int total = 0;
+        for (Integer quantity : quantities) {
+            total += quantity;
+        }
+        return total;
+    }
+
+    // Rewrites the (already locked) stripes so they hold the total as evenly as possible
+    private void spread(Long productId, int stripes, int total) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            rows.add(new Object[]{share(total, stripes, stripe), productId, stripe});
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE product_stock_stripes SET quantity = ? WHERE product_id = ? AND stripe = ?", rows);
+    }
+
+    private static int share(int total, int stripes, int stripe) {
+        return total / stripes + (stripe < total % stripes ? 1 : 0);
+    }
+}
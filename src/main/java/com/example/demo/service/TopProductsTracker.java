@@ -0,0 +1,240 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TopProductRow;
+import com.example.demo.entity.Invoice.InvoiceStatus;
+import com.example.demo.entity.RevenueDaily;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Live top-N products for today, this week and this month, kept in memory from invoice writes
+@Service
+public class TopProductsTracker {
+
+    public enum Window { TODAY, WEEK, MONTH }
+
+    public enum Metric { UNITS, REVENUE }
+
+    // Ranked rows kept per (window, metric); requests for a larger limit are cut from this
+    private static final int MAX_RANKED = 100;
+
+    private static final Logger logger = LoggerFactory.getLogger(TopProductsTracker.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final TreeMap<LocalDate, ProductCounters> days = new TreeMap<>();
+    private final Map<Window, ProductCounters> windows = new EnumMap<>(Window.class);
+    private final Map<Long, String> productNames = new ConcurrentHashMap<>();
+    private LocalDate windowsDate;
+
+    private volatile long version;
+    private final Map<Window, Map<Metric, Ranking>> rankings = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDate today = LocalDate.now();
+        LocalDate from = earliestTracked(today);
+
+        TreeMap<LocalDate, ProductCounters> loaded = new TreeMap<>();
+        jdbcTemplate.query(
+                "SELECT bucket_date, product_id, SUM(units), SUM(revenue) FROM revenue_daily " +
+                "WHERE bucket_date >= ? AND status <> 'CANCELLED' GROUP BY 1, 2",
+                (RowCallbackHandler) rs -> loaded.computeIfAbsent(rs.getDate(1).toLocalDate(), d -> new ProductCounters())
+                        .add(rs.getLong(2), rs.getLong(3), toCents(rs.getBigDecimal(4))),
+                Date.valueOf(from));
+
+        synchronized (this) {
+            days.clear();
+            days.putAll(loaded);
+            windowsDate = null;
+            rollWindows(today);
+            version++;
+        }
+        logger.info("Top products tracker loaded {} days of sales since {}", loaded.size(), from);
+    }
+
+    // Applies the delta once the surrounding transaction commits, so rolled back writes never show up
+    public void record(RevenueDelta delta) {
+        Map<RevenueDaily.Key, RevenueDelta.Totals> changes = delta.nonZero();
+        if (changes.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> apply(changes));
+    }
+
+    // A renamed or deleted product has its name looked up again the next time it ranks
+    public void productChanged(Long productId) {
+        afterCommit(() -> forget(productId));
+    }
+
+    public List<TopProductRow> top(Window window, Metric metric, int limit) {
+        Ranking ranking = rankings.getOrDefault(window, Collections.emptyMap()).get(metric);
+        if (ranking == null || ranking.version != version || !ranking.date.equals(LocalDate.now())) {
+            ranking = rank(window, metric);
+        }
+        return ranking.rows.subList(0, Math.min(limit, ranking.rows.size()));
+    }
+
+    private synchronized void apply(Map<RevenueDaily.Key, RevenueDelta.Totals> changes) {
+        LocalDate today = LocalDate.now();
+        rollWindows(today);
+        LocalDate from = earliestTracked(today);
+
+        for (Map.Entry<RevenueDaily.Key, RevenueDelta.Totals> entry : changes.entrySet()) {
+            RevenueDaily.Key key = entry.getKey();
+            LocalDate day = key.getBucketDate();
+            if (key.getStatus() == InvoiceStatus.CANCELLED || day.isBefore(from) || day.isAfter(today)) {
+                continue;
+            }
+            long units = entry.getValue().units;
+            long cents = toCents(entry.getValue().revenue);
+
+            days.computeIfAbsent(day, d -> new ProductCounters()).add(key.getProductId(), units, cents);
+            for (Window window : Window.values()) {
+                if (!day.isBefore(windowStart(window, today))) {
+                    windows.get(window).add(key.getProductId(), units, cents);
+                }
+            }
+        }
+        version++;
+    }
+
+    private synchronized void forget(Long productId) {
+        productNames.remove(productId);
+        version++;
+    }
+
+    // Selects the top slots under the lock and copies them out; names are looked up after it is
+    // released, so invoice writes recording their sales never wait on the query
+    private Ranking rank(Window window, Metric metric) {
+        LocalDate today = LocalDate.now();
+        long rankedVersion;
+        long[] productIds;
+        long[] units;
+        long[] cents;
+        synchronized (this) {
+            rollWindows(today);
+            rankedVersion = version;
+
+            ProductCounters counters = windows.get(window);
+            int[] top = counters.topSlots(MAX_RANKED, metric == Metric.UNITS);
+            productIds = new long[top.length];
+            units = new long[top.length];
+            cents = new long[top.length];
+            for (int i = 0; i < top.length; i++) {
+                productIds[i] = counters.keyAt(top[i]);
+                units[i] = counters.unitsAt(top[i]);
+                cents[i] = counters.centsAt(top[i]);
+            }
+        }
+        resolveNames(productIds);
+
+        List<TopProductRow> rows = new ArrayList<>(productIds.length);
+        for (int i = 0; i < productIds.length; i++) {
+            rows.add(new TopProductRow(productIds[i], productNames.get(productIds[i]),
+                    units[i], BigDecimal.valueOf(cents[i], 2)));
+        }
+
+        Ranking ranking = new Ranking(rankedVersion, today, Collections.unmodifiableList(rows));
+        rankings.computeIfAbsent(window, w -> new ConcurrentHashMap<>()).put(metric, ranking);
+        return ranking;
+    }
+
+    private void resolveNames(long[] productIds) {
+        Set<Long> missing = new HashSet<>();
+        for (long productId : productIds) {
+            if (!productNames.containsKey(productId)) {
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.query("SELECT id, name FROM products WHERE id = ANY(?::bigint[])",
+                    (RowCallbackHandler) rs -> productNames.put(rs.getLong(1), rs.getString(2)),
+                    (Object) missing.toArray(new Long[0]));
+        }
+    }
+
+    // Rebuilds the window totals from the day buckets when the date changes. Names start over
+    // too, so only those of products that still rank are kept.
+    private void rollWindows(LocalDate today) {
+        if (today.equals(windowsDate)) {
+            return;
+        }
+        productNames.clear();
+        days.headMap(earliestTracked(today)).clear();
+        for (Window window : Window.values()) {
+            ProductCounters counters = new ProductCounters();
+            days.tailMap(windowStart(window, today)).values().forEach(counters::addAll);
+            windows.put(window, counters);
+        }
+        windowsDate = today;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static LocalDate windowStart(Window window, LocalDate today) {
+        switch (window) {
+            case TODAY:
+                return today;
+            case WEEK:
+                return today.with(DayOfWeek.MONDAY);
+            default:
+                return today.withDayOfMonth(1);
+        }
+    }
+
+    private static LocalDate earliestTracked(LocalDate today) {
+        LocalDate week = windowStart(Window.WEEK, today);
+        LocalDate month = windowStart(Window.MONTH, today);
+        return week.isBefore(month) ? week : month;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValue();
+    }
+
+    private static class Ranking {
+        final long version;
+        final LocalDate date;
+        final List<TopProductRow> rows;
+
+        Ranking(long version, LocalDate date, List<TopProductRow> rows) {
+            this.version = version;
+            this.date = date;
+            this.rows = rows;
+        }
+    }
+}
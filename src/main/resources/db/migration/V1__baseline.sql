@@ -0,0 +1,142 @@
+-- The tables and constraints spring.jpa.hibernate.ddl-auto=update created before migrations were
+-- introduced, and nothing else. Databases created that way are baselined at this version
+-- (spring.flyway.baseline-on-migrate) and only run the migrations after it, so everything added
+-- since goes into later migrations. Constraint names are the ones Hibernate derives from the
+-- mappings, which db/partition-invoices.sql relies on.
+--
+-- Invoices and invoice_items are created unpartitioned; db/partition-invoices.sql converts them.
+-- Later migrations touching those two tables must work on both layouts.
+
+CREATE TABLE roles (
+    id bigserial NOT NULL,
+    name varchar(20) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_ofx66keruapi6vyqpv6f2or37 UNIQUE (name)
+);
+
+CREATE TABLE users (
+    id bigserial NOT NULL,
+    created_at timestamp NOT NULL,
+    email varchar(255) NOT NULL,
+    enabled boolean NOT NULL,
+    password varchar(255) NOT NULL,
+    username varchar(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_6dotkott2kjsp8vw4d0m25fb7 UNIQUE (email),
+    CONSTRAINT uk_r43af9ap4edm43mmtq01oddj6 UNIQUE (username)
+);
+
+CREATE TABLE user_roles (
+    user_id int8 NOT NULL,
+    role_id int8 NOT NULL,
+    PRIMARY KEY (user_id, role_id),
+    CONSTRAINT fkhfh9dx7w3ubf1co1vdev94g3f FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fkh8ciramu9cc9q3qcqiv4ue8a6 FOREIGN KEY (role_id) REFERENCES roles (id)
+);
+
+CREATE TABLE activity_logs (
+    id bigserial NOT NULL,
+    action varchar(255) NOT NULL,
+    created_at timestamp NOT NULL,
+    details varchar(1000),
+    entity_id int8,
+    entity_type varchar(255) NOT NULL,
+    ip_address varchar(255) NOT NULL,
+    user_role varchar(255) NOT NULL,
+    username varchar(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE company_settings (
+    id bigserial NOT NULL,
+    address text,
+    bank_account varchar(255),
+    bank_name varchar(255),
+    city varchar(255),
+    company_name varchar(255) NOT NULL,
+    country varchar(255),
+    created_at timestamp,
+    currency varchar(255),
+    default_tax_rate float8,
+    email varchar(255),
+    invoice_notes text,
+    invoice_prefix varchar(255),
+    logo text,
+    next_invoice_number int4,
+    phone varchar(255),
+    postal_code varchar(255),
+    registration_number varchar(255),
+    swift_code varchar(255),
+    tax_number varchar(255),
+    terms_and_conditions text,
+    updated_at timestamp,
+    website varchar(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE clients (
+    id bigserial NOT NULL,
+    address text,
+    city varchar(255),
+    company_name varchar(255),
+    country varchar(255),
+    created_at timestamp,
+    email varchar(255),
+    name varchar(255) NOT NULL,
+    notes text,
+    phone varchar(255),
+    postal_code varchar(255),
+    tax_number varchar(255),
+    updated_at timestamp,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_srv16ica2c1csub334bxjjb59 UNIQUE (email)
+);
+
+-- Products
+
+CREATE TABLE products (
+    id bigserial NOT NULL,
+    category varchar(100),
+    created_at timestamp NOT NULL,
+    description varchar(1000),
+    name varchar(255) NOT NULL,
+    price numeric(10, 2) NOT NULL,
+    stock_quantity int4 NOT NULL,
+    updated_at timestamp,
+    PRIMARY KEY (id)
+);
+
+-- Invoices
+
+CREATE TABLE invoices (
+    id bigserial NOT NULL,
+    created_at timestamp NOT NULL,
+    customer_name varchar(255) NOT NULL,
+    discount numeric(10, 2),
+    due_date date,
+    invoice_date date NOT NULL,
+    invoice_number varchar(255) NOT NULL,
+    notes text,
+    payment_terms text,
+    status varchar(255) NOT NULL,
+    subtotal numeric(10, 2) NOT NULL,
+    tax_amount numeric(10, 2) NOT NULL,
+    tax_rate numeric(5, 2),
+    total_amount numeric(10, 2) NOT NULL,
+    client_id int8,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_l1x55mfsay7co0r3m9ynvipd5 UNIQUE (invoice_number),
+    CONSTRAINT fk9ioqm804urbgy986pdtwqtl0x FOREIGN KEY (client_id) REFERENCES clients (id)
+);
+
+CREATE TABLE invoice_items (
+    id bigserial NOT NULL,
+    quantity int4 NOT NULL,
+    subtotal numeric(10, 2) NOT NULL,
+    unit_price numeric(10, 2) NOT NULL,
+    invoice_id int8 NOT NULL,
+    product_id int8 NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk46ae0lhu1oqs7cv91fn6y9n7w FOREIGN KEY (invoice_id) REFERENCES invoices (id),
+    CONSTRAINT fks3tu9gmkgshq8oeq5n0rinxeu FOREIGN KEY (product_id) REFERENCES products (id)
+);
@@ -0,0 +1,172 @@
+-- Everything added to the schema after the baseline: new columns on existing tables and the
+-- tables of stock tracking, pricing, revenue rollups and payments. Some databases were created by
+-- ddl-auto=update after part of this already existed, so every column and table is only added if
+-- it is missing. Columns added to tables that may already hold rows have a default or are
+-- nullable; the partition script fills invoice_items.invoice_date in.
+
+ALTER TABLE products
+    ADD COLUMN IF NOT EXISTS reorder_threshold integer DEFAULT 10 NOT NULL,
+    ADD COLUMN IF NOT EXISTS stock_stripes integer DEFAULT 0 NOT NULL;
+
+ALTER TABLE invoices
+    ADD COLUMN IF NOT EXISTS amount_paid numeric(10, 2) DEFAULT 0 NOT NULL;
+
+-- invoice_date copies the invoice's date, the partition key once the table is partitioned.
+-- Lines from before per-line tax keep a null tax_amount and fall back to the invoice rate.
+ALTER TABLE invoice_items
+    ADD COLUMN IF NOT EXISTS discount numeric(10, 2) DEFAULT 0 NOT NULL,
+    ADD COLUMN IF NOT EXISTS invoice_date date,
+    ADD COLUMN IF NOT EXISTS tax_amount numeric(10, 2),
+    ADD COLUMN IF NOT EXISTS tax_rate numeric(5, 2);
+
+CREATE TABLE IF NOT EXISTS client_summaries (
+    client_id int8 NOT NULL,
+    invoice_count int8 NOT NULL,
+    last_invoice_date date,
+    lifetime_revenue numeric(14, 2) NOT NULL,
+    outstanding_balance numeric(14, 2) NOT NULL,
+    PRIMARY KEY (client_id)
+);
+
+-- Products
+
+CREATE TABLE IF NOT EXISTS product_stock_stripes (
+    product_id int8 NOT NULL,
+    stripe int4 NOT NULL,
+    quantity int4 NOT NULL,
+    PRIMARY KEY (product_id, stripe)
+);
+
+CREATE TABLE IF NOT EXISTS product_price_changes (
+    id bigserial NOT NULL,
+    batch_id varchar(36) NOT NULL,
+    changed_at timestamp NOT NULL,
+    new_price numeric(10, 2) NOT NULL,
+    old_price numeric(10, 2) NOT NULL,
+    product_id int8 NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS stock_movements (
+    id bigserial NOT NULL,
+    created_at timestamp NOT NULL,
+    invoice_id int8,
+    product_id int8 NOT NULL,
+    quantity int4 NOT NULL,
+    reason varchar(20) NOT NULL,
+    stock_after int4 NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS stock_snapshots (
+    id bigserial NOT NULL,
+    product_id int8 NOT NULL,
+    stock_quantity int4 NOT NULL,
+    taken_at timestamp NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_stock_snapshots_product_time UNIQUE (product_id, taken_at)
+);
+
+CREATE TABLE IF NOT EXISTS low_stock_alerts (
+    product_id int8 NOT NULL,
+    raised_at timestamp NOT NULL,
+    reorder_threshold int4 NOT NULL,
+    stock_quantity int4 NOT NULL,
+    PRIMARY KEY (product_id)
+);
+
+CREATE TABLE IF NOT EXISTS pricing_rules (
+    id bigserial NOT NULL,
+    active boolean NOT NULL,
+    category varchar(100),
+    client_id int8,
+    created_at timestamp NOT NULL,
+    kind varchar(20) NOT NULL,
+    min_quantity int4 NOT NULL CHECK (min_quantity >= 1),
+    name varchar(255) NOT NULL,
+    priority int4 NOT NULL,
+    product_id int8,
+    rate numeric(5, 2) NOT NULL,
+    updated_at timestamp,
+    PRIMARY KEY (id)
+);
+
+-- Invoices
+
+-- Claims invoice numbers, so they stay unique once invoices is partitioned
+CREATE TABLE IF NOT EXISTS invoice_numbers (
+    invoice_number varchar(255) NOT NULL,
+    invoice_date date NOT NULL,
+    invoice_id int8 NOT NULL,
+    PRIMARY KEY (invoice_number)
+);
+
+CREATE TABLE IF NOT EXISTS revenue_daily (
+    bucket_date date NOT NULL,
+    product_id int8 NOT NULL,
+    status varchar(20) NOT NULL,
+    revenue numeric(14, 2) NOT NULL,
+    tax numeric(14, 2) NOT NULL,
+    units int8 NOT NULL,
+    PRIMARY KEY (bucket_date, product_id, status)
+);
+
+CREATE TABLE IF NOT EXISTS revenue_monthly (
+    bucket_month date NOT NULL,
+    product_id int8 NOT NULL,
+    status varchar(20) NOT NULL,
+    revenue numeric(14, 2) NOT NULL,
+    tax numeric(14, 2) NOT NULL,
+    units int8 NOT NULL,
+    PRIMARY KEY (bucket_month, product_id, status)
+);
+
+-- Payments
+
+CREATE TABLE IF NOT EXISTS payment_imports (
+    id bigserial NOT NULL,
+    by_amount int4 NOT NULL,
+    by_client_amount int4 NOT NULL,
+    by_fuzzy_number int4 NOT NULL,
+    by_invoice_number int4 NOT NULL,
+    credit_lines int4 NOT NULL,
+    duration_ms int8 NOT NULL,
+    error varchar(500),
+    file_name varchar(255) NOT NULL,
+    finished_at timestamp,
+    format varchar(10) NOT NULL,
+    imported_by varchar(255) NOT NULL,
+    matched_amount numeric(14, 2) NOT NULL,
+    matched_lines int4 NOT NULL,
+    started_at timestamp NOT NULL,
+    total_lines int4 NOT NULL,
+    unmatched_amount numeric(14, 2) NOT NULL,
+    unmatched_lines int4 NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS payments (
+    id bigserial NOT NULL,
+    amount numeric(10, 2) NOT NULL,
+    counterparty varchar(255),
+    created_at timestamp NOT NULL,
+    import_id int8,
+    invoice_id int8 NOT NULL,
+    match_type varchar(20) NOT NULL,
+    payment_date date NOT NULL,
+    reference varchar(500),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS unmatched_statement_lines (
+    id bigserial NOT NULL,
+    amount numeric(10, 2) NOT NULL,
+    booking_date date,
+    counterparty varchar(255),
+    import_id int8 NOT NULL,
+    line_number int4 NOT NULL,
+    reason varchar(100),
+    reference varchar(500),
+    PRIMARY KEY (id)
+);
+
@@ -0,0 +1,37 @@
+-- Every index the mappings declare. Databases baselined at V1 may have been created before some
+-- of them existed, so each is only created if missing. On partitioned invoices and
+-- invoice_items (db/partition-invoices.sql) the same statements create the index on the parent,
+-- which cascades to every partition; the names match the ones that script uses.
+--
+-- Plain CREATE INDEX blocks writes to its table while it builds, so a large database may take
+-- a while to start the first time this runs.
+
+CREATE INDEX IF NOT EXISTS idx_activity_logs_created_at ON activity_logs (created_at);
+CREATE INDEX IF NOT EXISTS idx_activity_logs_username_created_at ON activity_logs (username, created_at);
+
+CREATE INDEX IF NOT EXISTS idx_products_category ON products (category);
+CREATE INDEX IF NOT EXISTS idx_products_stock_quantity ON products (stock_quantity);
+
+CREATE INDEX IF NOT EXISTS idx_product_price_changes_product ON product_price_changes (product_id, changed_at);
+CREATE INDEX IF NOT EXISTS idx_product_price_changes_batch ON product_price_changes (batch_id);
+
+CREATE INDEX IF NOT EXISTS idx_stock_movements_product_time ON stock_movements (product_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_stock_movements_invoice ON stock_movements (invoice_id);
+
+-- The leading status column serves lookups by status alone
+CREATE INDEX IF NOT EXISTS idx_invoices_status_due_date ON invoices (status, due_date);
+CREATE INDEX IF NOT EXISTS idx_invoices_open_aging ON invoices (status, client_id, due_date, total_amount, amount_paid);
+CREATE INDEX IF NOT EXISTS idx_invoices_client_date ON invoices (client_id, invoice_date);
+CREATE INDEX IF NOT EXISTS idx_invoices_number ON invoices (invoice_number);
+CREATE INDEX IF NOT EXISTS idx_invoices_date ON invoices (invoice_date);
+CREATE INDEX IF NOT EXISTS idx_invoices_created_at ON invoices (created_at);
+
+-- The leading invoice_id column serves lookups by invoice alone
+CREATE INDEX IF NOT EXISTS idx_invoice_items_invoice ON invoice_items (invoice_id, invoice_date);
+
+CREATE INDEX IF NOT EXISTS idx_invoice_numbers_invoice ON invoice_numbers (invoice_id);
+
+CREATE INDEX IF NOT EXISTS idx_payments_invoice ON payments (invoice_id);
+CREATE INDEX IF NOT EXISTS idx_payments_import ON payments (import_id);
+
+CREATE INDEX IF NOT EXISTS idx_unmatched_statement_lines_import ON unmatched_statement_lines (import_id);
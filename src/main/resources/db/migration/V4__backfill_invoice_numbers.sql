@@ -0,0 +1,11 @@
+-- Claims the numbers of invoices created before invoice_numbers existed. Without them a new
+-- invoice could reuse an old number once invoices is partitioned and loses its unique constraint,
+-- and on either layout the table would not list every number in use. Works on both layouts;
+-- numbers already claimed are left alone.
+--
+-- Reads every invoice once, so a large database may take a while to start the first time this
+-- runs.
+
+INSERT INTO invoice_numbers (invoice_number, invoice_id, invoice_date)
+SELECT invoice_number, id, invoice_date FROM invoices
+ON CONFLICT (invoice_number) DO NOTHING;
@@ -0,0 +1,5 @@
+-- The hourly stock snapshot only reads the movements since the previous snapshot: the latest
+-- snapshot time comes from the taken_at index and the movements after it from the created_at one.
+
+CREATE INDEX IF NOT EXISTS idx_stock_movements_created_at ON stock_movements (created_at);
+CREATE INDEX IF NOT EXISTS idx_stock_snapshots_taken_at ON stock_snapshots (taken_at);
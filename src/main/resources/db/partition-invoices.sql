@@ -0,0 +1,95 @@
+-- Converts invoices and invoice_items into tables range partitioned by invoice_date, one
+-- partition per year plus a default partition for dates outside the created years.
+--
+-- Run once, with the application stopped, against a database the application has already
+-- migrated (db/migration):
+--   psql "$DATABASE_URL" -v ON_ERROR_STOP=1 -f partition-invoices.sql
+--
+-- A partitioned table's primary key and unique constraints must contain the partition key, so
+-- both primary keys become (id, invoice_date) and invoice_items carries a copy of its invoice's
+-- date. Invoice numbers stay globally unique through the invoice_numbers table. Constraint and
+-- index names are kept from the baseline migration, so later migrations can refer to them on
+-- either layout.
+-- Later years are added by InvoicePartitionJob through create_invoice_partitions().
+
+BEGIN;
+
+LOCK TABLE invoices, invoice_items IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE invoice_items RENAME TO invoice_items_unpartitioned;
+ALTER TABLE invoices RENAME TO invoices_unpartitioned;
+ALTER INDEX invoice_items_pkey RENAME TO invoice_items_unpartitioned_pkey;
+ALTER INDEX invoices_pkey RENAME TO invoices_unpartitioned_pkey;
+
+-- The id sequences must outlive the old tables they belong to
+ALTER SEQUENCE invoices_id_seq OWNED BY NONE;
+ALTER SEQUENCE invoice_items_id_seq OWNED BY NONE;
+
+CREATE TABLE invoices (
+    LIKE invoices_unpartitioned INCLUDING DEFAULTS,
+    PRIMARY KEY (id, invoice_date)
+) PARTITION BY RANGE (invoice_date);
+
+ALTER TABLE invoice_items_unpartitioned ADD COLUMN IF NOT EXISTS invoice_date date;
+UPDATE invoice_items_unpartitioned ii SET invoice_date = i.invoice_date
+FROM invoices_unpartitioned i WHERE i.id = ii.invoice_id;
+
+CREATE TABLE invoice_items (
+    LIKE invoice_items_unpartitioned INCLUDING DEFAULTS,
+    PRIMARY KEY (id, invoice_date)
+) PARTITION BY RANGE (invoice_date);
+
+ALTER SEQUENCE invoices_id_seq OWNED BY invoices.id;
+ALTER SEQUENCE invoice_items_id_seq OWNED BY invoice_items.id;
+
+-- Creates the yearly partitions of both tables for the given year if missing. Rows of that
+-- year already sitting in the default partition make this fail; move them out first.
+CREATE OR REPLACE FUNCTION create_invoice_partitions(p_year int) RETURNS void AS $$
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF invoices FOR VALUES FROM (%L) TO (%L)',
+                   'invoices_' || p_year, make_date(p_year, 1, 1), make_date(p_year + 1, 1, 1));
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF invoice_items FOR VALUES FROM (%L) TO (%L)',
+                   'invoice_items_' || p_year, make_date(p_year, 1, 1), make_date(p_year + 1, 1, 1));
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_invoice_partitions(y::int)
+FROM generate_series(
+        COALESCE((SELECT EXTRACT(YEAR FROM MIN(invoice_date)) FROM invoices_unpartitioned),
+                 EXTRACT(YEAR FROM CURRENT_DATE)),
+        EXTRACT(YEAR FROM CURRENT_DATE) + 1) AS y;
+
+CREATE TABLE invoices_default PARTITION OF invoices DEFAULT;
+CREATE TABLE invoice_items_default PARTITION OF invoice_items DEFAULT;
+
+INSERT INTO invoices SELECT * FROM invoices_unpartitioned;
+
+INSERT INTO invoice_items SELECT * FROM invoice_items_unpartitioned;
+
+DROP TABLE invoice_items_unpartitioned;
+DROP TABLE invoices_unpartitioned;
+
+-- Indexes on the parents cascade to every partition, present and future
+CREATE INDEX idx_invoices_status_due_date ON invoices (status, due_date);
+CREATE INDEX idx_invoices_open_aging ON invoices (status, client_id, due_date, total_amount, amount_paid);
+CREATE INDEX idx_invoices_client_date ON invoices (client_id, invoice_date);
+CREATE INDEX idx_invoices_number ON invoices (invoice_number);
+CREATE INDEX idx_invoices_date ON invoices (invoice_date);
+CREATE INDEX idx_invoices_created_at ON invoices (created_at);
+CREATE INDEX idx_invoice_items_invoice ON invoice_items (invoice_id, invoice_date);
+
+ALTER TABLE invoices ADD CONSTRAINT fk9ioqm804urbgy986pdtwqtl0x
+    FOREIGN KEY (client_id) REFERENCES clients (id);
+ALTER TABLE invoice_items ADD CONSTRAINT fks3tu9gmkgshq8oeq5n0rinxeu
+    FOREIGN KEY (product_id) REFERENCES products (id);
+ALTER TABLE invoice_items ADD CONSTRAINT fk46ae0lhu1oqs7cv91fn6y9n7w
+    FOREIGN KEY (invoice_id, invoice_date) REFERENCES invoices (id, invoice_date) ON UPDATE CASCADE;
+
+-- From here on invoice numbers are only unique through invoice_numbers (InvoiceNumber), since a
+-- unique index on a partitioned table must include invoice_date. The migrations created it and
+-- claimed the numbers of existing invoices (V4__backfill_invoice_numbers.sql).
+
+ANALYZE invoices;
+ANALYZE invoice_items;
+
+COMMIT;
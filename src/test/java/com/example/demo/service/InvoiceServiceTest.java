@@ -0,0 +1,142 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.InvoiceRequest;
+import com.example.demo.entity.Invoice;
+import com.example.demo.entity.InvoiceItem;
+import com.example.demo.entity.PricingRule;
+import com.example.demo.entity.Product;
+import com.example.demo.model.Client;
+import com.example.demo.repository.ClientRepository;
+import com.example.demo.repository.InvoiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceServiceTest {
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+
+    @Mock
+    private ClientRepository clientRepository;
+
+    @Mock
+    private PricingService pricingService;
+
+    @Mock
+    private StockService stockService;
+
+    @Mock
+    private RevenueRollupService revenueRollupService;
+
+    @Mock
+    private ClientSummaryService clientSummaryService;
+
+    @Mock
+    private AgingReportService agingReportService;
+
+    @Mock
+    private TopProductsTracker topProductsTracker;
+
+    @InjectMocks
+    private InvoiceService invoiceService;
+
+    private Invoice invoice;
+
+    @BeforeEach
+    void setUp() {
+        Product product = new Product();
+        product.setId(10L);
+        product.setName("Widget");
+        product.setCategory("Tools");
+        product.setPrice(new BigDecimal("100.00"));
+
+        invoice = new Invoice();
+        invoice.setId(5L);
+        invoice.setInvoiceNumber("INV-5");
+        invoice.setCustomerName("First client");
+        invoice.setClient(client(1L, "First client"));
+        invoice.setStatus(Invoice.InvoiceStatus.PENDING);
+        invoice.setInvoiceDate(LocalDate.of(2026, 1, 15));
+        invoice.setTaxRate(new BigDecimal("20.00"));
+        invoice.setAmountPaid(BigDecimal.ZERO);
+
+        InvoiceItem item = new InvoiceItem();
+        item.setProduct(product);
+        item.setQuantity(2);
+        item.setUnitPrice(new BigDecimal("100.00"));
+        InvoiceService.priceLine(item, PricingRules.EMPTY, new LinePricing(), 1L, invoice.getTaxRate());
+        invoice.addItem(item);
+        InvoiceService.applyTotals(invoice);
+
+        when(invoiceRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(invoice));
+        when(invoiceRepository.save(any(Invoice.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(pricingService.current()).thenReturn(PricingRules.compile(List.of(clientDiscount(2L, "10.00"))));
+    }
+
+    @Test
+    void repricesKeptLinesWhenTheClientChanges() {
+        when(clientRepository.findById(2L)).thenReturn(Optional.of(client(2L, "Second client")));
+
+        Invoice updated = invoiceService.updateInvoice(5L, request(2L, 2)).orElseThrow();
+
+        InvoiceItem item = updated.getItems().get(0);
+        assertEquals(new BigDecimal("20.00"), item.getDiscount());
+        assertEquals(new BigDecimal("36.00"), item.getTaxAmount());
+        assertEquals(new BigDecimal("216.00"), updated.getTotalAmount());
+    }
+
+    @Test
+    void leavesUnchangedLinesAloneForTheSameClient() {
+        when(clientRepository.findById(1L)).thenReturn(Optional.of(invoice.getClient()));
+
+        Invoice updated = invoiceService.updateInvoice(5L, request(1L, 2)).orElseThrow();
+
+        InvoiceItem item = updated.getItems().get(0);
+        assertEquals(0, BigDecimal.ZERO.compareTo(item.getDiscount()));
+        assertEquals(new BigDecimal("240.00"), updated.getTotalAmount());
+    }
+
+    private static Client client(Long id, String name) {
+        Client client = new Client();
+        client.setId(id);
+        client.setName(name);
+        return client;
+    }
+
+    private static PricingRule clientDiscount(Long clientId, String rate) {
+        PricingRule rule = new PricingRule();
+        rule.setId(1L);
+        rule.setName("Client discount");
+        rule.setKind(PricingRule.Kind.DISCOUNT);
+        rule.setClientId(clientId);
+        rule.setRate(new BigDecimal(rate));
+        rule.setActive(true);
+        return rule;
+    }
+
+    private static InvoiceRequest request(Long clientId, int quantity) {
+        InvoiceRequest.InvoiceItemRequest item = new InvoiceRequest.InvoiceItemRequest();
+        item.setProductId(10L);
+        item.setQuantity(quantity);
+
+        InvoiceRequest request = new InvoiceRequest();
+        request.setClientId(clientId);
+        request.setCustomerName("Customer");
+        request.setItems(List.of(item));
+        return request;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Payment.MatchType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PaymentMatcherTest {
+
+    private PaymentMatcher matcher;
+
+    @BeforeEach
+    void setUp() {
+        matcher = new PaymentMatcher();
+        matcher.addClientName("Acme S.A.", 1L);
+        matcher.addClientName("Globex", 2L);
+    }
+
+    @Test
+    void matchesTheInvoiceNumberWhateverTheSeparators() {
+        matcher.add(new PaymentMatcher.OpenInvoice(1, "INV-2024-0042", 1L, 10000));
+        matcher.add(new PaymentMatcher.OpenInvoice(2, "INV-2024-0043", 1L, 10000));
+
+        assertMatch(1, MatchType.INVOICE_NUMBER, line("25.00", "Payment inv 2024/0042 thanks", null));
+        assertMatch(2, MatchType.INVOICE_NUMBER, line("100.00", "INV20240043", "Someone else"));
+    }
+
+    @Test
+    void matchesDigitsOnlyWhenTheyIdentifyOneInvoiceAndTheAmountFits() {
+        matcher.add(new PaymentMatcher.OpenInvoice(1, "FAC-0042", null, 5000));
+        matcher.add(new PaymentMatcher.OpenInvoice(2, "A-0077", null, 7000));
+        matcher.add(new PaymentMatcher.OpenInvoice(3, "B-0077", null, 7001));
+
+        assertMatch(1, MatchType.FUZZY_NUMBER, line("20.00", "transfer 000042", null));
+        assertNull(matcher.match(line("40.00", "transfer 042", null)));
+        assertNull(matcher.match(line("10.00", "transfer 077", null)));
+    }
+
+    @Test
+    void matchesTheCounterpartyClientWithAnInvoiceOfThatAmount() {
+        matcher.add(new PaymentMatcher.OpenInvoice(1, "INV-1", 2L, 12000));
+        matcher.add(new PaymentMatcher.OpenInvoice(2, "INV-2", 1L, 12000));
+
+        assertNull(matcher.match(line("120.00", "monthly fee", "Unknown Ltd")));
+        assertMatch(2, MatchType.CLIENT_AMOUNT, line("120.00", "monthly fee", "ACME SA"));
+        assertMatch(1, MatchType.AMOUNT, line("120.00", "monthly fee", null));
+    }
+
+    @Test
+    void ignoresClientNamesSharedByDifferentClients() {
+        matcher.addClientName("Acme S.A.", 3L);
+        matcher.add(new PaymentMatcher.OpenInvoice(1, "INV-1", 1L, 12000));
+        matcher.add(new PaymentMatcher.OpenInvoice(2, "INV-2", 3L, 12000));
+
+        assertNull(matcher.match(line("120.00", "monthly fee", "Acme SA")));
+    }
+
+    @Test
+    void matchesAnAmountNoOtherOpenInvoiceShares() {
+        matcher.add(new PaymentMatcher.OpenInvoice(1, "INV-1", 1L, 12345));
+        matcher.add(new PaymentMatcher.OpenInvoice(2, "INV-2", 2L, 9900));
+        matcher.add(new PaymentMatcher.OpenInvoice(3, "INV-3", 2L, 9900));
+
+        assertMatch(1, MatchType.AMOUNT, line("123.45", null, null));
+        assertNull(matcher.match(line("123.45", null, null)));
+        assertNull(matcher.match(line("99.00", null, null)));
+    }
+
+    @Test
+    void aPartialPaymentLeavesTheRemainderMatchable() {
+        matcher.add(new PaymentMatcher.OpenInvoice(1, "INV-1", 1L, 10000));
+
+        assertMatch(1, MatchType.INVOICE_NUMBER, line("40.00", "INV-1", null));
+        assertMatch(1, MatchType.AMOUNT, line("60.00", null, null));
+        assertNull(matcher.match(line("60.00", null, null)));
+        assertNull(matcher.match(line("10.00", "INV-1", null)));
+    }
+
+    @Test
+    void aReleasedMatchIsNotOfferedAgain() {
+        matcher.add(new PaymentMatcher.OpenInvoice(1, "INV-1", 1L, 10000));
+
+        PaymentMatcher.Match match = matcher.match(line("40.00", "INV-1", null));
+        matcher.release(match);
+
+        assertNull(matcher.match(line("60.00", "INV-1", null)));
+    }
+
+    private void assertMatch(long invoiceId, MatchType type, StatementLine line) {
+        PaymentMatcher.Match match = matcher.match(line);
+        assertEquals(invoiceId, match.invoice.id);
+        assertEquals(type, match.type);
+    }
+
+    private static StatementLine line(String amount, String reference, String counterparty) {
+        return new StatementLine(1, LocalDate.of(2026, 1, 15), new BigDecimal(amount), true, reference, counterparty);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.PricingRule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PricingRulesTest {
+
+    private static final Long CLIENT = 7L;
+    private static final Long PRODUCT = 10L;
+    private static final String CATEGORY = "Tools";
+
+    @Test
+    void productRuleBeatsCategoryClientAndGlobalRules() {
+        PricingRules rules = PricingRules.compile(List.of(
+                discount(1L, "1.00"),
+                clientDiscount(2L, "2.00"),
+                categoryDiscount(3L, "3.00"),
+                productDiscount(4L, "4.00")));
+
+        LinePricing result = evaluate(rules, CLIENT, PRODUCT, CATEGORY, 1);
+
+        assertEquals(4L, result.discountRuleId);
+        assertEquals(new BigDecimal("4.00"), result.discountRate);
+    }
+
+    @Test
+    void categoryRuleBeatsClientAndGlobalRules() {
+        PricingRules rules = PricingRules.compile(List.of(
+                discount(1L, "1.00"),
+                clientDiscount(2L, "2.00"),
+                categoryDiscount(3L, "3.00"),
+                productDiscount(4L, "4.00")));
+
+        assertEquals(3L, evaluate(rules, CLIENT, 11L, CATEGORY, 1).discountRuleId);
+    }
+
+    @Test
+    void clientRuleBeatsGlobalRule() {
+        PricingRules rules = PricingRules.compile(List.of(
+                discount(1L, "1.00"),
+                clientDiscount(2L, "2.00"),
+                categoryDiscount(3L, "3.00")));
+
+        assertEquals(2L, evaluate(rules, CLIENT, 11L, "Other", 1).discountRuleId);
+        assertEquals(1L, evaluate(rules, 8L, 11L, "Other", 1).discountRuleId);
+    }
+
+    @Test
+    void scopedRulesThatDoNotMatchFallThroughToTheNextLevel() {
+        PricingRule product = productDiscount(4L, "4.00");
+        product.setClientId(8L);
+        PricingRule category = categoryDiscount(3L, "3.00");
+        category.setMinQuantity(10);
+        PricingRules rules = PricingRules.compile(List.of(discount(1L, "1.00"), category, product));
+
+        assertEquals(1L, evaluate(rules, CLIENT, PRODUCT, CATEGORY, 5).discountRuleId);
+        assertEquals(3L, evaluate(rules, CLIENT, PRODUCT, CATEGORY, 10).discountRuleId);
+        assertEquals(4L, evaluate(rules, 8L, PRODUCT, CATEGORY, 10).discountRuleId);
+    }
+
+    @Test
+    void clientSpecificThenPriorityThenLargerBreakWithinALevel() {
+        PricingRule generic = productDiscount(1L, "1.00");
+        generic.setPriority(5);
+        PricingRule forClient = productDiscount(2L, "2.00");
+        forClient.setClientId(CLIENT);
+        PricingRule smallBreak = productDiscount(3L, "3.00");
+        smallBreak.setMinQuantity(5);
+        PricingRule largeBreak = productDiscount(4L, "4.00");
+        largeBreak.setMinQuantity(20);
+        PricingRules rules = PricingRules.compile(List.of(smallBreak, largeBreak, generic, forClient));
+
+        assertEquals(2L, evaluate(rules, CLIENT, PRODUCT, CATEGORY, 1).discountRuleId);
+        assertEquals(1L, evaluate(rules, 8L, PRODUCT, CATEGORY, 50).discountRuleId);
+
+        generic.setPriority(0);
+        rules = PricingRules.compile(List.of(smallBreak, largeBreak, generic));
+        assertEquals(4L, evaluate(rules, 8L, PRODUCT, CATEGORY, 50).discountRuleId);
+        assertEquals(3L, evaluate(rules, 8L, PRODUCT, CATEGORY, 10).discountRuleId);
+        assertEquals(1L, evaluate(rules, 8L, PRODUCT, CATEGORY, 1).discountRuleId);
+    }
+
+    @Test
+    void discountsAndTaxesAreResolvedSeparatelyAndInactiveRulesIgnored() {
+        PricingRule tax = categoryDiscount(5L, "5.50");
+        tax.setKind(PricingRule.Kind.TAX);
+        PricingRule inactive = productDiscount(6L, "50.00");
+        inactive.setActive(false);
+        PricingRules rules = PricingRules.compile(List.of(discount(1L, "1.00"), tax, inactive));
+
+        LinePricing result = evaluate(rules, CLIENT, PRODUCT, CATEGORY, 1);
+
+        assertEquals(2, rules.size());
+        assertEquals(1L, result.discountRuleId);
+        assertEquals(5L, result.taxRuleId);
+        assertEquals(new BigDecimal("5.50"), result.taxRate);
+    }
+
+    @Test
+    void noMatchingRuleLeavesRatesNull() {
+        LinePricing result = evaluate(PricingRules.compile(List.of(clientDiscount(2L, "2.00"))), 8L, PRODUCT, CATEGORY, 1);
+
+        assertNull(result.discountRate);
+        assertNull(result.discountRuleId);
+        assertNull(result.taxRate);
+        assertNull(result.taxRuleId);
+    }
+
+    private static LinePricing evaluate(PricingRules rules, Long clientId, Long productId, String category, int quantity) {
+        LinePricing result = new LinePricing();
+        rules.evaluate(clientId, productId, category, quantity, result);
+        return result;
+    }
+
+    private static PricingRule productDiscount(Long id, String rate) {
+        PricingRule rule = discount(id, rate);
+        rule.setProductId(PRODUCT);
+        return rule;
+    }
+
+    private static PricingRule categoryDiscount(Long id, String rate) {
+        PricingRule rule = discount(id, rate);
+        rule.setCategory(CATEGORY);
+        return rule;
+    }
+
+    private static PricingRule clientDiscount(Long id, String rate) {
+        PricingRule rule = discount(id, rate);
+        rule.setClientId(CLIENT);
+        return rule;
+    }
+
+    private static PricingRule discount(Long id, String rate) {
+        PricingRule rule = new PricingRule();
+        rule.setId(id);
+        rule.setName("Rule " + id);
+        rule.setKind(PricingRule.Kind.DISCOUNT);
+        rule.setRate(new BigDecimal(rate));
+        rule.setMinQuantity(1);
+        rule.setPriority(0);
+        rule.setActive(true);
+        return rule;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductCountersTest {
+
+    @Test
+    void collidingIdsProbeToTheirOwnSlots() {
+        List<Long> ids = idsWithTheSameHomeSlot(64, 3);
+        ProductCounters counters = new ProductCounters();
+
+        counters.add(ids.get(0), 1, 100);
+        counters.add(ids.get(1), 2, 200);
+        counters.add(ids.get(2), 3, 300);
+        counters.add(ids.get(1), 5, 500);
+
+        assertEquals(64, counters.capacity());
+        assertEquals(3, usedSlots(counters));
+        assertArrayEquals(new long[]{1, 100}, totals(counters, ids.get(0)));
+        assertArrayEquals(new long[]{7, 700}, totals(counters, ids.get(1)));
+        assertArrayEquals(new long[]{3, 300}, totals(counters, ids.get(2)));
+    }
+
+    @Test
+    void growsPastThreeQuartersFullAndKeepsEveryCount() {
+        ProductCounters counters = new ProductCounters();
+        for (long id = 1; id <= 48; id++) {
+            counters.add(id, id, id * 100);
+        }
+        assertEquals(64, counters.capacity());
+
+        counters.add(49, 49, 4900);
+        assertEquals(128, counters.capacity());
+
+        for (long id = 1; id <= 1000; id++) {
+            counters.add(id, 1, 1);
+        }
+        assertEquals(2048, counters.capacity());
+        assertEquals(1000, usedSlots(counters));
+        assertArrayEquals(new long[]{8, 701}, totals(counters, 7));
+        assertArrayEquals(new long[]{50, 4901}, totals(counters, 49));
+        assertArrayEquals(new long[]{1, 1}, totals(counters, 1000));
+    }
+
+    @Test
+    void addAllMergesCounts() {
+        ProductCounters day = new ProductCounters();
+        day.add(1, 2, 200);
+        day.add(2, 1, 50);
+        ProductCounters window = new ProductCounters();
+        window.add(1, 3, 300);
+        window.add(3, 4, 400);
+
+        window.addAll(day);
+
+        assertEquals(3, usedSlots(window));
+        assertArrayEquals(new long[]{5, 500}, totals(window, 1));
+        assertArrayEquals(new long[]{1, 50}, totals(window, 2));
+        assertArrayEquals(new long[]{4, 400}, totals(window, 3));
+    }
+
+    @Test
+    void topSlotsAreTheLargestInDescendingOrder() {
+        ProductCounters counters = new ProductCounters();
+        for (long id = 1; id <= 100; id++) {
+            // Units rise with the id while revenue falls, so both rankings are checked
+            counters.add(id, id, (101 - id) * 10);
+        }
+        counters.add(50, -50, 0);
+
+        assertArrayEquals(new long[]{100, 99, 98, 97, 96}, keys(counters, counters.topSlots(5, true)));
+        assertArrayEquals(new long[]{1, 2, 3}, keys(counters, counters.topSlots(3, false)));
+        assertEquals(99, counters.topSlots(500, true).length);
+    }
+
+    @Test
+    void topSlotsSkipProductsWhoseUnitsCancelOut() {
+        ProductCounters counters = new ProductCounters();
+        counters.add(1, 2, 200);
+        counters.add(2, 1, 100);
+        counters.add(1, -2, -200);
+
+        assertArrayEquals(new long[]{2}, keys(counters, counters.topSlots(10, true)));
+        assertEquals(0, new ProductCounters().topSlots(10, true).length);
+    }
+
+    private static List<Long> idsWithTheSameHomeSlot(int capacity, int count) {
+        List<Long> ids = new ArrayList<>();
+        int home = home(1, capacity);
+        for (long id = 1; ids.size() < count; id++) {
+            if (home(id, capacity) == home) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    // Mirrors ProductCounters.slot before any probing
+    private static int home(long id, int capacity) {
+        return Long.hashCode(id * 0x9E3779B97F4A7C15L) & (capacity - 1);
+    }
+
+    private static long[] totals(ProductCounters counters, long id) {
+        for (int slot = 0; slot < counters.capacity(); slot++) {
+            if (counters.isUsed(slot) && counters.keyAt(slot) == id) {
+                return new long[]{counters.unitsAt(slot), counters.centsAt(slot)};
+            }
+        }
+        throw new AssertionError("No slot for product " + id);
+    }
+
+    private static int usedSlots(ProductCounters counters) {
+        int used = 0;
+        for (int slot = 0; slot < counters.capacity(); slot++) {
+            if (counters.isUsed(slot)) {
+                used++;
+            }
+        }
+        return used;
+    }
+
+    private static long[] keys(ProductCounters counters, int[] slots) {
+        long[] keys = new long[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            keys[i] = counters.keyAt(slots[i]);
+        }
+        return keys;
+    }
+}